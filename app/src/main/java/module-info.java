@@ -11,6 +11,8 @@
  *   <li>{@code net.cnoga.paint.core.brews} -- Application-level services reacting to events.</li>
  *   <li>{@code net.cnoga.paint.core.fxml_controllers} -- FXML-bound UI controllers.</li>
  *   <li>{@code net.cnoga.paint.core.tool} -- Drawing and editing tools.</li>
+ *   <li>{@code net.cnoga.paint.core.journal} -- Binary recording of user input.</li>
+ *   <li>{@code net.cnoga.paint.core.raster} -- Tiled pixel storage behind workspace layers.</li>
  *   <li>{@code net.cnoga.paint.core.util} -- Shared utility classes and helpers.</li>
  * </ul>
  *
@@ -27,7 +29,6 @@ module net.cnoga.paint {
   requires log4j.api;
 
   opens net.cnoga.paint to javafx.fxml;
-  opens net.cnoga.paint.core.bus to javafx.fxml;
   opens net.cnoga.paint.core.fxml_controllers.window to javafx.fxml;
   opens net.cnoga.paint.core.fxml_controllers.subwindow to javafx.fxml;
   opens net.cnoga.paint.core.fxml_controllers to javafx.fxml;
@@ -35,4 +36,7 @@ module net.cnoga.paint {
   exports net.cnoga.paint;
   exports net.cnoga.paint.core.bus;
   exports net.cnoga.paint.core.brews;
+  exports net.cnoga.paint.core.journal;
+  exports net.cnoga.paint.core.raster;
+  exports net.cnoga.paint.core.util;
 }
\ No newline at end of file
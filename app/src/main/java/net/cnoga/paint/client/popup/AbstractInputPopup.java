@@ -10,6 +10,7 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 
@@ -28,7 +29,7 @@ import net.cnoga.paint.core.bus.EventBusSubscriber;
  *   <li>Optionally override {@link #buildButtonBar()} to customize buttons.</li>
  * </ul>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public abstract class AbstractInputPopup extends EventBusPublisher {
 
   /**
@@ -1,6 +1,7 @@
 package net.cnoga.paint.client.popup;
 
 import javafx.scene.layout.Pane;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.ClearWorkspaceRequest;
@@ -11,7 +12,7 @@ import net.cnoga.paint.core.bus.events.request.UndoRequest;
 /**
  * Popup window that confirms clearing the current workspace.
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class ClearWorkspacePopup extends AbstractInputPopup {
 
   /** Creates a new clear workspace confirmation popup. */
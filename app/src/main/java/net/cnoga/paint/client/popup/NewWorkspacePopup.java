@@ -3,6 +3,7 @@ package net.cnoga.paint.client.popup;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.NewWorkspaceRequest;
@@ -17,7 +18,7 @@ import net.cnoga.paint.core.bus.events.request.ShowNewWorkspacePopupRequest;
  * on confirmation.
  * </p>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class NewWorkspacePopup extends AbstractInputPopup {
 
   /** Text field for entering canvas width. */
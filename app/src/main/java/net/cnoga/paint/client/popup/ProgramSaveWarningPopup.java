@@ -8,6 +8,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.FocusWorkspaceRequest;
@@ -23,7 +24,7 @@ import net.cnoga.paint.core.workspace.Workspace;
  * dialogs.
  * </p>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class ProgramSaveWarningPopup extends AbstractInputPopup {
 
   private final List<Workspace> dirtyWorkspaces;
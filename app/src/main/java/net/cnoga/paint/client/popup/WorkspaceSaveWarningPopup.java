@@ -5,6 +5,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.ShowWorkspaceSaveWarningPopupRequest;
@@ -18,7 +19,7 @@ import net.cnoga.paint.core.workspace.Workspace;
  * horizontal box for consistency across popups.
  * </p>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class WorkspaceSaveWarningPopup extends AbstractInputPopup {
 
   private Runnable onClose;
@@ -9,7 +9,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import javafx.application.Platform;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
@@ -18,14 +17,19 @@ import net.cnoga.paint.core.bus.events.request.ForceCloseProgramRequest;
 import net.cnoga.paint.core.bus.events.request.SetAutosaveIntervalRequest;
 import net.cnoga.paint.core.bus.events.request.ToggleAutosaveRequest;
 import net.cnoga.paint.core.bus.events.request.WorkspaceSaveRequest;
+import net.cnoga.paint.core.bus.events.response.ActiveWorkspaceChangedEvent;
 import net.cnoga.paint.core.bus.events.response.AutosaveTimeChangedEvent;
 import net.cnoga.paint.core.bus.events.response.WorkspaceSavedAsEvent;
 import net.cnoga.paint.core.bus.events.response.WorkspaceSavedEvent;
+import net.cnoga.paint.core.workspace.Workspace;
 
 /**
  * Manages automatic workspace saving at fixed intervals and posts events.
  * <p>
- * Supports start/stop, countdown notifications, and optional system tray alerts.
+ * Supports start/stop, countdown notifications, and optional system tray alerts. Timer events are
+ * posted straight from the scheduler threads; UI subscribers receive them on the FX thread.
+ * Autosave saves the active workspace, so an interval in which that workspace has no unsaved
+ * changes is skipped instead of re-encoding an unchanged image.
  */
 
 @EventBusSubscriber
@@ -34,6 +38,8 @@ public class AutosaveBrew extends EventBusPublisher {
   private boolean isEnabled;
   private int intervalSeconds = 60;
   private volatile int timeLeft;
+  /** The workspace in front, which is the one autosave saves. */
+  private volatile Workspace activeWorkspace;
 
   private ScheduledExecutorService autosaveExecutor;
   private ScheduledExecutorService countdownExecutor;
@@ -63,11 +69,21 @@ public class AutosaveBrew extends EventBusPublisher {
 
   @SubscribeEvent
   @SuppressWarnings("unused")
-  private void onSave(WorkspaceSavedEvent evt) { restartAutosave(); }
+  private void onActiveWorkspaceChanged(ActiveWorkspaceChangedEvent evt) {
+    activeWorkspace = evt.workspace();
+  }
+
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onSave(WorkspaceSavedEvent evt) {
+    restartAutosave();
+  }
 
   @SubscribeEvent
   @SuppressWarnings("unused")
-  private void onSavedAs(WorkspaceSavedAsEvent evt) { restartAutosave(); }
+  private void onSavedAs(WorkspaceSavedAsEvent evt) {
+    restartAutosave();
+  }
 
   @SubscribeEvent
   @SuppressWarnings("unused")
@@ -96,8 +112,11 @@ public class AutosaveBrew extends EventBusPublisher {
     // Autosave task
     autosaveHandle = autosaveExecutor.scheduleAtFixedRate(() -> {
       if (!isEnabled) return;
-      Platform.runLater(() -> bus.post(new WorkspaceSaveRequest()));
-      publishAutosaveNotification();
+      Workspace ws = activeWorkspace;
+      if (ws != null && ws.isDirty()) {
+        bus.post(new WorkspaceSaveRequest());
+        publishAutosaveNotification();
+      }
       timeLeft = intervalSeconds;
     }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
 
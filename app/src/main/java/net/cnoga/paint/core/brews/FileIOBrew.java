@@ -4,27 +4,31 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import javafx.embed.swing.SwingFXUtils;
-import javafx.scene.SnapshotParameters;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.image.WritableImage;
-import javafx.scene.paint.Color;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
 import javax.imageio.ImageIO;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBus;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.FileOpenRequest;
+import net.cnoga.paint.core.bus.events.request.ForceCloseProgramRequest;
 import net.cnoga.paint.core.bus.events.response.FileOpenedEvent;
 import net.cnoga.paint.core.bus.events.response.WorkspaceSavedAsEvent;
 import net.cnoga.paint.core.bus.events.response.WorkspaceSavedEvent;
+import net.cnoga.paint.core.raster.RasterImages;
 import net.cnoga.paint.core.workspace.Workspace;
 import org.apache.commons.imaging.ImageFormats;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.Imaging;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * Publishes file I/O-related actions to the application's {@link EventBus}.
@@ -33,18 +37,36 @@ import org.apache.commons.imaging.Imaging;
  * backend by posting corresponding events.
  * </p>
  *
+ * <p>
+ * Dialogs and copying the base layer's raster run on the FX thread; encoding and writing the image
+ * happens on a dedicated thread so large saves do not stall the UI. A workspace is marked saved
+ * only once its file has been written, and closing the program waits for pending saves.
+ * </p>
  */
 
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class FileIOBrew extends EventBusPublisher {
 
+  private static final Logger log = LogManager.getLogger(FileIOBrew.class);
+
+  /** Longest closing the program waits for pending saves. */
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
   private final Stage stage;
 
+  /**
+   * Encodes and writes images in save order. Its thread is not a daemon, so the JVM outlives a
+   * pending save, and ends when idle, so it does not keep the JVM alive otherwise.
+   */
+  private final ThreadPoolExecutor encoder = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+    new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "FileIOBrew-Encoder"));
+
   /**
    * Constructs and registers this service with the event bus.
    */
   public FileIOBrew(Stage stage) {
     this.stage = stage;
+    encoder.allowCoreThreadTimeOut(true);
     bus.register(this);
   }
 
@@ -103,12 +125,7 @@ public class FileIOBrew extends EventBusPublisher {
     File file = fileChooser.showSaveDialog(stage);
     if (file != null) {
       ws.setFile(file);
-      try {
-        saveWorkspace(ws);
-        ws.setDirty(false);
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
+      saveWorkspace(ws);
     }
   }
 
@@ -121,36 +138,59 @@ public class FileIOBrew extends EventBusPublisher {
     Workspace ws = evt.workspace();
 
     if (ws.getFile() != null) {
-      try {
-        saveWorkspace(ws);
-        ws.setDirty(false);
-      } catch (Exception e) {
-        e.printStackTrace();
+      saveWorkspace(ws);
+    }
+  }
+
+  /**
+   * Waits for pending saves before the program exits.
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onProgramClose(ForceCloseProgramRequest req) {
+    encoder.shutdown();
+    try {
+      if (!encoder.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        log.error("Gave up waiting for pending saves after {} s", SHUTDOWN_TIMEOUT_SECONDS);
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
   /**
-   * Saves the workspace to disk based on its file extension.
+   * Copies the workspace's pixels and hands them off to be written to disk based on its file
+   * extension. The workspace is marked saved once the write succeeds, unless it was edited in the
+   * meantime. Must be called on the FX thread.
    */
-  public void saveWorkspace(Workspace ws) throws IOException, ImageWriteException {
+  public void saveWorkspace(Workspace ws) {
     File file = ws.getFile();
-    if (file == null) {
+    if (file == null || encoder.isShutdown()) {
       return;
     }
 
-    Canvas base = ws.getBaseLayer();
-
-    WritableImage writableImage = new WritableImage(
-      (int) base.getWidth(),
-      (int) base.getHeight()
-    );
-
-    SnapshotParameters params = new SnapshotParameters();
-    params.setFill(Color.TRANSPARENT);
-    base.snapshot(params, writableImage);
+    BufferedImage image = RasterImages.toBufferedImage(ws.getBaseRasterLayer().getRaster());
+    long editCount = ws.getEditCount();
+    encoder.execute(() -> {
+      try {
+        writeImage(image, file);
+      } catch (IOException | ImageWriteException | RuntimeException e) {
+        log.error("Failed to save {}", file, e);
+        return;
+      }
+      Platform.runLater(() -> {
+        if (ws.getEditCount() == editCount) {
+          ws.setDirty(false);
+        }
+      });
+    });
+  }
 
-    BufferedImage bufferedImage = SwingFXUtils.fromFXImage(writableImage, null);
+  /**
+   * Writes an image in the format selected by the file's extension.
+   */
+  private void writeImage(BufferedImage bufferedImage, File file)
+    throws IOException, ImageWriteException {
     String ext = getFileExtension(file.getName()).toLowerCase();
 
     switch (ext) {
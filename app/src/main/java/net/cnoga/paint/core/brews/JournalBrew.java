@@ -0,0 +1,383 @@
+package net.cnoga.paint.core.brews;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import javafx.application.Platform;
+import javafx.scene.paint.Color;
+import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
+import net.cnoga.paint.core.bus.DeliveryMode;
+import net.cnoga.paint.core.bus.EventBusPublisher;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.SubscribeEvent;
+import net.cnoga.paint.core.bus.events.request.ClearWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.CommitSelectionRequest;
+import net.cnoga.paint.core.bus.events.request.CopySelectionRequest;
+import net.cnoga.paint.core.bus.events.request.ForceCloseProgramRequest;
+import net.cnoga.paint.core.bus.events.request.GoToUndoStateRequest;
+import net.cnoga.paint.core.bus.events.request.MoveSelectionRequest;
+import net.cnoga.paint.core.bus.events.request.NewWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.RedoRequest;
+import net.cnoga.paint.core.bus.events.request.ReplayJournalRequest;
+import net.cnoga.paint.core.bus.events.request.RotateSelectionRequest;
+import net.cnoga.paint.core.bus.events.request.SaveStateRequest;
+import net.cnoga.paint.core.bus.events.request.ToggleJournalRequest;
+import net.cnoga.paint.core.bus.events.request.TransformWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.UndoRequest;
+import net.cnoga.paint.core.bus.events.response.ColorChangedEvent;
+import net.cnoga.paint.core.bus.events.response.SelectionPastedEvent;
+import net.cnoga.paint.core.bus.events.response.ShapeChangedEvent;
+import net.cnoga.paint.core.bus.events.response.ToolChangedEvent;
+import net.cnoga.paint.core.bus.events.response.WidthChangedEvent;
+import net.cnoga.paint.core.journal.JournalReader;
+import net.cnoga.paint.core.journal.JournalTag;
+import net.cnoga.paint.core.journal.JournalWriter;
+import net.cnoga.paint.core.tool.PaintTools;
+import net.cnoga.paint.core.tool.Tool;
+import net.cnoga.paint.core.tool.ToolInput;
+import net.cnoga.paint.core.util.ShapeConfig;
+import net.cnoga.paint.core.util.ShapeType;
+import net.cnoga.paint.core.workspace.Workspace;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Records drawing sessions into a binary journal and replays them.
+ * <p>
+ * While recording, every tool input on a workspace canvas and every user-driven bus event (tool,
+ * color, width and shape changes, selection moves, undo/redo, ...) is appended to a journal in the
+ * {@code logs/} directory. Events a tool posts while handling input are skipped, since replaying
+ * the input reproduces them.
+ * </p>
+ *
+ * <p>
+ * Replaying feeds the journal back through {@link WorkspaceBrew} and the event bus at full speed,
+ * starting from a fresh workspace of the recorded size. Opened files are not captured, so sessions
+ * that start from an image replay onto a blank canvas.
+ * </p>
+ */
+@EventBusSubscriber(delivery = DeliveryMode.FX)
+public class JournalBrew extends EventBusPublisher implements ToolInput.Listener {
+
+  private static final Logger log = LogManager.getLogger(JournalBrew.class);
+
+  private static final Path JOURNAL_DIR = Paths.get("logs");
+
+  private static final DateTimeFormatter FILE_TS_FORMAT =
+    DateTimeFormatter.ofPattern("uuuu-MM-dd_HHmmss");
+
+  private final WorkspaceBrew workspaceBrew;
+
+  /** Journal being recorded, or {@code null}. */
+  private JournalWriter writer;
+
+  /** Whether a tool is handling input; events it posts are not recorded. */
+  private boolean inToolInput;
+
+  /** Whether a journal is being replayed; nothing is recorded meanwhile. */
+  private boolean replaying;
+
+  /**
+   * Creates the journal service for the given workspace manager.
+   *
+   * @param workspaceBrew the brew whose workspaces are recorded and replayed into
+   */
+  public JournalBrew(WorkspaceBrew workspaceBrew) {
+    bus.register(this);
+    this.workspaceBrew = workspaceBrew;
+  }
+
+  /**
+   * @return whether a journal is being recorded
+   */
+  public boolean isRecording() {
+    return writer != null;
+  }
+
+  /**
+   * Starts recording into a new journal, stopping any current recording first. The active
+   * workspace's size and the current color and width are written first so a replay starts from
+   * the same state.
+   *
+   * @param file the journal file to create
+   * @throws IOException if the file cannot be created
+   */
+  public void startRecording(Path file) throws IOException {
+    stopRecording();
+    writer = new JournalWriter(file, Platform::runLater);
+
+    Workspace ws = workspaceBrew.getActiveWorkspace();
+    if (ws != null) {
+      writer.append(JournalTag.NEW_WORKSPACE)
+        .putInt((int) ws.getBaseLayer().getWidth())
+        .putInt((int) ws.getBaseLayer().getHeight());
+    }
+    writer.append(JournalTag.COLOR).putInt(toArgb(Tool.getCurrentColor()));
+    writer.append(JournalTag.WIDTH).putInt(Tool.getCurrentWidth());
+
+    bus.setPostListener(this::onPosted);
+    workspaceBrew.setToolInputListener(this);
+    log.info("Recording event journal to {}", file.toAbsolutePath());
+  }
+
+  /**
+   * Stops recording and flushes the journal, if one is being recorded.
+   */
+  public void stopRecording() {
+    if (writer == null) {
+      return;
+    }
+    bus.setPostListener(null);
+    workspaceBrew.setToolInputListener(null);
+    try {
+      writer.close();
+      log.info("Event journal recording stopped.");
+    } catch (IOException e) {
+      log.error("Failed to write event journal", e);
+    }
+    writer = null;
+  }
+
+  /**
+   * Replays a journal at full speed. Must be called on the FX thread.
+   *
+   * @param file the journal to replay
+   * @return the number of records replayed
+   * @throws IOException if the journal cannot be read
+   */
+  public int replay(Path file) throws IOException {
+    replaying = true;
+    try {
+      int records = JournalReader.read(file, this::replayRecord);
+      bus.flushCoalesced();
+      return records;
+    } finally {
+      replaying = false;
+    }
+  }
+
+  @Override
+  public void toolInputStarted(ToolInput input, Tool tool, double x, double y) {
+    inToolInput = true;
+    int index = toolIndex(tool);
+    if (writer == null || replaying || index < 0) {
+      return;
+    }
+    JournalTag tag = switch (input) {
+      case PRESSED -> JournalTag.MOUSE_PRESSED;
+      case DRAGGED -> JournalTag.MOUSE_DRAGGED;
+      case RELEASED -> JournalTag.MOUSE_RELEASED;
+    };
+    writer.append(tag).put((byte) index).putFloat((float) x).putFloat((float) y);
+  }
+
+  @Override
+  public void toolInputFinished() {
+    inToolInput = false;
+  }
+
+  /**
+   * Toggles recording into a timestamped journal in the log directory.
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onToggleJournal(ToggleJournalRequest req) {
+    if (isRecording()) {
+      stopRecording();
+      return;
+    }
+
+    try {
+      Files.createDirectories(JOURNAL_DIR);
+      startRecording(JOURNAL_DIR.resolve(
+        "journal_" + LocalDateTime.now().format(FILE_TS_FORMAT) + ".pjnl"));
+    } catch (IOException e) {
+      log.error("Failed to start event journal in {}", JOURNAL_DIR, e);
+    }
+  }
+
+  /**
+   * Replays a journal, asking the user to pick one if the request names none.
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onReplayJournal(ReplayJournalRequest req) {
+    File file = req.file();
+    if (file == null) {
+      FileChooser chooser = new FileChooser();
+      chooser.setTitle("Replay Journal");
+      chooser.getExtensionFilters().add(new ExtensionFilter("Pain(t) Journal", "*.pjnl"));
+      if (Files.isDirectory(JOURNAL_DIR)) {
+        chooser.setInitialDirectory(JOURNAL_DIR.toFile());
+      }
+      file = chooser.showOpenDialog(null);
+      if (file == null) {
+        return;
+      }
+    }
+
+    try {
+      long start = System.nanoTime();
+      int records = replay(file.toPath());
+      log.info("Replayed {} journal records from {} in {} ms", records, file,
+        (System.nanoTime() - start) / 1_000_000);
+    } catch (IOException e) {
+      log.error("Failed to replay event journal {}", file, e);
+    }
+  }
+
+  /**
+   * Flushes the journal before the program exits.
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onProgramClose(ForceCloseProgramRequest req) {
+    stopRecording();
+  }
+
+  /**
+   * Records a user-driven bus event. Posts from tools handling input, from a replay or from other
+   * threads are skipped.
+   *
+   * @param event a globally posted event
+   */
+  private void onPosted(Object event) {
+    JournalWriter out = writer;
+    if (out == null || inToolInput || replaying || !Platform.isFxApplicationThread()) {
+      return;
+    }
+
+    switch (event) {
+      case NewWorkspaceRequest e -> out.append(JournalTag.NEW_WORKSPACE)
+        .putInt(e.width()).putInt(e.height());
+      case ToolChangedEvent e -> {
+        int index = toolIndex(e.tool());
+        if (index >= 0) {
+          out.append(JournalTag.TOOL).put((byte) index);
+        }
+      }
+      case ColorChangedEvent e -> out.append(JournalTag.COLOR).putInt(toArgb(e.color()));
+      case WidthChangedEvent e -> out.append(JournalTag.WIDTH).putInt(e.width());
+      case ShapeChangedEvent e -> {
+        ShapeConfig config = e.shapeConfig();
+        out.append(JournalTag.SHAPE)
+          .put((byte) config.type().ordinal())
+          .putInt(config.sides())
+          .put((byte) (config.isRightTriangle() ? 1 : 0));
+      }
+      case MoveSelectionRequest e -> out.append(JournalTag.MOVE_SELECTION)
+        .putFloat((float) e.dx()).putFloat((float) e.dy());
+      case RotateSelectionRequest e -> out.append(JournalTag.ROTATE_SELECTION).putInt(e.degrees());
+      case TransformWorkspaceRequest e -> out.append(JournalTag.TRANSFORM_WORKSPACE)
+        .putInt(e.degrees())
+        .put((byte) ((e.mirrorX() ? 1 : 0) | (e.mirrorY() ? 2 : 0)));
+      case SelectionPastedEvent e -> out.append(JournalTag.PASTE_SELECTION)
+        .putFloat((float) e.x()).putFloat((float) e.y());
+      case SaveStateRequest e -> out.append(JournalTag.SAVE_STATE);
+      case UndoRequest e -> out.append(JournalTag.UNDO);
+      case RedoRequest e -> out.append(JournalTag.REDO);
+      case GoToUndoStateRequest e -> out.append(JournalTag.GO_TO_UNDO_STATE).putInt(e.stateId());
+      case ClearWorkspaceRequest e -> out.append(JournalTag.CLEAR_WORKSPACE);
+      case CommitSelectionRequest e -> out.append(JournalTag.COMMIT_SELECTION);
+      case CopySelectionRequest e -> out.append(JournalTag.COPY_SELECTION);
+      default -> {
+        // not part of a drawing session
+      }
+    }
+  }
+
+  /**
+   * Applies one journal record.
+   */
+  private void replayRecord(JournalTag tag, int deltaMicros, ByteBuffer payload) {
+    switch (tag) {
+      case MOUSE_PRESSED, MOUSE_DRAGGED, MOUSE_RELEASED -> {
+        Tool tool = toolAt(payload.get());
+        float x = payload.getFloat();
+        float y = payload.getFloat();
+        ToolInput input = tag == JournalTag.MOUSE_PRESSED ? ToolInput.PRESSED
+          : tag == JournalTag.MOUSE_DRAGGED ? ToolInput.DRAGGED
+          : ToolInput.RELEASED;
+        if (tool != null) {
+          workspaceBrew.replayToolInput(tool, input, x, y);
+        }
+      }
+      case NEW_WORKSPACE -> {
+        int width = payload.getInt();
+        int height = payload.getInt();
+        bus.post(new NewWorkspaceRequest(width, height));
+      }
+      case TOOL -> {
+        Tool tool = toolAt(payload.get());
+        if (tool != null) {
+          bus.post(new ToolChangedEvent(tool));
+        }
+      }
+      case COLOR -> bus.post(new ColorChangedEvent(fromArgb(payload.getInt())));
+      case WIDTH -> bus.post(new WidthChangedEvent(payload.getInt()));
+      case SHAPE -> {
+        ShapeType type = ShapeType.values()[payload.get()];
+        int sides = payload.getInt();
+        boolean rightTriangle = payload.get() != 0;
+        bus.post(new ShapeChangedEvent(new ShapeConfig(type, sides, rightTriangle)));
+      }
+      case MOVE_SELECTION -> {
+        float dx = payload.getFloat();
+        float dy = payload.getFloat();
+        bus.post(new MoveSelectionRequest(dx, dy));
+      }
+      case ROTATE_SELECTION -> bus.post(new RotateSelectionRequest(payload.getInt()));
+      case TRANSFORM_WORKSPACE -> {
+        int degrees = payload.getInt();
+        byte mirror = payload.get();
+        bus.post(new TransformWorkspaceRequest(degrees, (mirror & 1) != 0, (mirror & 2) != 0));
+      }
+      case PASTE_SELECTION -> {
+        float x = payload.getFloat();
+        float y = payload.getFloat();
+        bus.post(new SelectionPastedEvent(x, y));
+      }
+      case SAVE_STATE -> bus.post(new SaveStateRequest());
+      case UNDO -> bus.post(new UndoRequest());
+      case REDO -> bus.post(new RedoRequest());
+      case GO_TO_UNDO_STATE -> bus.post(new GoToUndoStateRequest(payload.getInt()));
+      case CLEAR_WORKSPACE -> bus.post(new ClearWorkspaceRequest());
+      case COMMIT_SELECTION -> bus.post(new CommitSelectionRequest());
+      case COPY_SELECTION -> bus.post(new CopySelectionRequest());
+    }
+
+    // Coalesced events (width, moves) must take effect before the next tool input.
+    bus.flushCoalesced();
+  }
+
+  private static int toolIndex(Tool tool) {
+    for (int i = 0; i < PaintTools.ALL_TOOLS.length; i++) {
+      if (PaintTools.ALL_TOOLS[i] == tool) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static Tool toolAt(byte index) {
+    return index >= 0 && index < PaintTools.ALL_TOOLS.length ? PaintTools.ALL_TOOLS[index] : null;
+  }
+
+  private static int toArgb(Color color) {
+    return (int) Math.round(color.getOpacity() * 255) << 24
+      | (int) Math.round(color.getRed() * 255) << 16
+      | (int) Math.round(color.getGreen() * 255) << 8
+      | (int) Math.round(color.getBlue() * 255);
+  }
+
+  private static Color fromArgb(int argb) {
+    return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF,
+      ((argb >>> 24) & 0xFF) / 255.0);
+  }
+}
@@ -2,6 +2,7 @@ package net.cnoga.paint.core.brews;
 
 import javafx.scene.Scene;
 import javafx.scene.input.KeyEvent;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.events.request.CloseCurrentWorkspaceRequest;
@@ -13,9 +14,11 @@ import net.cnoga.paint.core.bus.events.request.ForceCloseProgramRequest;
 import net.cnoga.paint.core.bus.events.request.MoveSelectionRequest;
 import net.cnoga.paint.core.bus.events.request.PasteSelectionRequest;
 import net.cnoga.paint.core.bus.events.request.RedoRequest;
+import net.cnoga.paint.core.bus.events.request.ReplayJournalRequest;
 import net.cnoga.paint.core.bus.events.request.ResizeWorkspaceRequest;
 import net.cnoga.paint.core.bus.events.request.RotateSelectionRequest;
 import net.cnoga.paint.core.bus.events.request.ShowNewWorkspacePopupRequest;
+import net.cnoga.paint.core.bus.events.request.ToggleJournalRequest;
 import net.cnoga.paint.core.bus.events.request.UndoRequest;
 import net.cnoga.paint.core.bus.events.request.WorkspaceSaveRequest;
 import net.cnoga.paint.core.bus.events.response.ToolChangedEvent;
@@ -25,9 +28,10 @@ import net.cnoga.paint.core.tool.PaintTools;
  * Maps global keyboard shortcuts to application events.
  * <p>
  * Attaches to the primary {@link Scene} and posts corresponding event bus requests for actions like
- * undo/redo, workspace management, selection copy/paste, and tool switching.
+ * undo/redo, workspace management, selection copy/paste, tool switching, and event journal
+ * recording/replay.
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class KeystrokeBrew extends EventBusPublisher {
 
   private final Scene primaryScene;
@@ -63,6 +67,14 @@ public class KeystrokeBrew extends EventBusPublisher {
             bus.post(new RotateSelectionRequest(90));
             keyEvent.consume();
           }
+          case J -> {
+            bus.post(new ToggleJournalRequest());
+            keyEvent.consume();
+          }
+          case L -> {
+            bus.post(new ReplayJournalRequest(null));
+            keyEvent.consume();
+          }
         }
         return;
       }
@@ -12,12 +12,15 @@ import java.time.format.DateTimeFormatter;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import net.cnoga.paint.core.bus.DeliveryMode;
+import net.cnoga.paint.core.bus.EventBus;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.ClearWorkspaceRequest;
 import net.cnoga.paint.core.bus.events.request.CloseCurrentWorkspaceRequest;
 import net.cnoga.paint.core.bus.events.request.FocusWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.ForceCloseProgramRequest;
 import net.cnoga.paint.core.bus.events.request.NewWorkspaceRequest;
 import net.cnoga.paint.core.bus.events.request.PasteSelectionRequest;
 import net.cnoga.paint.core.bus.events.request.WorkspaceSaveRequest;
@@ -36,9 +39,10 @@ import org.apache.logging.log4j.Logger;
  *
  * <p>Console output continues through Log4j; this class only handles session file output.</p>
  *
- * <p>Call {@link #shutdown()} during application exit to stop the logging thread.</p>
+ * <p>On {@link ForceCloseProgramRequest} the event bus metrics are dumped next to the session log
+ * and the logging thread is stopped; {@link #shutdown()} may also be called directly.</p>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.BACKGROUND)
 public class LoggerBrew extends EventBusPublisher implements Runnable {
 
   private static final Logger log = LogManager.getLogger(LoggerBrew.class);
@@ -270,4 +274,22 @@ public class LoggerBrew extends EventBusPublisher implements Runnable {
     log.info(msg);
     enqueue(msg);
   }
+
+  /**
+   * Dumps the event bus metrics to the log directory and stops the logging thread. Runs on the
+   * posting thread so it completes before the program exits.
+   *
+   * @param req the force close request
+   */
+  @SubscribeEvent(delivery = DeliveryMode.POSTING)
+  @SuppressWarnings("unused")
+  private void onProgramClose(ForceCloseProgramRequest req) {
+    try {
+      Path dump = EventBus.getInstance().metrics().dump(LOG_DIR);
+      log.info("Event bus metrics written to {}", dump.toAbsolutePath());
+    } catch (IOException e) {
+      log.error("Failed to write event bus metrics to {}", LOG_DIR, e);
+    }
+    shutdown();
+  }
 }
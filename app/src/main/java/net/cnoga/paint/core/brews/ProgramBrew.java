@@ -8,6 +8,7 @@ import java.net.URISyntaxException;
 import java.util.Objects;
 import javafx.stage.Stage;
 import net.cnoga.paint.client.popup.ProgramSaveWarningPopup;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
@@ -24,7 +25,7 @@ import net.cnoga.paint.core.bus.events.response.GotDirtyWorkspacesEvent;
  * Listens to close requests, ensures unsaved changes are addressed, optionally shows a save-warning
  * popup, and handles external link openings.
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class ProgramBrew extends EventBusPublisher {
 
   private final Stage primaryStage;
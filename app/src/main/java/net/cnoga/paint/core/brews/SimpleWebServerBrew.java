@@ -6,12 +6,14 @@ import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.StartServerRequest;
 import net.cnoga.paint.core.bus.events.request.StopServerRequest;
+import net.cnoga.paint.core.bus.events.response.CanvasChangedEvent;
 import net.cnoga.paint.server.SimpleWebServer;
 
 /**
  * Manages a simple web server via EventBus requests.
  * <p>
- * Listens for start and stop requests and delegates them to a {@link SimpleWebServer} instance.
+ * Listens for start and stop requests and delegates them to a {@link SimpleWebServer} instance,
+ * and tells it which workspaces changed so it only re-encodes those.
  */
 @EventBusSubscriber
 public class SimpleWebServerBrew extends EventBusPublisher {
@@ -45,4 +47,12 @@ public class SimpleWebServerBrew extends EventBusPublisher {
   private void stopServer(StopServerRequest req) {
     server.stop(0);
   }
+
+  /**
+   * Drops the server's cached snapshot of a workspace that changed.
+   */
+  @SubscribeEvent
+  private void onCanvasChanged(CanvasChangedEvent evt) {
+    server.invalidate(evt.workspace());
+  }
 }
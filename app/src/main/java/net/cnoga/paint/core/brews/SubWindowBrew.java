@@ -1,5 +1,6 @@
 package net.cnoga.paint.core.brews;
 
+import net.cnoga.paint.core.bus.DeliveryMode;
 import static net.cnoga.paint.core.util.SubwindowUtil.createSubwindow;
 import static net.cnoga.paint.core.util.SubwindowUtil.createToggledSubwindow;
 import static net.cnoga.paint.core.util.SubwindowUtil.setSubwindowSpawnPoint;
@@ -17,6 +18,7 @@ import net.cnoga.paint.core.bus.events.request.ChangeThemeRequest;
 import net.cnoga.paint.core.bus.events.request.OpenAboutRequest;
 import net.cnoga.paint.core.bus.events.request.OpenChangelogRequest;
 import net.cnoga.paint.core.bus.events.request.OpenHelpRequest;
+import net.cnoga.paint.core.bus.events.request.OpenHistoryRequest;
 import net.cnoga.paint.core.bus.events.request.OpenSettingsRequest;
 import net.cnoga.paint.core.bus.events.request.OpenToolsRequest;
 import net.cnoga.paint.core.util.AnchorTypes;
@@ -27,18 +29,21 @@ import net.cnoga.paint.core.util.AnchorTypes;
  * Listens for UI events and lazily creates, shows, hides, or toggles subwindows while syncing
  * toggle button states and positioning relative to the main stage.
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class SubWindowBrew extends EventBusPublisher {
 
   private final Stage mainStage;
   private Stage toolsStage;
+  private Stage historyStage;
   private Stage settingsStage;
   private Stage helpStage;
   private Stage changelogStage;
   private Stage aboutStage;
   private ToggleButton toolsButton;
   private ToggleButton settingsButton;
+  private ToggleButton historyButton;
   private Boolean toolsOpen = false;
+  private Boolean historyOpen = false;
   private Boolean settingsOpen = false;
 
   /**
@@ -58,6 +63,7 @@ public class SubWindowBrew extends EventBusPublisher {
 
     List<Stage> subStages = Arrays.asList(
       toolsStage,
+      historyStage,
       settingsStage,
       helpStage,
       changelogStage,
@@ -80,6 +86,7 @@ public class SubWindowBrew extends EventBusPublisher {
   private void initSubWindowService(InitSubWindowServiceRequest req) {
     this.toolsButton = req.toolsButton();
     this.settingsButton = req.settingsButton();
+    this.historyButton = req.historyButton();
   }
 
   /**
@@ -113,6 +120,36 @@ public class SubWindowBrew extends EventBusPublisher {
   }
 
 
+  /**
+   * Shows the History subwindow on request.
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onOpenHistory(OpenHistoryRequest req) {
+    if (historyStage == null) {
+      historyStage = createToggledSubwindow(
+        "History",
+        "/net/cnoga/paint/fxml/subwindow/history.fxml",
+        mainStage,
+        true,
+        0.0d,
+        0.0d,
+        historyButton);
+
+      setSubwindowSpawnPoint(historyStage, mainStage, AnchorTypes.MIDDLE_RIGHT);
+    }
+
+    if (historyOpen) {
+      historyStage.hide();
+      historyButton.setSelected(false);
+    } else {
+      historyStage.show();
+      historyStage.toFront();
+      historyButton.setSelected(true);
+    }
+    historyOpen = !historyOpen;
+  }
+
   /**
    * Shows the Settings subwindow on request.
    */
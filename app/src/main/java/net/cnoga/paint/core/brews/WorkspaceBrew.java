@@ -0,0 +1,610 @@
+package net.cnoga.paint.core.brews;
+
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import net.cnoga.paint.client.popup.ClearWorkspacePopup;
+import net.cnoga.paint.client.popup.NewWorkspacePopup;
+import net.cnoga.paint.client.popup.WorkspaceSaveWarningPopup;
+import net.cnoga.paint.core.bus.DeliveryMode;
+import net.cnoga.paint.core.bus.EventBusPublisher;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.SubscribeEvent;
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+import net.cnoga.paint.core.bus.events.request.InitWorkspaceBrewRequest;
+import net.cnoga.paint.core.bus.events.request.ClearWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.CloseCurrentWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.FocusWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.GetDirtyWorkspacesRequest;
+import net.cnoga.paint.core.bus.events.request.NewWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.PasteSelectionRequest;
+import net.cnoga.paint.core.bus.events.request.PickColorRequest;
+import net.cnoga.paint.core.bus.events.request.SaveStateRequest;
+import net.cnoga.paint.core.bus.events.request.TransformWorkspaceRequest;
+import net.cnoga.paint.core.bus.events.request.WorkspaceSaveAsRequest;
+import net.cnoga.paint.core.bus.events.request.WorkspaceSaveRequest;
+import net.cnoga.paint.core.bus.events.response.ActiveWorkspaceChangedEvent;
+import net.cnoga.paint.core.bus.events.response.ColorChangedEvent;
+import net.cnoga.paint.core.bus.events.response.FileOpenedEvent;
+import net.cnoga.paint.core.bus.events.response.GotDirtyWorkspacesEvent;
+import net.cnoga.paint.core.bus.events.response.SelectionPastedEvent;
+import net.cnoga.paint.core.bus.events.response.ToolChangedEvent;
+import net.cnoga.paint.core.bus.events.response.ToolCommandRecordedEvent;
+import net.cnoga.paint.core.bus.events.response.WorkspaceSavedAsEvent;
+import net.cnoga.paint.core.bus.events.response.WorkspaceSavedEvent;
+import net.cnoga.paint.core.raster.PixelRect;
+import net.cnoga.paint.core.raster.Raster;
+import net.cnoga.paint.core.raster.RasterImages;
+import net.cnoga.paint.core.raster.RasterLayer;
+import net.cnoga.paint.core.tool.PanTool;
+import net.cnoga.paint.core.tool.Tool;
+import net.cnoga.paint.core.tool.ToolCommand;
+import net.cnoga.paint.core.tool.ToolInput;
+import net.cnoga.paint.core.util.LineUtil;
+import net.cnoga.paint.core.workspace.Workspace;
+
+/**
+ * Manages the lifecycle and state of all {@link Workspace} instances.
+ * <p>
+ * Handles creating, opening, closing, clearing, saving, and transforming workspaces, as well as
+ * managing their tabs in the UI. Integrates with the EventBus to respond to workspace-related
+ * events.
+ * <p>
+ * Also routes every {@link ActiveWorkspaceEvent} (undo, redo, save state, selection) posted on the
+ * global bus into the scope of the workspace it targets, so only that workspace's capabilities
+ * react.
+ */
+@EventBusSubscriber(delivery = DeliveryMode.FX)
+public class WorkspaceBrew extends EventBusPublisher {
+
+  /** Opaque white, the background of new and cleared workspaces. */
+  private static final int WHITE = 0xFFFFFFFF;
+
+  /** Largest distance in pixels a dropped drag position may have from the stroke tools see. */
+  private static final double DRAG_TOLERANCE = 0.5;
+
+  /** Most drag positions handed to a tool per pulse, however fast the pointer reports. */
+  private static final int MAX_DRAGS_PER_PULSE = 32;
+
+  private final List<Workspace> workspaces = new ArrayList<>();
+  private WorkspaceSaveWarningPopup workspaceSaveWarningPopup;
+  private TabPane workspaceTabPane;
+  private Tool currentTool;
+  private double lastMouseX, lastMouseY;
+  private volatile ToolInput.Listener toolInputListener;
+
+  /**
+   * Drag positions received since the last pulse as {@code x, y} pairs. The first pair is the
+   * position the tool last received, so simplification keeps the stroke connected.
+   */
+  private double[] pendingDrags = new double[64];
+  private int pendingCount;
+
+  /** Where the pending drags go. */
+  private Workspace pendingWorkspace;
+  private Tool pendingTool;
+
+  /** Hands the pending drags to the tool once per pulse; created with the first drag. */
+  private AnimationTimer dragPulse;
+
+  /**
+   * Constructs a {@code WorkspaceService}.
+   */
+  public WorkspaceBrew() {
+    bus.register(this);
+    new NewWorkspacePopup();
+    new ClearWorkspacePopup();
+  }
+
+  /**
+   * Brings the requested workspace to the front.
+   *
+   * @param req contains the workspace to focus
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onFocusWorkspace(FocusWorkspaceRequest req) {
+    int index = workspaces.indexOf(req.workspace());
+    if (index >= 0) {
+      workspaceTabPane.getSelectionModel().select(index);
+    }
+  }
+
+  /**
+   * Initializes this service with the {@link TabPane} that holds workspaces.
+   *
+   * @param req the event containing the tab pane
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onInitWorkspaceBrew(InitWorkspaceBrewRequest req) {
+    this.workspaceTabPane = req.tabPane();
+    workspaceTabPane.getSelectionModel().selectedItemProperty().addListener(
+      (obs, oldTab, newTab) -> bus.post(new ActiveWorkspaceChangedEvent(workspaceOf(newTab))));
+  }
+
+  /**
+   * Finds the workspace shown in a tab.
+   *
+   * @param tab the tab, may be {@code null}
+   * @return the tab's workspace, or {@code null} if there is none
+   */
+  private Workspace workspaceOf(Tab tab) {
+    if (tab == null) {
+      return null;
+    }
+    for (Workspace ws : workspaces) {
+      if (ws.getScrollPane() == tab.getContent()) {
+        return ws;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Sets up mouse handling for a workspace canvas, binding drawing operations to the currently
+   * selected tool.
+   *
+   * @param ws the workspace whose canvas will be initialized
+   */
+  private void initCanvasForWorkspace(Workspace ws) {
+    Canvas baseLayer = ws.getBaseLayer();
+
+    baseLayer.addEventHandler(MouseEvent.MOUSE_PRESSED, e -> {
+      flushDrags();
+      applyToolInput(ws, currentTool, ToolInput.PRESSED, e.getX(), e.getY());
+      pendingDrags[0] = e.getX();
+      pendingDrags[1] = e.getY();
+    });
+
+    baseLayer.addEventHandler(MouseEvent.MOUSE_DRAGGED,
+      e -> queueDrag(ws, currentTool, e.getX(), e.getY()));
+
+    baseLayer.addEventHandler(MouseEvent.MOUSE_RELEASED, e -> {
+      flushDrags();
+      applyToolInput(ws, currentTool, ToolInput.RELEASED, e.getX(), e.getY());
+    });
+
+    baseLayer.addEventHandler(MouseEvent.MOUSE_MOVED, e -> {
+      lastMouseX = e.getX();
+      lastMouseY = e.getY();
+    });
+  }
+
+  /**
+   * Holds a drag position until the next pulse, so a pointer that reports faster than the screen
+   * refreshes does not make the tool render more than once per frame.
+   *
+   * @param ws   the workspace receiving the input
+   * @param tool the tool to drive
+   * @param x    the x-coordinate of the mouse
+   * @param y    the y-coordinate of the mouse
+   */
+  private void queueDrag(Workspace ws, Tool tool, double x, double y) {
+    if (pendingCount > 2 && (ws != pendingWorkspace || tool != pendingTool)) {
+      flushDrags();
+    }
+    if (pendingCount == 0) {
+      // The anchor, the position the tool last received, is already in place
+      pendingCount = 2;
+    }
+    pendingWorkspace = ws;
+    pendingTool = tool;
+    if (pendingCount == pendingDrags.length) {
+      pendingDrags = Arrays.copyOf(pendingDrags, pendingDrags.length * 2);
+    }
+    pendingDrags[pendingCount++] = x;
+    pendingDrags[pendingCount++] = y;
+
+    if (dragPulse == null) {
+      dragPulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+          flushDrags();
+        }
+      };
+    }
+    dragPulse.start();
+  }
+
+  /**
+   * Hands the drags queued since the last pulse to their tool. A {@linkplain Tool#isStroke()
+   * stroke} tool gets them as one simplified polyline: points that add no more than
+   * {@link #DRAG_TOLERANCE} to its shape are dropped, and the tolerance grows until at most
+   * {@link #MAX_DRAGS_PER_PULSE} are left. Any other tool only redraws for the latest point.
+   */
+  private void flushDrags() {
+    if (dragPulse != null) {
+      dragPulse.stop();
+    }
+    Workspace ws = pendingWorkspace;
+    Tool tool = pendingTool;
+    // Not kept past the batch, so a closed workspace is not held on to
+    pendingWorkspace = null;
+    pendingTool = null;
+    if (pendingCount <= 2) {
+      pendingCount = 0;
+      return;
+    }
+    double[] points;
+    if (tool.isStroke()) {
+      double tolerance = DRAG_TOLERANCE;
+      points = LineUtil.simplify(pendingDrags, pendingCount, tolerance);
+      while (points.length / 2 - 1 > MAX_DRAGS_PER_PULSE) {
+        tolerance *= 2;
+        points = LineUtil.simplify(points, points.length, tolerance);
+      }
+    } else {
+      points = new double[] {pendingDrags[pendingCount - 2], pendingDrags[pendingCount - 1]};
+    }
+    pendingCount = 0;
+
+    // Skip the anchor, which the tool already has; a stroke's simplified points include it
+    for (int i = tool.isStroke() ? 2 : 0; i < points.length; i += 2) {
+      applyToolInput(ws, tool, ToolInput.DRAGGED, points[i], points[i + 1]);
+    }
+    pendingDrags[0] = points[points.length - 2];
+    pendingDrags[1] = points[points.length - 1];
+  }
+
+  /**
+   * Drives a tool on a workspace's canvas and marks the workspace dirty if it was changed.
+   *
+   * @param ws    the workspace receiving the input
+   * @param tool  the tool to drive
+   * @param input the mouse phase
+   * @param x     the x-coordinate of the mouse
+   * @param y     the y-coordinate of the mouse
+   */
+  private void applyToolInput(Workspace ws, Tool tool, ToolInput input, double x, double y) {
+    ToolInput.Listener listener = toolInputListener;
+    if (listener != null) {
+      listener.toolInputStarted(input, tool, x, y);
+    }
+    try {
+      input.apply(tool, ws.getBaseLayer().getGraphicsContext2D(),
+        ws.getEffectsLayer().getGraphicsContext2D(), x, y);
+    } finally {
+      if (listener != null) {
+        listener.toolInputFinished();
+      }
+    }
+
+    // The tool painted on the canvas itself; the raster reads those areas back when next needed.
+    List<PixelRect> painted = tool.takePaintedAreas();
+    RasterLayer base = ws.getBaseRasterLayer();
+    for (PixelRect area : painted) {
+      base.canvasChanged(area);
+    }
+    if (input == ToolInput.RELEASED && tool.isMutator()) {
+      // Read the finished stroke back now, so the next press starts without that cost.
+      base.getRaster();
+    }
+    ToolCommand command = tool.takeCommand();
+    if (command != null) {
+      // Undo history may keep the stroke's input in place of its pixels
+      bus.post(ws, new ToolCommandRecordedEvent(command));
+    }
+    if (input != ToolInput.RELEASED && !(tool instanceof PanTool)) {
+      ws.setDirty(true);
+    }
+  }
+
+  /**
+   * Replays one tool input on the active workspace, exactly as if it came from its canvas.
+   *
+   * @param tool  the tool to drive
+   * @param input the mouse phase
+   * @param x     the x-coordinate of the mouse
+   * @param y     the y-coordinate of the mouse
+   */
+  public void replayToolInput(Tool tool, ToolInput input, double x, double y) {
+    Workspace ws = getActiveWorkspace();
+    if (ws != null) {
+      applyToolInput(ws, tool, input, x, y);
+    }
+  }
+
+  /**
+   * Installs an observer of all tool input on every workspace, e.g. a journal recorder. While
+   * none is installed, input handling does no extra work.
+   *
+   * @param listener the observer, or {@code null} to remove it
+   */
+  public void setToolInputListener(ToolInput.Listener listener) {
+    this.toolInputListener = listener;
+  }
+
+  /**
+   * Handles pasting at the last mouse location.
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onPasteSelection(PasteSelectionRequest req) {
+    bus.post(new SelectionPastedEvent(lastMouseX, lastMouseY));
+  }
+
+  /**
+   * Answers a color pick with the pixel under the given point of the active workspace.
+   *
+   * @param req the point to sample
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onPickColor(PickColorRequest req) {
+    Workspace ws = getActiveWorkspace();
+    if (ws == null) {
+      return;
+    }
+
+    Raster raster = ws.getBaseRasterLayer().getRaster();
+    int x = (int) req.x();
+    int y = (int) req.y();
+    if (req.x() >= 0 && x < raster.getWidth() && req.y() >= 0 && y < raster.getHeight()) {
+      int argb = raster.getArgb(x, y);
+      bus.post(new ColorChangedEvent(Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF,
+        argb & 0xFF, (argb >>> 24) / 255.0)));
+    }
+  }
+
+  /**
+   * Creates a new empty workspace with a white background.
+   *
+   * @param req event requesting a new workspace
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onNewWorkspace(NewWorkspaceRequest req) {
+    Workspace ws = new Workspace("Workspace " + workspaces.size(), req.width(), req.height());
+    RasterLayer base = ws.getBaseRasterLayer();
+    base.getRaster().fill(WHITE);
+    base.refresh();
+
+    initCanvasForWorkspace(ws);
+    addWorkspaceTab(ws);
+  }
+
+  /**
+   * Clears the currently active workspace.
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onClearWorkspace(ClearWorkspaceRequest req) {
+    Workspace ws = getActiveWorkspace();
+    if (ws == null) {
+      return;
+    }
+
+    RasterLayer base = ws.getBaseRasterLayer();
+    base.getRaster().fill(WHITE);
+    base.refresh();
+
+    ws.setDirty(true);
+  }
+
+  /**
+   * Opens a workspace from a file.
+   *
+   * @param evt contains the file to open
+   * @throws FileNotFoundException if file cannot be read
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onFileOpened(FileOpenedEvent evt) throws FileNotFoundException {
+    Image img = new Image(new FileInputStream(evt.file()));
+    Workspace ws = new Workspace(evt.file().getName(), img.getWidth(), img.getHeight());
+    ws.getBaseRasterLayer().setRaster(RasterImages.fromImage(img));
+    ws.setFile(evt.file());
+
+    initCanvasForWorkspace(ws);
+    addWorkspaceTab(ws);
+  }
+
+  /**
+   * Closes the currently active workspace, prompting to save if dirty.
+   *
+   * @param req event requesting close
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onCloseCurrentWorkspace(CloseCurrentWorkspaceRequest req) {
+    Workspace ws = getActiveWorkspace();
+    if (ws == null) {
+      return;
+    }
+
+    Runnable closeWorkspace = () -> {
+      workspaces.remove(ws);
+      workspaceTabPane.getTabs().stream()
+        .filter(tab -> tab.getContent() == ws.getScrollPane())
+        .findFirst().ifPresent(tabToRemove -> workspaceTabPane.getTabs().remove(tabToRemove));
+      ws.dispose();
+
+      // the popup outlives this close action; don't let it pin the closed workspace
+      if (workspaceSaveWarningPopup != null) {
+        workspaceSaveWarningPopup.setRunnable(() -> {
+        });
+      }
+    };
+
+    if (ws.isDirty()) {
+      if (workspaceSaveWarningPopup == null) {
+        workspaceSaveWarningPopup = new WorkspaceSaveWarningPopup(ws, closeWorkspace);
+      }
+      // set the onClose action to this current workspace
+      workspaceSaveWarningPopup.setRunnable(closeWorkspace);
+      workspaceSaveWarningPopup.show();
+    } else {
+      closeWorkspace.run();
+    }
+  }
+
+  /**
+   * Saves the currently active workspace or triggers "Save As".
+   *
+   * @param req event requesting save
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onWorkspaceSave(WorkspaceSaveRequest req) {
+    Workspace ws = getActiveWorkspace();
+
+    if (ws.getFile() != null) {
+      bus.post(new WorkspaceSavedEvent(ws));
+    } else {
+      bus.post(new WorkspaceSavedAsEvent(ws));
+    }
+  }
+
+  /**
+   * Forces "Save As" for the current workspace.
+   *
+   * @param req event requesting save as
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onWorkspaceSaveAs(WorkspaceSaveAsRequest req) {
+    Workspace ws = getActiveWorkspace();
+    bus.post(new WorkspaceSavedAsEvent(ws));
+  }
+
+  /**
+   * Updates the current tool and scroll behavior for PanTool.
+   *
+   * @param evt tool change event
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onToolChanged(ToolChangedEvent evt) {
+    for (Workspace ws : workspaces) {
+      ws.getScrollPane().setPannable(evt.tool() instanceof PanTool);
+      bus.post(ws, evt);
+    }
+    this.currentTool = evt.tool();
+  }
+
+  /**
+   * Routes undo/redo, state snapshots and selection events to the active workspace.
+   *
+   * @param evt any event acting on the active workspace
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onActiveWorkspaceEvent(ActiveWorkspaceEvent evt) {
+    postToActiveWorkspace(evt);
+  }
+
+  /**
+   * Posts an event into the scope of the active workspace, if there is one.
+   *
+   * @param event the event to route
+   */
+  private void postToActiveWorkspace(Object event) {
+    Workspace ws = getActiveWorkspace();
+    if (ws != null) {
+      bus.post(ws, event);
+    }
+  }
+
+  /**
+   * Transforms the active workspace (rotate/mirror).
+   *
+   * @param req contains degrees and mirroring options
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onTransformWorkspace(TransformWorkspaceRequest req) {
+    Workspace ws = getActiveWorkspace();
+    if (ws == null) {
+      return;
+    }
+
+    int degrees = ((req.degrees() % 360) + 360) % 360;
+    if (degrees != 0 && degrees != 90 && degrees != 180 && degrees != 270) {
+      System.err.println("Unsupported rotation: " + degrees);
+      return;
+    }
+
+    // A step of its own in undo history, covering every layer
+    bus.post(ws, new SaveStateRequest());
+
+    // Raster layers are rotated pixel for pixel; display-only layers just follow the new size
+    for (RasterLayer pixels : ws.getRasterLayers()) {
+      pixels.setRaster(pixels.getRaster().transformed(degrees, req.mirrorX(), req.mirrorY()));
+    }
+    ws.fitDisplayLayers();
+
+    // Refresh layout (important when size changes)
+    ws.getScrollPane().requestLayout();
+
+    ws.setDirty(true);
+  }
+
+
+  /**
+   * Adds a workspace to the internal list and creates a corresponding tab in the UI.
+   *
+   * @param ws the {@link Workspace} to add
+   */
+  private void addWorkspaceTab(Workspace ws) {
+    workspaces.add(ws);
+
+    Tab tab = new Tab(ws.getName(), ws.getScrollPane());
+    tab.setOnCloseRequest(event -> {
+      event.consume();
+      bus.post(new CloseCurrentWorkspaceRequest());
+    });
+
+    workspaceTabPane.getTabs().add(tab);
+    workspaceTabPane.getSelectionModel().select(tab);
+  }
+
+  /**
+   * Returns the currently active workspace, or {@code null} if no workspace is selected.
+   *
+   * @return the active {@link Workspace}, or {@code null} if none
+   */
+  public Workspace getActiveWorkspace() {
+    int index = workspaceTabPane.getSelectionModel().getSelectedIndex();
+    return (index >= 0 && index < workspaces.size()) ? workspaces.get(index) : null;
+  }
+
+  /**
+   * Handles a request to retrieve all dirty (unsaved) workspaces and posts them on the EventBus.
+   *
+   * @param req the {@link GetDirtyWorkspacesRequest} event
+   */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onGetDirtyWorkspaces(GetDirtyWorkspacesRequest req) {
+    bus.post(new GotDirtyWorkspacesEvent(getDirtyWorkspaces()));
+  }
+
+  /**
+   * Returns all workspaces that have unsaved changes.
+   *
+   * @return a list of dirty {@link Workspace} instances
+   */
+  public List<Workspace> getDirtyWorkspaces() {
+    return workspaces.stream().filter(Workspace::isDirty).toList();
+  }
+
+  /**
+   * Returns all open workspaces.
+   *
+   * @return list of workspaces
+   */
+  public List<Workspace> getWorkspaces() {
+    return workspaces;
+  }
+}
@@ -7,6 +7,7 @@
  * <ul>
  *   <li>Managing autosave functionality ({@link net.cnoga.paint.core.brews.AutosaveBrew})</li>
  *   <li>Providing file IO operations ({@link net.cnoga.paint.core.brews.FileIOBrew})</li>
+ *   <li>Recording and replaying event journals ({@link net.cnoga.paint.core.brews.JournalBrew})</li>
  *   <li>Managing global keyboard shortcuts ({@link net.cnoga.paint.core.brews.KeystrokeBrew})</li>
  *   <li>Logging events asynchronously ({@link net.cnoga.paint.core.brews.LoggerBrew})</li>
  *   <li>Program lifecycle management ({@link net.cnoga.paint.core.brews.ProgramBrew})</li>
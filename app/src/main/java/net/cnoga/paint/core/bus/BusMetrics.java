@@ -0,0 +1,202 @@
+package net.cnoga.paint.core.bus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Dispatch statistics for the {@link EventBus}.
+ *
+ * <p>For every event type the bus records how often it is posted and how long dispatching it
+ * takes; for every subscriber method, how often it runs and how long each call takes. Handlers
+ * that exceed the slow-subscriber budget (4 ms by default) are counted and reported through Log4j,
+ * at most once per second per handler.</p>
+ *
+ * <p>Dispatch time for an event only covers handlers delivered inline; handlers on other threads
+ * are timed where they actually run.</p>
+ *
+ * <p>Example:</p>
+ * <pre>{@code
+ * BusMetrics metrics = EventBus.getInstance().metrics();
+ * metrics.setSlowBudget(Duration.ofMillis(8));
+ * metrics.handlers().forEach(h -> System.out.println(h.name() + " p99=" + h.percentileNanos(99)));
+ * }</pre>
+ */
+public final class BusMetrics {
+
+  private static final Logger log = LogManager.getLogger(BusMetrics.class);
+
+  /** Minimum gap between two slow-call warnings for the same handler. */
+  static final long WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static final DateTimeFormatter FILE_TS_FORMAT =
+    DateTimeFormatter.ofPattern("uuuu-MM-dd_HHmmss");
+
+  /** Stats per posted event type; resolved without allocation on the hot path. */
+  private final ClassValue<InvocationStats> events = new ClassValue<>() {
+    @Override
+    protected InvocationStats computeValue(Class<?> type) {
+      InvocationStats stats = new InvocationStats(type.getName(), BusMetrics.this, false);
+      eventStats.put(type.getName(), stats);
+      return stats;
+    }
+  };
+
+  /** Every event type's stats, for reporting. */
+  private final Map<String, InvocationStats> eventStats = new ConcurrentHashMap<>();
+
+  /** Every subscriber method's stats, for reporting. */
+  private final Map<String, InvocationStats> handlerStats = new ConcurrentHashMap<>();
+
+  /** Calls slower than this are flagged. */
+  private volatile long slowBudgetNanos = TimeUnit.MILLISECONDS.toNanos(4);
+
+  /** Whether timing is recorded at all. */
+  private volatile boolean enabled = true;
+
+  BusMetrics() {
+  }
+
+  /**
+   * @return whether dispatch timing is being recorded
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Turns recording on or off. Existing data is kept.
+   *
+   * @param enabled whether to record dispatch timing
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * @return the slow-subscriber budget in nanoseconds
+   */
+  public long slowBudgetNanos() {
+    return slowBudgetNanos;
+  }
+
+  /**
+   * Sets how long a single handler call may take before it is flagged as slow.
+   *
+   * @param budget the budget; must be positive
+   */
+  public void setSlowBudget(Duration budget) {
+    if (budget.isNegative() || budget.isZero()) {
+      throw new IllegalArgumentException("Slow-subscriber budget must be positive: " + budget);
+    }
+    this.slowBudgetNanos = budget.toNanos();
+  }
+
+  /**
+   * @return stats for every event type posted so far, busiest first
+   */
+  public List<InvocationStats> events() {
+    return sorted(eventStats);
+  }
+
+  /**
+   * @return stats for every registered subscriber method, busiest first
+   */
+  public List<InvocationStats> handlers() {
+    return sorted(handlerStats);
+  }
+
+  /**
+   * Clears all recorded data, keeping the tracked event types and handlers.
+   */
+  public void reset() {
+    eventStats.values().forEach(InvocationStats::reset);
+    handlerStats.values().forEach(InvocationStats::reset);
+  }
+
+  /**
+   * Formats all recorded data as a plain-text table.
+   *
+   * @return the report
+   */
+  public String report() {
+    StringBuilder out = new StringBuilder();
+    out.append("Slow-subscriber budget: ")
+      .append(TimeUnit.NANOSECONDS.toMicros(slowBudgetNanos)).append(" us\n\n");
+    appendTable(out, "Events", events());
+    out.append('\n');
+    appendTable(out, "Subscribers", handlers());
+    return out.toString();
+  }
+
+  /**
+   * Writes {@link #report()} to a timestamped file, e.g. {@code logs/bus-metrics_...txt}.
+   *
+   * @param directory the directory to write into; created if missing
+   * @return the written file
+   * @throws IOException if the report cannot be written
+   */
+  public Path dump(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    Path file = directory.resolve(
+      "bus-metrics_" + LocalDateTime.now().format(FILE_TS_FORMAT) + ".txt");
+    Files.writeString(file, report());
+    return file;
+  }
+
+  /**
+   * @param eventType a posted event's class
+   * @return the stats for that type
+   */
+  InvocationStats forEvent(Class<?> eventType) {
+    return events.get(eventType);
+  }
+
+  /**
+   * @param description a subscriber method's description
+   * @return the stats for that handler, shared by every instance of its class
+   */
+  InvocationStats forHandler(String description) {
+    return handlerStats.computeIfAbsent(description, d -> new InvocationStats(d, this, true));
+  }
+
+  /**
+   * Reports a handler call that exceeded the budget.
+   */
+  void warnSlow(InvocationStats stats, long nanos) {
+    log.warn("Slow subscriber {} took {} us (budget {} us, {} slow calls so far)",
+      stats.name(), TimeUnit.NANOSECONDS.toMicros(nanos),
+      TimeUnit.NANOSECONDS.toMicros(slowBudgetNanos), stats.slowCount());
+  }
+
+  private static List<InvocationStats> sorted(Map<String, InvocationStats> stats) {
+    List<InvocationStats> list = new ArrayList<>(stats.values());
+    list.sort(Comparator.comparingLong(InvocationStats::totalNanos).reversed());
+    return list;
+  }
+
+  private static void appendTable(StringBuilder out, String title, List<InvocationStats> rows) {
+    out.append(title).append('\n');
+    out.append(String.format("%10s %10s %10s %10s %10s %8s  %s%n",
+      "count", "mean(us)", "p50(us)", "p99(us)", "max(us)", "slow", "name"));
+    for (InvocationStats row : rows) {
+      if (row.count() == 0) {
+        continue;
+      }
+      out.append(String.format("%10d %10.1f %10.1f %10.1f %10.1f %8d  %s%n",
+        row.count(), row.meanNanos() / 1e3, row.percentileNanos(50) / 1e3,
+        row.percentileNanos(99) / 1e3, row.maxNanos() / 1e3, row.slowCount(), row.name()));
+    }
+  }
+}
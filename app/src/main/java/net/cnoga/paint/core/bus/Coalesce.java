@@ -0,0 +1,49 @@
+package net.cnoga.paint.core.bus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an event type as high-frequency, so the {@link EventBus} may collapse several posts of it
+ * into one delivery per JavaFX pulse.
+ * <p>
+ * Coalesced events are held until the next pulse and then delivered in the order they were first
+ * posted. Posting any non-coalesced event first flushes the held ones, so handlers never observe
+ * them out of order with the rest of the program.
+ * </p>
+ *
+ * <p>Example:</p>
+ * <pre>{@code
+ * @Coalesce(Coalesce.Policy.LATEST)
+ * public record ZoomChangedEvent(double zoom) {
+ * }
+ * }</pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Coalesce {
+
+  /**
+   * @return how repeated posts within one pulse are collapsed
+   */
+  Policy value();
+
+  /**
+   * How repeated posts of the same event type to the same target are collapsed.
+   */
+  enum Policy {
+
+    /**
+     * Only the most recent event is delivered.
+     */
+    LATEST,
+
+    /**
+     * Events are folded together with {@link MergeableEvent#merge(Object)}; the event type must
+     * implement {@link MergeableEvent}.
+     */
+    MERGE
+  }
+}
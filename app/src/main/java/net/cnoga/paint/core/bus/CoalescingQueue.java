@@ -0,0 +1,200 @@
+package net.cnoga.paint.core.bus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Holds {@link Coalesce}-annotated events until the next JavaFX pulse.
+ *
+ * <p>Pending events are keyed by target scope and event type, so a burst of posts leaves at most
+ * one event per key. A one-shot {@link AnimationTimer} drains them when the next frame starts,
+ * which is the last moment their handlers can still affect what gets rendered.</p>
+ */
+final class CoalescingQueue {
+
+  /** Per-type coalescing policy, or {@code null} for ordinary events. */
+  private static final ClassValue<Coalesce.Policy> POLICIES = new ClassValue<>() {
+    @Override
+    protected Coalesce.Policy computeValue(Class<?> type) {
+      Coalesce coalesce = type.getAnnotation(Coalesce.class);
+      if (coalesce == null) {
+        return null;
+      }
+      if (coalesce.value() == Coalesce.Policy.MERGE
+        && !MergeableEvent.class.isAssignableFrom(type)) {
+        throw new IllegalArgumentException(
+          "Event " + type.getName() + " uses Policy.MERGE but does not implement MergeableEvent"
+        );
+      }
+      return coalesce.value();
+    }
+  };
+
+  /** Delivers a flushed event to its target: {@code (scope or null, event)}. */
+  private final BiConsumer<Object, Object> sink;
+
+  /** Held events in first-posted order. Guarded by itself. */
+  private final Map<PendingKey, Object> pending = new LinkedHashMap<>();
+
+  /** Fast check for {@link #hasPending()} without taking the lock. */
+  private volatile boolean hasPending;
+
+  /** Whether a pulse has been requested for the current batch. Guarded by {@link #pending}. */
+  private boolean flushScheduled;
+
+  /** Thread currently delivering a batch; its coalesced posts are dispatched directly. */
+  private volatile Thread flushingThread;
+
+  /** Set once the FX toolkit turned out to be missing, so later batches skip the attempt. */
+  private volatile boolean toolkitMissing;
+
+  /** Schedules each batch's flush instead of the next pulse, or {@code null}. */
+  private volatile Consumer<Runnable> scheduler;
+
+  /** One-shot pulse hook, created lazily on the FX thread. */
+  private AnimationTimer pulse;
+
+  /**
+   * @param sink receives each flushed event together with its scope ({@code null} for global)
+   */
+  CoalescingQueue(BiConsumer<Object, Object> sink) {
+    this.sink = sink;
+  }
+
+  /**
+   * @param eventType the posted event's class
+   * @return the type's coalescing policy, or {@code null} if it is delivered immediately
+   * @throws IllegalArgumentException if the type is misannotated
+   */
+  static Coalesce.Policy policyOf(Class<?> eventType) {
+    return POLICIES.get(eventType);
+  }
+
+  /**
+   * Replaces the pulse as the trigger for delivering a batch.
+   *
+   * @param scheduler receives a task that flushes the batch once per batch, or {@code null} to
+   *                  wait for the next pulse again
+   */
+  void setScheduler(Consumer<Runnable> scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * @return whether any events are waiting for the next pulse
+   */
+  boolean hasPending() {
+    return hasPending;
+  }
+
+  /**
+   * Holds an event until the next pulse, collapsing it with any pending event for the same key.
+   *
+   * @param scope  the scope it was posted to, or {@code null} for global
+   * @param event  the event
+   * @param policy the event type's policy
+   * @return {@code false} if the caller should dispatch the event itself
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  boolean offer(Object scope, Object event, Coalesce.Policy policy) {
+    if (flushingThread == Thread.currentThread()) {
+      // Re-posted while flushing (e.g. forwarded into a workspace scope); already collapsed.
+      return false;
+    }
+
+    boolean schedule;
+    synchronized (pending) {
+      Object mergeKey = policy == Coalesce.Policy.MERGE
+        ? ((MergeableEvent) event).coalesceKey()
+        : null;
+      PendingKey key = new PendingKey(scope, event.getClass(), mergeKey);
+      Object held = pending.get(key);
+      pending.put(key, held != null && policy == Coalesce.Policy.MERGE
+        ? ((MergeableEvent) held).merge(event)
+        : event);
+      hasPending = true;
+      schedule = !flushScheduled;
+      flushScheduled = true;
+    }
+
+    if (schedule) {
+      Consumer<Runnable> custom = scheduler;
+      if (custom != null) {
+        custom.accept(this::flush);
+        return true;
+      }
+      if (toolkitMissing) {
+        flush();
+        return true;
+      }
+      try {
+        Platform.runLater(this::awaitPulse);
+      } catch (IllegalStateException e) {
+        // No FX toolkit (e.g. headless tests): nothing will pulse, so deliver right away.
+        toolkitMissing = true;
+        flush();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Delivers every pending event now.
+   */
+  void flush() {
+    List<Map.Entry<PendingKey, Object>> batch;
+    synchronized (pending) {
+      if (pending.isEmpty()) {
+        flushScheduled = false;
+        return;
+      }
+      batch = new ArrayList<>(pending.entrySet());
+      pending.clear();
+      hasPending = false;
+      flushScheduled = false;
+    }
+
+    Thread previous = flushingThread;
+    flushingThread = Thread.currentThread();
+    try {
+      for (Map.Entry<PendingKey, Object> entry : batch) {
+        sink.accept(entry.getKey().scope(), entry.getValue());
+      }
+    } finally {
+      flushingThread = previous;
+    }
+  }
+
+  /**
+   * Arms the pulse hook. Runs on the FX thread.
+   */
+  private void awaitPulse() {
+    if (pulse == null) {
+      pulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+          stop();
+          flush();
+        }
+      };
+    }
+    pulse.start();
+  }
+
+  /**
+   * Identifies events that collapse into each other.
+   *
+   * @param scope    the target scope, or {@code null} for global
+   * @param type     the event type
+   * @param mergeKey the event's {@link MergeableEvent#coalesceKey()}, or {@code null}
+   */
+  private record PendingKey(Object scope, Class<?> type, Object mergeKey) {
+
+  }
+}
@@ -0,0 +1,42 @@
+package net.cnoga.paint.core.bus;
+
+/**
+ * Selects the thread a {@link SubscribeEvent} handler is invoked on.
+ * <p>
+ * Handlers declare a mode with {@link SubscribeEvent#delivery()}, or inherit the default of their
+ * class from {@link EventBusSubscriber#delivery()}. The bus then marshals each delivery, so
+ * publishers may post from any thread without subscribers wrapping their work by hand.
+ * </p>
+ */
+public enum DeliveryMode {
+
+  /**
+   * Use the default of the enclosing {@link EventBusSubscriber}, or {@link #POSTING} when used on
+   * the class itself.
+   */
+  DEFAULT,
+
+  /**
+   * Invoke inline on whichever thread posted the event.
+   */
+  POSTING,
+
+  /**
+   * Invoke on the JavaFX Application Thread. Deliveries posted from the FX thread run inline;
+   * deliveries from other threads are queued and drained together in a single
+   * {@code Platform.runLater} batch.
+   */
+  FX,
+
+  /**
+   * Invoke on the bus's shared background thread. Deliveries run one at a time in posting order,
+   * so this suits work such as logging or encoding that must stay off the FX thread.
+   */
+  BACKGROUND,
+
+  /**
+   * Invoke on a fresh virtual thread per delivery, with no ordering guarantee. Suits blocking work
+   * that should not hold up other background deliveries.
+   */
+  VIRTUAL
+}
@@ -0,0 +1,96 @@
+package net.cnoga.paint.core.bus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.application.Platform;
+
+/**
+ * Runs handler invocations on the thread their {@link DeliveryMode} asks for.
+ *
+ * <p>FX deliveries posted off the FX thread are collected in a queue and drained by a single
+ * {@link Platform#runLater} call, so a burst of background posts costs one hop to the FX thread
+ * rather than one per event.</p>
+ */
+final class Dispatcher {
+
+  /** Shared, ordered executor for {@link DeliveryMode#BACKGROUND} handlers. */
+  private static final ExecutorService BACKGROUND =
+    Executors.newSingleThreadExecutor(daemonFactory("EventBus-Background"));
+
+  /** Builder for {@link DeliveryMode#VIRTUAL} handler threads. */
+  private static final ThreadFactory VIRTUAL =
+    Thread.ofVirtual().name("EventBus-Virtual-", 0).factory();
+
+  /** FX deliveries waiting for the next drain. */
+  private static final Queue<Runnable> FX_QUEUE = new ConcurrentLinkedQueue<>();
+
+  /** Whether a drain of {@link #FX_QUEUE} has been scheduled and not yet started. */
+  private static final AtomicBoolean FX_DRAIN_SCHEDULED = new AtomicBoolean();
+
+  private Dispatcher() {
+  }
+
+  /**
+   * Invokes a handler according to its delivery mode.
+   *
+   * @param method the handler to call
+   * @param target the subscriber instance
+   * @param event  the event to deliver
+   */
+  static void deliver(SubscriberMethod method, Object target, Object event) {
+    switch (method.deliveryMode()) {
+      case FX -> {
+        if (Platform.isFxApplicationThread()) {
+          method.invoke(target, event);
+        } else {
+          enqueueFx(() -> method.invoke(target, event));
+        }
+      }
+      case BACKGROUND -> BACKGROUND.execute(() -> method.invoke(target, event));
+      case VIRTUAL -> VIRTUAL.newThread(() -> method.invoke(target, event)).start();
+      default -> method.invoke(target, event);
+    }
+  }
+
+  /**
+   * Queues an FX delivery, scheduling a drain if none is pending.
+   *
+   * @param task the delivery to run on the FX thread
+   */
+  private static void enqueueFx(Runnable task) {
+    FX_QUEUE.add(task);
+    if (FX_DRAIN_SCHEDULED.compareAndSet(false, true)) {
+      Platform.runLater(Dispatcher::drainFx);
+    }
+  }
+
+  /**
+   * Runs every queued FX delivery. A failing handler is reported without dropping the rest of the
+   * batch.
+   */
+  private static void drainFx() {
+    // Cleared before draining so a post racing with the last poll schedules a fresh drain.
+    FX_DRAIN_SCHEDULED.set(false);
+    Runnable task;
+    while ((task = FX_QUEUE.poll()) != null) {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        Thread current = Thread.currentThread();
+        current.getUncaughtExceptionHandler().uncaughtException(current, e);
+      }
+    }
+  }
+
+  private static ThreadFactory daemonFactory(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
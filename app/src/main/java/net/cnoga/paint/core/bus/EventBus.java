@@ -0,0 +1,393 @@
+package net.cnoga.paint.core.bus;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A simple event bus for program-wide reactive programming tasks.
+ * <p>Subscriber methods annotated with {@link SubscribeEvent} in classes annotated with
+ * {@link EventBusSubscriber} are looked up in an index generated at compile time, falling back to
+ * a reflective scan for classes the index does not cover. Discovery happens once per class; each
+ * handler is then compiled into a direct invoker (see {@link SubscriberMethod}) so posting an event
+ * costs about as much as a virtual call.
+ * </p>
+ *
+ * <p>
+ * Subscribers register listener methods for specific event types, and publishers post events that
+ * are automatically delivered to all matching subscribers. A listener declared for a supertype or
+ * interface receives every event assignable to it, e.g. a marker interface shared by a family of
+ * requests.
+ * </p>
+ *
+ * <p>
+ * Subscribers may also be registered into a <em>scope</em> (for example, the
+ * {@code Workspace} that owns them) via {@link #register(Object, Object)}. Scoped subscribers only
+ * see events posted to that scope with {@link #post(Object, Object)}, which is a single lookup
+ * rather than a broadcast to every registered subscriber.
+ * </p>
+ *
+ * <p>
+ * Scoped subscribers and scope keys are only weakly referenced: once a scope's owner (and with it,
+ * its subscribers) becomes unreachable, its entries are purged automatically. Global subscribers
+ * are kept alive until {@link #unregister(Object)} is called, since most of them are created
+ * fire-and-forget. {@link #unregisterScope(Object)} drops a whole scope eagerly.
+ * </p>
+ *
+ * <p>
+ * Events may be posted from any thread. Each handler is invoked on the thread its
+ * {@link DeliveryMode} selects: inline, on the JavaFX Application Thread, on a shared background
+ * thread, or on a virtual thread.
+ * </p>
+ *
+ * <p>
+ * Event types annotated with {@link Coalesce} are held until the next JavaFX pulse, so a burst of
+ * them (e.g. one per mouse-drag event) reaches handlers as a single event per frame.
+ * </p>
+ *
+ * <p>
+ * Dispatch counts and latencies are recorded per event type and per handler; see
+ * {@link #metrics()}.
+ * </p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * @EventBusSubscriber
+ * public class ToolManager {
+ *     @SubscribeEvent
+ *     public void onUndo(UndoRequestEvent e) {
+ *         // handle undo
+ *     }
+ * }
+ * }</pre>
+ */
+public class EventBus {
+
+  /**
+   * Singleton instance of the global event bus.
+   */
+  private static final EventBus INSTANCE = new EventBus();
+
+  /**
+   * Compiled handlers per subscriber class, so classes with many instances (e.g. tools) are only
+   * scanned once.
+   */
+  private final Map<Class<?>, List<SubscriberMethod>> handlerCache = new ConcurrentHashMap<>();
+
+  /**
+   * Handlers listed by the compile-time subscriber index, consulted before scanning a class.
+   */
+  private final Map<Class<?>, SubscriberIndex.IndexedHandler[]> index = SubscriberIndex.load();
+
+  /**
+   * Dispatch table for globally registered subscribers.
+   */
+  private final ListenerTable listeners = new ListenerTable();
+
+  /**
+   * Dispatch tables for scoped subscribers. Scope keys are weak so a discarded scope does not
+   * outlive its owner.
+   */
+  private final Map<Object, ListenerTable> scopes =
+    Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Receives subscriptions whose weakly held subscriber has been garbage-collected.
+   */
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+  /**
+   * Holds {@link Coalesce}-annotated events until the next pulse.
+   */
+  private final CoalescingQueue coalescing = new CoalescingQueue(this::deliverCoalesced);
+
+  /**
+   * Per-event and per-handler dispatch statistics.
+   */
+  private final BusMetrics metrics = new BusMetrics();
+
+  /**
+   * Observer of every global post, or {@code null}.
+   */
+  private volatile Consumer<Object> postListener;
+
+  /**
+   * Private constructor to enforce singleton use.
+   */
+  private EventBus() {
+  }
+
+  /**
+   * Returns the shared singleton {@link EventBus} instance. Only the launcher should be aware of
+   * this.
+   *
+   * @return global event bus instance
+   */
+  public static EventBus getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the bus's dispatch statistics: call counts, latency histograms and slow-subscriber
+   * counts per event type and per handler.
+   *
+   * @return the live metrics of this bus
+   */
+  public BusMetrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns the number of scopes that have subscribers registered. Scopes whose key has been
+   * garbage-collected are purged first and not counted.
+   *
+   * @return the number of live scopes
+   */
+  public int scopeCount() {
+    return scopes.size();
+  }
+
+  /**
+   * Registers all {@link SubscribeEvent} methods of an {@link EventBusSubscriber}.
+   * <p>
+   * Each annotated method must take exactly one argument.
+   * </p>
+   *
+   * @param subscriber object containing event handler methods.
+   * @throws IllegalArgumentException if the class or methods are misannotated.
+   */
+  public void register(Object subscriber) {
+    expungeStaleSubscriptions();
+    listeners.add(subscriber, findSubscriberMethods(subscriber.getClass()), true, collected);
+  }
+
+  /**
+   * Registers all {@link SubscribeEvent} methods of an {@link EventBusSubscriber} into a scope.
+   * <p>
+   * The subscriber only receives events posted to the same scope with
+   * {@link #post(Object, Object)}; global posts do not reach it. The bus holds the subscriber
+   * weakly, so its owner must keep a reference to it.
+   * </p>
+   *
+   * @param subscriber object containing event handler methods.
+   * @param scope      the scope key (e.g. the workspace that owns the subscriber)
+   * @throws IllegalArgumentException if the class or methods are misannotated.
+   */
+  public void register(Object subscriber, Object scope) {
+    expungeStaleSubscriptions();
+    List<SubscriberMethod> methods = findSubscriberMethods(subscriber.getClass());
+    scopes.computeIfAbsent(scope, k -> new ListenerTable())
+      .add(subscriber, methods, false, collected);
+  }
+
+  /**
+   * Removes a subscriber from the global table and from every scope it was registered in.
+   *
+   * @param subscriber the subscriber to remove, compared by identity
+   */
+  public void unregister(Object subscriber) {
+    listeners.removeSubscriber(subscriber);
+    synchronized (scopes) {
+      for (ListenerTable table : scopes.values()) {
+        table.removeSubscriber(subscriber);
+      }
+    }
+  }
+
+  /**
+   * Drops every subscriber registered in a scope.
+   *
+   * @param scope the scope key to discard
+   */
+  public void unregisterScope(Object scope) {
+    scopes.remove(scope);
+  }
+
+  /**
+   * Purges subscriptions whose subscriber has been garbage-collected.
+   */
+  private void expungeStaleSubscriptions() {
+    Reference<?> ref;
+    while ((ref = collected.poll()) != null) {
+      Subscription stale = (Subscription) ref;
+      stale.table().remove(stale);
+    }
+  }
+
+  /**
+   * Returns the compiled handlers of a subscriber class, scanning it on first use.
+   *
+   * @param clazz the subscriber class
+   * @return the class's handlers
+   * @throws IllegalArgumentException if the class or methods are misannotated.
+   */
+  private List<SubscriberMethod> findSubscriberMethods(Class<?> clazz) {
+    List<SubscriberMethod> cached = handlerCache.get(clazz);
+    if (cached != null) {
+      return cached;
+    }
+
+    List<SubscriberMethod> methods = new ArrayList<>();
+    SubscriberIndex.IndexedHandler[] indexed = index.get(clazz);
+    if (indexed != null) {
+      for (SubscriberIndex.IndexedHandler handler : indexed) {
+        methods.add(SubscriberMethod.of(clazz, handler, metrics));
+      }
+      return cacheHandlers(clazz, methods);
+    }
+
+    if (!clazz.isAnnotationPresent(EventBusSubscriber.class)) {
+      throw new IllegalArgumentException(
+        "Class " + clazz.getName() + " must be annotated with @EventBusSubscriber"
+      );
+    }
+
+    for (Method method : clazz.getDeclaredMethods()) {
+      if (method.isAnnotationPresent(SubscribeEvent.class)) {
+        Class<?>[] params = method.getParameterTypes();
+        if (params.length != 1) {
+          throw new IllegalArgumentException(
+            "@SubscribeEvent method " + method.getName() +
+              " must have exactly ONE parameter (the event type)."
+          );
+        }
+
+        methods.add(SubscriberMethod.of(method, metrics));
+      }
+    }
+
+    return cacheHandlers(clazz, methods);
+  }
+
+  /**
+   * Publishes a class's handlers to the cache, keeping whichever list won a concurrent race.
+   */
+  private List<SubscriberMethod> cacheHandlers(Class<?> clazz, List<SubscriberMethod> methods) {
+    List<SubscriberMethod> resolved = List.copyOf(methods);
+    List<SubscriberMethod> raced = handlerCache.putIfAbsent(clazz, resolved);
+    return raced != null ? raced : resolved;
+  }
+
+  /**
+   * Publishes an event to all listeners registered for its type or any of its supertypes.
+   *
+   * @param event the event to post
+   */
+  public <T> void post(T event) {
+    Consumer<Object> listener = postListener;
+    if (listener != null) {
+      listener.accept(event);
+    }
+    if (coalesce(null, event)) {
+      return;
+    }
+    dispatch(listeners, event);
+  }
+
+  /**
+   * Publishes an event only to the subscribers registered in the given scope.
+   *
+   * @param scope the scope key the subscribers were registered with
+   * @param event the event to post
+   */
+  public <T> void post(Object scope, T event) {
+    if (coalesce(scope, event)) {
+      return;
+    }
+    ListenerTable table = scopes.get(scope);
+    if (table != null) {
+      dispatch(table, event);
+    }
+  }
+
+  /**
+   * Installs an observer that sees every global post on the posting thread, before it is
+   * coalesced or delivered. Scoped posts are not observed, since they are typically forwards of a
+   * global post. Intended for recorders such as the event journal; there is a single slot.
+   *
+   * @param listener the observer, or {@code null} to remove it
+   */
+  public void setPostListener(Consumer<Object> listener) {
+    this.postListener = listener;
+  }
+
+  /**
+   * Delivers every {@link Coalesce}-annotated event still waiting for the next pulse. Useful
+   * before reading state those events would update.
+   */
+  public void flushCoalesced() {
+    coalescing.flush();
+  }
+
+  /**
+   * Replaces the JavaFX pulse as the trigger for delivering coalesced events, e.g. to hold them in
+   * a test until {@link #flushCoalesced()}. Like the post listener, there is a single slot.
+   *
+   * @param scheduler receives, once per batch, a task that delivers it; {@code null} restores
+   *                  delivery on the next pulse
+   */
+  public void setFlushScheduler(Consumer<Runnable> scheduler) {
+    coalescing.setScheduler(scheduler);
+  }
+
+  /**
+   * Holds back coalesced events, and flushes held ones before any other event so ordering is
+   * preserved.
+   *
+   * @param scope the target scope, or {@code null} for global
+   * @param event the event being posted
+   * @return {@code true} if the event was queued and must not be dispatched now
+   */
+  private boolean coalesce(Object scope, Object event) {
+    Coalesce.Policy policy = CoalescingQueue.policyOf(event.getClass());
+    if (policy != null) {
+      return coalescing.offer(scope, event, policy);
+    }
+    if (coalescing.hasPending()) {
+      coalescing.flush();
+    }
+    return false;
+  }
+
+  /**
+   * Dispatches an event released by the {@link CoalescingQueue}.
+   *
+   * @param scope the target scope, or {@code null} for global
+   * @param event the collapsed event
+   */
+  private void deliverCoalesced(Object scope, Object event) {
+    ListenerTable table = scope == null ? listeners : scopes.get(scope);
+    if (table != null) {
+      dispatch(table, event);
+    }
+  }
+
+  /**
+   * Delivers an event to every matching subscription of a table.
+   *
+   * @param table the table to dispatch from
+   * @param event the event to deliver
+   */
+  private void dispatch(ListenerTable table, Object event) {
+    long start = metrics.isEnabled() ? System.nanoTime() : 0;
+    boolean stale = false;
+    for (Subscription subscription : table.get(event.getClass())) {
+      stale |= !subscription.deliver(event);
+    }
+
+    if (stale) {
+      expungeStaleSubscriptions();
+    }
+
+    if (start != 0) {
+      metrics.forEvent(event.getClass()).record(System.nanoTime() - start);
+    }
+  }
+}
@@ -11,9 +11,18 @@ import java.lang.annotation.Target;
  * Classes annotated with {@link EventBusSubscriber} can define methods annotated with
  * {@link SubscribeEvent} to receive specific event types.
  * </p>
+ *
+ * <p>
+ * {@link #delivery()} sets the default {@link DeliveryMode} for every handler in the class; UI
+ * classes typically select {@link DeliveryMode#FX}.
+ * </p>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 public @interface EventBusSubscriber {
 
+  /**
+   * @return the delivery mode of handlers that do not declare their own
+   */
+  DeliveryMode delivery() default DeliveryMode.POSTING;
 }
@@ -0,0 +1,180 @@
+package net.cnoga.paint.core.bus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Invocation count and latency histogram for one event type or one subscriber method.
+ *
+ * <p>Latencies are recorded into fixed log-scale buckets (four per power of two, so each bucket is
+ * within 25% of its neighbours), in the spirit of HdrHistogram. Recording only updates atomics in
+ * preallocated storage, so it never allocates.</p>
+ */
+public final class InvocationStats {
+
+  /** Sub-buckets per power of two, as a bit count. */
+  private static final int SUB_BITS = 2;
+
+  /** Total number of buckets, covering every non-negative {@code long}. */
+  private static final int BUCKETS = 64 << SUB_BITS;
+
+  /** Event type name or handler description. */
+  private final String name;
+
+  /** Owning metrics, for the slow-call budget. */
+  private final BusMetrics metrics;
+
+  /** Whether calls over budget are flagged; only true for subscriber methods. */
+  private final boolean flagsSlowCalls;
+
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final AtomicLong slowCount = new AtomicLong();
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+  /** {@link System#nanoTime()} of the last slow-call warning, to rate-limit logging. */
+  private final AtomicLong lastWarning = new AtomicLong(Long.MIN_VALUE);
+
+  InvocationStats(String name, BusMetrics metrics, boolean flagsSlowCalls) {
+    this.name = name;
+    this.metrics = metrics;
+    this.flagsSlowCalls = flagsSlowCalls;
+  }
+
+  /**
+   * Records one invocation.
+   *
+   * @param nanos how long it took
+   */
+  void record(long nanos) {
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    buckets.incrementAndGet(bucketOf(nanos));
+
+    long max;
+    while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+      Thread.onSpinWait();
+    }
+
+    if (flagsSlowCalls && nanos > metrics.slowBudgetNanos()) {
+      slowCount.incrementAndGet();
+      long now = System.nanoTime();
+      long last = lastWarning.get();
+      if (now - last > BusMetrics.WARNING_INTERVAL_NANOS && lastWarning.compareAndSet(last, now)) {
+        metrics.warnSlow(this, nanos);
+      }
+    }
+  }
+
+  /**
+   * Clears every counter.
+   */
+  void reset() {
+    count.set(0);
+    totalNanos.set(0);
+    maxNanos.set(0);
+    slowCount.set(0);
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+  }
+
+  /**
+   * @return the event type name or handler description
+   */
+  public String name() {
+    return name;
+  }
+
+  /**
+   * @return number of recorded invocations
+   */
+  public long count() {
+    return count.get();
+  }
+
+  /**
+   * @return sum of all recorded latencies, in nanoseconds
+   */
+  public long totalNanos() {
+    return totalNanos.get();
+  }
+
+  /**
+   * @return the slowest recorded invocation, in nanoseconds
+   */
+  public long maxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * @return number of invocations that exceeded the slow-subscriber budget
+   */
+  public long slowCount() {
+    return slowCount.get();
+  }
+
+  /**
+   * @return mean latency in nanoseconds, or 0 if nothing was recorded
+   */
+  public long meanNanos() {
+    long n = count.get();
+    return n == 0 ? 0 : totalNanos.get() / n;
+  }
+
+  /**
+   * Estimates a latency percentile from the histogram.
+   *
+   * @param percentile a value in {@code [0, 100]}
+   * @return the upper bound of the bucket containing the percentile, in nanoseconds
+   */
+  public long percentileNanos(double percentile) {
+    long total = 0;
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= Math.max(1, rank)) {
+        return Math.min(upperBoundOf(i), maxNanos.get());
+      }
+    }
+    return maxNanos.get();
+  }
+
+  /**
+   * Maps a latency to its bucket: the power of two selects a group of {@code 1 << SUB_BITS}
+   * buckets, and the next bits below the leading one select the bucket within it.
+   */
+  private static int bucketOf(long nanos) {
+    if (nanos < (1L << SUB_BITS)) {
+      return (int) Math.max(0, nanos);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int sub = (int) (nanos >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+    return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+  }
+
+  /**
+   * @return the largest latency that maps to the given bucket
+   */
+  private static long upperBoundOf(int bucket) {
+    if (bucket < (1 << SUB_BITS)) {
+      return bucket;
+    }
+    int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+    long sub = bucket & ((1 << SUB_BITS) - 1);
+    long lower = (1L << exponent) | (sub << (exponent - SUB_BITS));
+    long width = 1L << (exponent - SUB_BITS);
+    return lower + width - 1 < 0 ? Long.MAX_VALUE : lower + width - 1;
+  }
+}
@@ -0,0 +1,157 @@
+package net.cnoga.paint.core.bus;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Dispatch table mapping event types to the subscriptions interested in them.
+ *
+ * <p>The {@link EventBus} keeps one table for global subscribers and one per scope. Arrays are
+ * replaced, never mutated, so readers can iterate them without locking or allocating.</p>
+ *
+ * <p>A handler declared for a supertype or interface receives every event assignable to it. The
+ * resulting list per concrete event class is resolved once and cached; any registration change
+ * drops the cache, so posting stays a single map lookup.</p>
+ */
+final class ListenerTable {
+
+  /** Shared empty dispatch list. */
+  static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+  /** Map of declared event type to subscribers interested in that type. */
+  private final Map<Class<?>, Subscription[]> listeners = new ConcurrentHashMap<>();
+
+  /** Map of concrete event class to every subscription it is delivered to. */
+  private final Map<Class<?>, Subscription[]> resolved = new ConcurrentHashMap<>();
+
+  /**
+   * Adds a subscriber's handlers to this table.
+   *
+   * @param subscriber the subscriber instance
+   * @param methods    the subscriber class's compiled handlers
+   * @param pin        whether the table should keep the subscriber alive
+   * @param queue      queue notified when a weak subscriber is collected
+   */
+  synchronized void add(Object subscriber, List<SubscriberMethod> methods, boolean pin,
+    ReferenceQueue<Object> queue) {
+    for (SubscriberMethod method : methods) {
+      Subscription[] current = listeners.getOrDefault(method.eventType(), NO_SUBSCRIPTIONS);
+      Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length] = new Subscription(subscriber, method, this, pin, queue);
+      listeners.put(method.eventType(), updated);
+    }
+    resolved.clear();
+  }
+
+  /**
+   * Removes every subscription belonging to a subscriber.
+   *
+   * @param subscriber the subscriber instance, compared by identity
+   */
+  void removeSubscriber(Object subscriber) {
+    removeIf(s -> s.subscriber() == subscriber);
+  }
+
+  /**
+   * Removes a single subscription, e.g. one whose subscriber has been collected.
+   *
+   * @param subscription the subscription to remove
+   */
+  void remove(Subscription subscription) {
+    removeIf(s -> s == subscription);
+  }
+
+  /**
+   * Rebuilds every dispatch list without the matching subscriptions and releases them.
+   *
+   * @param filter selects the subscriptions to drop
+   */
+  private synchronized void removeIf(Predicate<Subscription> filter) {
+    for (Map.Entry<Class<?>, Subscription[]> entry : listeners.entrySet()) {
+      Subscription[] current = entry.getValue();
+      List<Subscription> kept = new ArrayList<>(current.length);
+      for (Subscription subscription : current) {
+        if (filter.test(subscription)) {
+          subscription.release();
+        } else {
+          kept.add(subscription);
+        }
+      }
+
+      if (kept.isEmpty()) {
+        listeners.remove(entry.getKey());
+      } else if (kept.size() != current.length) {
+        entry.setValue(kept.toArray(NO_SUBSCRIPTIONS));
+      }
+    }
+    resolved.clear();
+  }
+
+  /**
+   * Returns the subscriptions for an event class, including those declared for its supertypes.
+   *
+   * @param eventType the event's concrete class
+   * @return the matching subscriptions, possibly empty
+   */
+  Subscription[] get(Class<?> eventType) {
+    Subscription[] subscriptions = resolved.get(eventType);
+    return subscriptions != null ? subscriptions : resolve(eventType);
+  }
+
+  /**
+   * Collects the subscriptions of a class and all of its supertypes, most specific first, and
+   * caches the result. Runs under the table lock so it cannot cache a list that a concurrent
+   * registration change has already invalidated.
+   *
+   * @param eventType the event's concrete class
+   * @return the matching subscriptions, possibly empty
+   */
+  private synchronized Subscription[] resolve(Class<?> eventType) {
+    Subscription[] cached = resolved.get(eventType);
+    if (cached != null) {
+      return cached;
+    }
+
+    List<Subscription> matches = new ArrayList<>();
+    for (Class<?> type : hierarchyOf(eventType)) {
+      Subscription[] declared = listeners.get(type);
+      if (declared != null) {
+        matches.addAll(Arrays.asList(declared));
+      }
+    }
+
+    Subscription[] subscriptions = matches.isEmpty()
+      ? NO_SUBSCRIPTIONS
+      : matches.toArray(NO_SUBSCRIPTIONS);
+    resolved.put(eventType, subscriptions);
+    return subscriptions;
+  }
+
+  /**
+   * @return the class, its superclasses and all implemented interfaces, breadth first
+   */
+  private static Set<Class<?>> hierarchyOf(Class<?> eventType) {
+    Set<Class<?>> types = new LinkedHashSet<>();
+    Deque<Class<?>> pending = new ArrayDeque<>();
+    pending.add(eventType);
+    while (!pending.isEmpty()) {
+      Class<?> type = pending.poll();
+      if (types.add(type)) {
+        if (type.getSuperclass() != null) {
+          pending.add(type.getSuperclass());
+        }
+        pending.addAll(Arrays.asList(type.getInterfaces()));
+      }
+    }
+    return types;
+  }
+}
@@ -0,0 +1,28 @@
+package net.cnoga.paint.core.bus;
+
+/**
+ * An event that can absorb a later event of the same type, used by
+ * {@link Coalesce.Policy#MERGE}.
+ *
+ * @param <E> the event type itself
+ */
+public interface MergeableEvent<E> {
+
+  /**
+   * Combines this event with one posted after it.
+   *
+   * @param next the later event
+   * @return an event with the combined effect of both
+   */
+  E merge(E next);
+
+  /**
+   * Distinguishes events of the same type that must not be merged into each other, e.g. changes
+   * to different layers. Pending events are merged only with later ones of an equal key.
+   *
+   * @return the merge key, or {@code null} if every event of the type merges
+   */
+  default Object coalesceKey() {
+    return null;
+  }
+}
@@ -12,16 +12,30 @@ import java.lang.annotation.Target;
  * event type. They will be invoked whenever that event is posted to the {@link EventBus}.
  * </p>
  *
+ * <p>
+ * By default a handler runs on the thread its class's {@link EventBusSubscriber#delivery()}
+ * selects (usually the posting thread); {@link #delivery()} overrides this per handler.
+ * </p>
+ *
  * <p>Example:</p>
  * <pre>{@code
  * @SubscribeEvent
  * public void onOpen(FileOpenedEvent evt) {
  *     // Do something cool with the file
  * }
+ *
+ * @SubscribeEvent(delivery = DeliveryMode.FX)
+ * public void onProgress(ProgressEvent evt) {
+ *     // Safe to touch the scene graph here
+ * }
  * }</pre>
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface SubscribeEvent {
 
+  /**
+   * @return the thread this handler is invoked on
+   */
+  DeliveryMode delivery() default DeliveryMode.DEFAULT;
 }
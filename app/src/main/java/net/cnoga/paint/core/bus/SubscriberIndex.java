@@ -0,0 +1,63 @@
+package net.cnoga.paint.core.bus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Compile-time index of subscriber handlers, generated by the build's annotation processor as
+ * {@code GeneratedSubscriberIndex}.
+ *
+ * <p>Classes found in the index are registered without scanning their methods or reading their
+ * annotations. Classes missing from it (e.g. compiled without the processor) are still scanned
+ * reflectively.</p>
+ */
+interface SubscriberIndex {
+
+  /** Binary name of the generated implementation. */
+  String GENERATED = SubscriberIndex.class.getPackageName() + ".GeneratedSubscriberIndex";
+
+  /**
+   * Adds every indexed subscriber class and its handlers.
+   *
+   * @param index map to fill, keyed by subscriber class
+   */
+  void populate(Map<Class<?>, IndexedHandler[]> index);
+
+  /**
+   * Loads the generated index.
+   *
+   * @return handlers per subscriber class; empty if no index was generated
+   */
+  static Map<Class<?>, IndexedHandler[]> load() {
+    Map<Class<?>, IndexedHandler[]> index = new HashMap<>();
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      Class<?> generated = lookup.findClass(GENERATED);
+      SubscriberIndex instance = (SubscriberIndex) lookup
+        .findConstructor(generated, MethodType.methodType(void.class))
+        .invoke();
+      instance.populate(index);
+    } catch (ClassNotFoundException e) {
+      // Built without the processor; every class falls back to reflection.
+    } catch (Throwable t) {
+      // Interfaces cannot hold a private logger, and this runs once per start
+      LogManager.getLogger(SubscriberIndex.class).warn("Ignoring unusable subscriber index", t);
+      index.clear();
+    }
+    return index;
+  }
+
+  /**
+   * A single indexed {@link SubscribeEvent} method.
+   *
+   * @param methodName   the handler's name
+   * @param eventType    the handler's sole parameter type
+   * @param deliveryMode the handler's resolved delivery mode
+   */
+  record IndexedHandler(String methodName, Class<?> eventType, DeliveryMode deliveryMode) {
+
+  }
+}
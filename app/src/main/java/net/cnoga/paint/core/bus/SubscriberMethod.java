@@ -0,0 +1,195 @@
+package net.cnoga.paint.core.bus;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+
+/**
+ * Cached metadata for a single {@link SubscribeEvent} method.
+ *
+ * <p>Instead of calling {@link Method#invoke} on every post, each handler is compiled once into a
+ * direct invoker. Where possible this is a {@link LambdaMetafactory}-spun {@link BiConsumer} that
+ * calls the handler like any other virtual call; otherwise (e.g. the subscriber lives in another
+ * module) it falls back to an adapted {@link MethodHandle}.</p>
+ */
+final class SubscriberMethod {
+
+  /** Erased shape of every invoker: {@code (subscriber, event) -> void}. */
+  private static final MethodType INVOKER_TYPE =
+    MethodType.methodType(void.class, Object.class, Object.class);
+
+  /** The event type this handler accepts. */
+  private final Class<?> eventType;
+
+  /** Human-readable description of the handler, used in error messages. */
+  private final String description;
+
+  /** Direct invoker for the handler. */
+  private final BiConsumer<Object, Object> invoker;
+
+  /** The thread the handler is invoked on, never {@link DeliveryMode#DEFAULT}. */
+  private final DeliveryMode deliveryMode;
+
+  /** The bus's metrics, consulted for whether timing is enabled. */
+  private final BusMetrics metrics;
+
+  /** Call count and latency of this handler. */
+  private final InvocationStats stats;
+
+  private SubscriberMethod(Class<?> eventType, String description,
+    BiConsumer<Object, Object> invoker, DeliveryMode deliveryMode, BusMetrics metrics) {
+    this.eventType = eventType;
+    this.description = description;
+    this.invoker = invoker;
+    this.deliveryMode = deliveryMode;
+    this.metrics = metrics;
+    this.stats = metrics.forHandler(description);
+  }
+
+  /**
+   * Builds the invoker for a validated subscriber method.
+   *
+   * @param method  a method annotated with {@link SubscribeEvent} taking exactly one parameter
+   * @param metrics the bus's metrics, which will track the handler
+   * @return the compiled handler metadata
+   * @throws IllegalArgumentException if the method cannot be accessed by the bus
+   */
+  static SubscriberMethod of(Method method, BusMetrics metrics) {
+    Class<?> owner = method.getDeclaringClass();
+    Class<?> eventType = method.getParameterTypes()[0];
+    MethodHandles.Lookup lookup = lookupIn(owner);
+    MethodHandle target;
+    try {
+      target = lookup.unreflect(method);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Event bus cannot access subscriber method " + method, e);
+    }
+    return new SubscriberMethod(eventType, method.toString(),
+      createInvoker(lookup, target, owner, eventType), resolveDeliveryMode(method), metrics);
+  }
+
+  /**
+   * Builds the invoker for a handler listed in the compile-time {@link SubscriberIndex}, without
+   * scanning or reading annotations.
+   *
+   * @param owner   the subscriber class declaring the handler
+   * @param handler the indexed handler
+   * @param metrics the bus's metrics, which will track the handler
+   * @return the compiled handler metadata
+   * @throws IllegalArgumentException if the handler no longer exists or cannot be accessed
+   */
+  static SubscriberMethod of(Class<?> owner, SubscriberIndex.IndexedHandler handler,
+    BusMetrics metrics) {
+    Class<?> eventType = handler.eventType();
+    String description = owner.getName() + "." + handler.methodName()
+      + "(" + eventType.getName() + ")";
+    MethodHandles.Lookup lookup = lookupIn(owner);
+    MethodHandle target;
+    try {
+      target = lookup.findVirtual(owner, handler.methodName(),
+        MethodType.methodType(void.class, eventType));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalArgumentException("Stale subscriber index entry " + description, e);
+    }
+    return new SubscriberMethod(eventType, description,
+      createInvoker(lookup, target, owner, eventType), handler.deliveryMode(), metrics);
+  }
+
+  /**
+   * @return the event type this handler accepts
+   */
+  Class<?> eventType() {
+    return eventType;
+  }
+
+  /**
+   * @return the thread the handler is invoked on
+   */
+  DeliveryMode deliveryMode() {
+    return deliveryMode;
+  }
+
+  /**
+   * Invokes the handler on the given subscriber, timing the call if metrics are enabled.
+   *
+   * @param subscriber the object declaring the handler
+   * @param event      the event to deliver
+   */
+  void invoke(Object subscriber, Object event) {
+    long start = metrics.isEnabled() ? System.nanoTime() : 0;
+    try {
+      invoker.accept(subscriber, event);
+    } catch (Throwable t) {
+      throw new RuntimeException("Failed to invoke subscriber method: " + description, t);
+    } finally {
+      if (start != 0) {
+        stats.record(System.nanoTime() - start);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+
+  /**
+   * Resolves the handler's own delivery mode, falling back to its class's default.
+   */
+  private static DeliveryMode resolveDeliveryMode(Method method) {
+    DeliveryMode mode = method.getAnnotation(SubscribeEvent.class).delivery();
+    if (mode == DeliveryMode.DEFAULT) {
+      EventBusSubscriber owner = method.getDeclaringClass().getAnnotation(EventBusSubscriber.class);
+      mode = owner != null ? owner.delivery() : DeliveryMode.DEFAULT;
+    }
+    return mode == DeliveryMode.DEFAULT ? DeliveryMode.POSTING : mode;
+  }
+
+  /**
+   * @return a lookup with private access to the subscriber class
+   */
+  private static MethodHandles.Lookup lookupIn(Class<?> owner) {
+    try {
+      SubscriberMethod.class.getModule().addReads(owner.getModule());
+      return MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Event bus cannot access subscriber " + owner, e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static BiConsumer<Object, Object> createInvoker(MethodHandles.Lookup lookup,
+    MethodHandle target, Class<?> owner, Class<?> eventType) {
+    try {
+      CallSite site = LambdaMetafactory.metafactory(
+        lookup,
+        "accept",
+        MethodType.methodType(BiConsumer.class),
+        INVOKER_TYPE,
+        target,
+        MethodType.methodType(void.class, owner, eventType)
+      );
+      return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+    } catch (LambdaConversionException | IllegalArgumentException e) {
+      // Lookups into other modules lack full privilege access; a handle is still far
+      // cheaper than reflective invocation.
+      MethodHandle generic = target.asType(INVOKER_TYPE);
+      return (subscriber, event) -> {
+        try {
+          generic.invokeExact(subscriber, event);
+        } catch (RuntimeException | Error e2) {
+          throw e2;
+        } catch (Throwable t) {
+          throw new RuntimeException(t);
+        }
+      };
+    } catch (Throwable t) {
+      throw new IllegalStateException("Failed to spin invoker for " + target, t);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package net.cnoga.paint.core.bus;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Binds a registered subscriber instance to one of its compiled {@link SubscriberMethod}s.
+ *
+ * <p>The subscriber is referenced weakly, so the bus alone never keeps it alive. Global
+ * subscribers are additionally pinned with a strong reference, since many of them (brews,
+ * controllers) are created and handed to the bus without being stored anywhere else.</p>
+ */
+final class Subscription extends WeakReference<Object> {
+
+  /** The compiled handler. */
+  private final SubscriberMethod method;
+
+  /** The table this subscription lives in, so stale entries can be purged. */
+  private final ListenerTable table;
+
+  /** Strong reference for pinned subscribers, {@code null} for weak ones. */
+  private Object pinned;
+
+  /**
+   * @param subscriber the registered subscriber instance
+   * @param method     the handler to call on it
+   * @param table      the table the subscription is added to
+   * @param pin        whether the bus should keep the subscriber alive
+   * @param queue      queue notified when a weak subscriber is collected
+   */
+  Subscription(Object subscriber, SubscriberMethod method, ListenerTable table, boolean pin,
+    ReferenceQueue<Object> queue) {
+    super(subscriber, queue);
+    this.method = method;
+    this.table = table;
+    this.pinned = pin ? subscriber : null;
+  }
+
+  /**
+   * @return the registered subscriber instance, or {@code null} if it has been collected
+   */
+  Object subscriber() {
+    Object strong = pinned;
+    return strong != null ? strong : get();
+  }
+
+  /**
+   * @return the table this subscription lives in
+   */
+  ListenerTable table() {
+    return table;
+  }
+
+  /**
+   * Drops both references so the subscriber can be collected.
+   */
+  void release() {
+    pinned = null;
+    clear();
+  }
+
+  /**
+   * Delivers an event to the handler on the thread its {@link DeliveryMode} selects.
+   *
+   * @param event the event to deliver
+   * @return {@code false} if the subscriber has been collected and nothing was delivered
+   */
+  boolean deliver(Object event) {
+    Object target = subscriber();
+    if (target == null) {
+      return false;
+    }
+    Dispatcher.deliver(method, target, event);
+    return true;
+  }
+}
@@ -0,0 +1,12 @@
+package net.cnoga.paint.core.bus.events;
+
+/**
+ * Marks events that act on the active workspace.
+ * <p>
+ * They are posted on the global bus, and {@code WorkspaceBrew} forwards every one of them into the
+ * scope of the workspace currently in focus, so only that workspace's capabilities react.
+ * </p>
+ */
+public interface ActiveWorkspaceEvent {
+
+}
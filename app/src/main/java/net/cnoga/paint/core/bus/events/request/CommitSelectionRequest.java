@@ -0,0 +1,8 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests to commit the current selection. */
+public record CommitSelectionRequest() implements ActiveWorkspaceEvent {
+
+}
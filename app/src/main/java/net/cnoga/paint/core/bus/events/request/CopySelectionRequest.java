@@ -0,0 +1,8 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests to copy the current selection. */
+public record CopySelectionRequest() implements ActiveWorkspaceEvent {
+
+}
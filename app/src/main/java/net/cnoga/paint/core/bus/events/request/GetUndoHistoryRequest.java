@@ -0,0 +1,8 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests the active workspace to publish its undo history. */
+public record GetUndoHistoryRequest() implements ActiveWorkspaceEvent {
+
+}
@@ -0,0 +1,11 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests to move the active workspace to a state in its undo history.
+ * @param stateId the id of the state, as published in an
+ *                {@link net.cnoga.paint.core.bus.events.response.UndoHistoryChangedEvent}
+ */
+public record GoToUndoStateRequest(int stateId) implements ActiveWorkspaceEvent {
+
+}
@@ -5,7 +5,9 @@ import javafx.scene.control.ToggleButton;
 /** Initializes the subwindow service with top bar buttons.
  * @param toolsButton the tools toggle button
  * @param settingsButton the settings toggle button
+ * @param historyButton the history toggle button
  */
-public record InitSubWindowServiceRequest(ToggleButton toolsButton, ToggleButton settingsButton) {
+public record InitSubWindowServiceRequest(ToggleButton toolsButton, ToggleButton settingsButton,
+  ToggleButton historyButton) {
 
 }
@@ -0,0 +1,23 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.Coalesce;
+import net.cnoga.paint.core.bus.MergeableEvent;
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests to move the current selection by the given offset.
+ * @param dx the horizontal offset
+ * @param dy the vertical offset
+ * <p>
+ * Note that dy is inverted.
+ * <p>
+ * Offsets posted within one frame are summed into a single move.
+ */
+@Coalesce(Coalesce.Policy.MERGE)
+public record MoveSelectionRequest(double dx, double dy)
+  implements ActiveWorkspaceEvent, MergeableEvent<MoveSelectionRequest> {
+
+  @Override
+  public MoveSelectionRequest merge(MoveSelectionRequest next) {
+    return new MoveSelectionRequest(dx + next.dx, dy + next.dy);
+  }
+}
@@ -0,0 +1,6 @@
+package net.cnoga.paint.core.bus.events.request;
+
+/** Requests to open the History subwindow. */
+public record OpenHistoryRequest() {
+
+}
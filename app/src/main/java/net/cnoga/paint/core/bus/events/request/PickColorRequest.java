@@ -0,0 +1,12 @@
+package net.cnoga.paint.core.bus.events.request;
+
+/**
+ * Requests the color of a pixel of the active workspace's base layer, answered with a
+ * {@link net.cnoga.paint.core.bus.events.response.ColorChangedEvent}.
+ *
+ * @param x the x-coordinate of the pixel
+ * @param y the y-coordinate of the pixel
+ */
+public record PickColorRequest(double x, double y) {
+
+}
@@ -0,0 +1,8 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests to redo the last undone action. */
+public record RedoRequest() implements ActiveWorkspaceEvent {
+
+}
@@ -0,0 +1,10 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import java.io.File;
+
+/** Requests that a recorded event journal be replayed.
+ * @param file the journal to replay, or {@code null} to ask the user for one
+ */
+public record ReplayJournalRequest(File file) {
+
+}
@@ -1,8 +1,10 @@
 package net.cnoga.paint.core.bus.events.request;
 
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
 /** Requests to rotate the current selection.
  * @param degrees the rotation angle in degrees
  */
-public record RotateSelectionRequest(int degrees) {
+public record RotateSelectionRequest(int degrees) implements ActiveWorkspaceEvent {
 
 }
@@ -0,0 +1,8 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests to save the current workspace state. */
+public record SaveStateRequest() implements ActiveWorkspaceEvent {
+
+}
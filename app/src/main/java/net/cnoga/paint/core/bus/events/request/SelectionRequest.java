@@ -2,11 +2,12 @@ package net.cnoga.paint.core.bus.events.request;
 
 
 import javafx.geometry.Rectangle2D;
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
 
 /**
  * Fired when a new selection is made.
  * @param bounds the bounds of the selection
  */
-public record SelectionRequest(Rectangle2D bounds) {
+public record SelectionRequest(Rectangle2D bounds) implements ActiveWorkspaceEvent {
 
 }
@@ -0,0 +1,9 @@
+package net.cnoga.paint.core.bus.events.request;
+
+/** Sets how much memory undo history may use before it is compressed and moved to disk.
+ * @param workspaceMegabytes the budget of each workspace's history, in megabytes
+ * @param totalMegabytes     the budget of all histories together, in megabytes
+ */
+public record SetUndoBudgetRequest(int workspaceMegabytes, int totalMegabytes) {
+
+}
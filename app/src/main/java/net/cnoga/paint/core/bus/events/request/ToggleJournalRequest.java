@@ -0,0 +1,6 @@
+package net.cnoga.paint.core.bus.events.request;
+
+/** Requests that event journal recording be started, or stopped if it is running. */
+public record ToggleJournalRequest() {
+
+}
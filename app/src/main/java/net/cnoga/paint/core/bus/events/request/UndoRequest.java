@@ -0,0 +1,8 @@
+package net.cnoga.paint.core.bus.events.request;
+
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
+/** Requests to undo the last action. */
+public record UndoRequest() implements ActiveWorkspaceEvent {
+
+}
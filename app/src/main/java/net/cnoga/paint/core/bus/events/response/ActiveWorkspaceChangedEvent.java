@@ -0,0 +1,10 @@
+package net.cnoga.paint.core.bus.events.response;
+
+import net.cnoga.paint.core.workspace.Workspace;
+
+/** Event indicating another workspace was brought to the front.
+ * @param workspace the workspace now in focus, or {@code null} if none is open
+ */
+public record ActiveWorkspaceChangedEvent(Workspace workspace) {
+
+}
@@ -1,8 +1,13 @@
 package net.cnoga.paint.core.bus.events.response;
 
+import net.cnoga.paint.core.bus.Coalesce;
+
 /** Event indicating the autosave timer has changed.
  * @param seconds the new autosave time in seconds
+ * <p>
+ * Only the latest time posted within one frame is delivered.
  */
+@Coalesce(Coalesce.Policy.LATEST)
 public record AutosaveTimeChangedEvent(int seconds) {
 
 }
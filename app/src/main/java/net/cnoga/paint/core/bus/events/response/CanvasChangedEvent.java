@@ -0,0 +1,35 @@
+package net.cnoga.paint.core.bus.events.response;
+
+import java.util.List;
+import javafx.scene.canvas.Canvas;
+import net.cnoga.paint.core.bus.Coalesce;
+import net.cnoga.paint.core.bus.MergeableEvent;
+import net.cnoga.paint.core.raster.DirtyRegion;
+import net.cnoga.paint.core.raster.PixelRect;
+import net.cnoga.paint.core.workspace.Workspace;
+
+/** Event indicating that part of a workspace layer's pixels changed.
+ * @param workspace the workspace owning the layer
+ * @param layer     the layer that changed
+ * @param regions   the changed areas in layer pixels, pairwise non-touching
+ * <p>
+ * All changes to one layer within one frame are delivered as a single event, so consumers such
+ * as the web server or autosave can work on just the changed area.
+ */
+@Coalesce(Coalesce.Policy.MERGE)
+public record CanvasChangedEvent(Workspace workspace, Canvas layer, List<PixelRect> regions)
+  implements MergeableEvent<CanvasChangedEvent> {
+
+  @Override
+  public CanvasChangedEvent merge(CanvasChangedEvent next) {
+    DirtyRegion union = new DirtyRegion();
+    regions.forEach(union::add);
+    next.regions.forEach(union::add);
+    return new CanvasChangedEvent(workspace, layer, union.getRects());
+  }
+
+  @Override
+  public Object coalesceKey() {
+    return layer;
+  }
+}
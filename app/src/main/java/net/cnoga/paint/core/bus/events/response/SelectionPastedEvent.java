@@ -1,9 +1,11 @@
 package net.cnoga.paint.core.bus.events.response;
 
+import net.cnoga.paint.core.bus.events.ActiveWorkspaceEvent;
+
 /** Event fired when a selection is pasted.
  * @param x the x-coordinate of the paste location
  * @param y the y-coordinate of the paste location
  */
-public record SelectionPastedEvent(double x, double y) {
+public record SelectionPastedEvent(double x, double y) implements ActiveWorkspaceEvent {
 
 }
@@ -0,0 +1,13 @@
+package net.cnoga.paint.core.bus.events.response;
+
+import net.cnoga.paint.core.tool.ToolCommand;
+
+/** Event indicating a replayable tool use was finished on a workspace.
+ * @param command the tool's input and settings, as needed to replay it
+ * <p>
+ * Posted to the workspace's scope once the painted pixels are known to its layers, so undo
+ * history can keep the command in place of the pixels.
+ */
+public record ToolCommandRecordedEvent(ToolCommand command) {
+
+}
@@ -0,0 +1,30 @@
+package net.cnoga.paint.core.bus.events.response;
+
+import java.util.List;
+import javafx.scene.image.Image;
+import net.cnoga.paint.core.workspace.Workspace;
+
+/** Event carrying a snapshot of a workspace's undo history tree.
+ * @param workspace the workspace the history belongs to
+ * @param states    every state in the history, oldest first; the first is the root
+ * @param currentId the id of the state the workspace is in
+ * <p>
+ * Posted whenever the history or one of its thumbnails changes, and on
+ * {@link net.cnoga.paint.core.bus.events.request.GetUndoHistoryRequest}.
+ */
+public record UndoHistoryChangedEvent(Workspace workspace, List<State> states, int currentId) {
+
+  /**
+   * One state of the history.
+   *
+   * @param id        the state's id, for
+   *                  {@link net.cnoga.paint.core.bus.events.request.GoToUndoStateRequest}
+   * @param parentId  the id of the state it was reached from, or {@code -1} for the root
+   * @param label     what the step to this state did
+   * @param thumbnail a small picture of the workspace in this state, or {@code null} if not
+   *                  rendered yet
+   */
+  public record State(int id, int parentId, String label, Image thumbnail) {
+
+  }
+}
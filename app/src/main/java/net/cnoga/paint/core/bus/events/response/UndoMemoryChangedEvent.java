@@ -0,0 +1,15 @@
+package net.cnoga.paint.core.bus.events.response;
+
+import net.cnoga.paint.core.bus.Coalesce;
+
+/** Event indicating the size of the undo history of all workspaces has changed.
+ * @param residentBytes bytes of history kept in memory, compressed or not
+ * @param spilledBytes  bytes of history evicted to the scratch file
+ * @param entries       number of undo and redo steps
+ * <p>
+ * Only the latest sizes posted within one frame are delivered.
+ */
+@Coalesce(Coalesce.Policy.LATEST)
+public record UndoMemoryChangedEvent(long residentBytes, long spilledBytes, int entries) {
+
+}
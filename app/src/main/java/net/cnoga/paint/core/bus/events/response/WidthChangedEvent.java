@@ -1,8 +1,13 @@
 package net.cnoga.paint.core.bus.events.response;
 
+import net.cnoga.paint.core.bus.Coalesce;
+
 /** Event indicating the global stroke width has changed.
  * @param width the new stroke width in pixels
+ * <p>
+ * Only the latest width posted within one frame is delivered.
  */
+@Coalesce(Coalesce.Policy.LATEST)
 public record WidthChangedEvent(Integer width) {
 
 }
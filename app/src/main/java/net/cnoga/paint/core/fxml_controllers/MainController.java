@@ -6,6 +6,7 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 import net.cnoga.paint.core.brews.AutosaveBrew;
 import net.cnoga.paint.core.brews.FileIOBrew;
+import net.cnoga.paint.core.brews.JournalBrew;
 import net.cnoga.paint.core.brews.KeystrokeBrew;
 import net.cnoga.paint.core.brews.LoggerBrew;
 import net.cnoga.paint.core.brews.ProgramBrew;
@@ -81,6 +82,7 @@ public class MainController extends EventBusPublisher {
     new AutosaveBrew();
     new LoggerBrew();
     WorkspaceBrew workspaceBrew = new WorkspaceBrew();
+    new JournalBrew(workspaceBrew);
     new SimpleWebServerBrew(new SimpleWebServer(workspaceBrew));
   }
 }
@@ -0,0 +1,161 @@
+package net.cnoga.paint.core.fxml_controllers.subwindow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.fxml.FXML;
+import javafx.scene.control.TreeCell;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import javafx.scene.image.ImageView;
+import net.cnoga.paint.core.bus.DeliveryMode;
+import net.cnoga.paint.core.bus.EventBusPublisher;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.SubscribeEvent;
+import net.cnoga.paint.core.bus.events.request.GetUndoHistoryRequest;
+import net.cnoga.paint.core.bus.events.request.GoToUndoStateRequest;
+import net.cnoga.paint.core.bus.events.response.ActiveWorkspaceChangedEvent;
+import net.cnoga.paint.core.bus.events.response.UndoHistoryChangedEvent;
+import net.cnoga.paint.core.bus.events.response.UndoHistoryChangedEvent.State;
+import net.cnoga.paint.core.workspace.Workspace;
+
+/**
+ * JavaFX controller for the undo history panel.
+ *
+ * <p>Shows the undo history of the active workspace as a tree, each state with its thumbnail.
+ * A line of history reads top to bottom and continues with the newest state reached from each
+ * one; states left behind by undoing and then doing something else hang off the state they
+ * branched from. Clicking a state posts a {@link GoToUndoStateRequest}.</p>
+ *
+ * <p>Rebuilt on every {@link UndoHistoryChangedEvent} of the active workspace, and follows
+ * {@link ActiveWorkspaceChangedEvent}.</p>
+ */
+@EventBusSubscriber(delivery = DeliveryMode.FX)
+public class HistoryController extends EventBusPublisher {
+
+  /** Height at which thumbnails are shown. */
+  private static final double THUMBNAIL_HEIGHT = 40;
+
+  @FXML
+  private TreeView<State> historyTree;
+
+  /** The workspace whose history is shown, or {@code null} before the first one arrives. */
+  private Workspace shown;
+
+  /** The state the shown workspace is in. */
+  private int currentId;
+
+  @FXML
+  private void initialize() {
+    historyTree.setCellFactory(tree -> new StateCell());
+    bus.register(this);
+    bus.post(new GetUndoHistoryRequest());
+  }
+
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onActiveWorkspaceChanged(ActiveWorkspaceChangedEvent evt) {
+    shown = evt.workspace();
+    historyTree.setRoot(null);
+    if (shown != null) {
+      bus.post(new GetUndoHistoryRequest());
+    }
+  }
+
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onUndoHistoryChanged(UndoHistoryChangedEvent evt) {
+    if (shown == null) {
+      // Opened before any tab switch; the first answer comes from the active workspace.
+      shown = evt.workspace();
+    }
+    if (evt.workspace() != shown) {
+      return;
+    }
+    currentId = evt.currentId();
+    show(evt.states());
+  }
+
+  /**
+   * Rebuilds the tree from a history snapshot and selects the current state.
+   *
+   * @param states the states, oldest first, the root first
+   */
+  private void show(List<State> states) {
+    Map<Integer, List<State>> children = new HashMap<>();
+    for (State state : states) {
+      if (state.parentId() >= 0) {
+        children.computeIfAbsent(state.parentId(), id -> new ArrayList<>()).add(state);
+      }
+    }
+
+    TreeItem<State> root = new TreeItem<>();
+    TreeItem<State> current = null;
+    Deque<TreeItem<State>> containers = new ArrayDeque<>();
+    Deque<State> starts = new ArrayDeque<>();
+    containers.push(root);
+    starts.push(states.get(0));
+
+    // Each line continues with the newest child; older children start nested lines.
+    while (!starts.isEmpty()) {
+      TreeItem<State> container = containers.pop();
+      State state = starts.pop();
+      while (state != null) {
+        TreeItem<State> item = new TreeItem<>(state);
+        item.setExpanded(true);
+        container.getChildren().add(item);
+        if (state.id() == currentId) {
+          current = item;
+        }
+
+        List<State> next = children.getOrDefault(state.id(), List.of());
+        for (int i = 0; i < next.size() - 1; i++) {
+          containers.push(item);
+          starts.push(next.get(i));
+        }
+        state = next.isEmpty() ? null : next.get(next.size() - 1);
+      }
+    }
+
+    historyTree.setRoot(root);
+    if (current != null) {
+      historyTree.getSelectionModel().select(current);
+      historyTree.scrollTo(historyTree.getRow(current));
+    }
+  }
+
+  /**
+   * Shows a state's thumbnail and label, and jumps to the state when clicked.
+   */
+  private class StateCell extends TreeCell<State> {
+
+    private final ImageView thumbnail = new ImageView();
+
+    StateCell() {
+      thumbnail.setFitHeight(THUMBNAIL_HEIGHT);
+      thumbnail.setPreserveRatio(true);
+      setOnMouseClicked(e -> {
+        State state = getItem();
+        if (state != null && state.id() != currentId) {
+          bus.post(new GoToUndoStateRequest(state.id()));
+        }
+      });
+    }
+
+    @Override
+    protected void updateItem(State state, boolean empty) {
+      super.updateItem(state, empty);
+      if (empty || state == null) {
+        setText(null);
+        setGraphic(null);
+      } else {
+        setText(state.label());
+        thumbnail.setImage(state.thumbnail());
+        setGraphic(thumbnail);
+      }
+    }
+  }
+}
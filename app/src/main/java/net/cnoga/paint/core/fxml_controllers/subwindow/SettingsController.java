@@ -6,10 +6,12 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import javafx.fxml.FXML;
 import javafx.scene.control.Spinner;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.events.request.ChangeThemeRequest;
 import net.cnoga.paint.core.bus.events.request.SetAutosaveIntervalRequest;
+import net.cnoga.paint.core.bus.events.request.SetUndoBudgetRequest;
 import net.cnoga.paint.core.bus.events.request.StartServerRequest;
 import net.cnoga.paint.core.bus.events.request.StopServerRequest;
 import net.cnoga.paint.core.bus.events.request.ToggleAutosaveRequest;
@@ -18,16 +20,22 @@ import net.cnoga.paint.core.bus.events.request.ToggleAutosaveRequest;
  * Controller for the application settings panel.
  *
  * <p>Handles interactions with the settings UI, including autosave configuration,
- * theme switching, and starting/stopping the local server. Publishes corresponding
- * events to the event bus for backend handling.</p>
+ * theme switching, the undo history's memory budget, and starting/stopping the local
+ * server. Publishes corresponding events to the event bus for backend handling.</p>
  *
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class SettingsController extends EventBusPublisher {
 
   /** Spinner to adjust autosave interval (in minutes). */
   public Spinner autosaveIntervalSpinner;
 
+  /** Spinner to adjust the undo memory budget of each workspace (in megabytes). */
+  public Spinner undoWorkspaceBudgetSpinner;
+
+  /** Spinner to adjust the undo memory budget of all workspaces together (in megabytes). */
+  public Spinner undoTotalBudgetSpinner;
+
   /** Tracks whether dark theme is currently active. */
   private boolean isDark = false;
 
@@ -61,7 +69,8 @@ public class SettingsController extends EventBusPublisher {
    * Initializes the controller after FXML injection.
    *
    * <p>Sets up the autosave interval spinner to post {@link SetAutosaveIntervalRequest}
-   * events whenever its value changes.</p>
+   * events, and the undo budget spinners to post {@link SetUndoBudgetRequest} events, whenever
+   * their values change.</p>
    */
   @FXML
   private void initialize() {
@@ -69,6 +78,21 @@ public class SettingsController extends EventBusPublisher {
     autosaveIntervalSpinner.valueProperty().addListener((obs, oldVal, newVal) -> {
       bus.post(new SetAutosaveIntervalRequest((int) newVal));
     });
+
+    undoWorkspaceBudgetSpinner.setEditable(true);
+    undoTotalBudgetSpinner.setEditable(true);
+    undoWorkspaceBudgetSpinner.valueProperty()
+      .addListener((obs, oldVal, newVal) -> postUndoBudget());
+    undoTotalBudgetSpinner.valueProperty()
+      .addListener((obs, oldVal, newVal) -> postUndoBudget());
+  }
+
+  /**
+   * Posts the undo budget currently shown by the spinners.
+   */
+  private void postUndoBudget() {
+    bus.post(new SetUndoBudgetRequest((int) undoWorkspaceBudgetSpinner.getValue(),
+      (int) undoTotalBudgetSpinner.getValue()));
   }
 
   /**
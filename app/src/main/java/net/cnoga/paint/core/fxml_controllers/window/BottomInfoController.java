@@ -1,14 +1,15 @@
 package net.cnoga.paint.core.fxml_controllers.window;
 
-import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.response.AutosaveTimeChangedEvent;
 import net.cnoga.paint.core.bus.events.response.FileOpenedEvent;
 import net.cnoga.paint.core.bus.events.response.ToolChangedEvent;
+import net.cnoga.paint.core.bus.events.response.UndoMemoryChangedEvent;
 
 /**
  * Controller for the bottom information panel of the workspace UI.
@@ -20,13 +21,15 @@ import net.cnoga.paint.core.bus.events.response.ToolChangedEvent;
  * Event Handling:
  * <ul>
  *   <li>{@link FileOpenedEvent} will update the panel to show the opened file name.</li>
+ *   <li>{@link UndoMemoryChangedEvent} will update the size of the undo history.</li>
  * </ul>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class BottomInfoController extends EventBusPublisher {
 
   public Label textStatus;
   public Label autosaveTimer;
+  public Label undoMemory;
 
   @FXML
   private void initialize() {
@@ -42,6 +45,13 @@ public class BottomInfoController extends EventBusPublisher {
   @SubscribeEvent
   @SuppressWarnings("unused")
   private void timeChanged(AutosaveTimeChangedEvent evt) {
-    Platform.runLater(() -> autosaveTimer.setText("Time until Autosave: " + evt.seconds()));
+    autosaveTimer.setText("Time until Autosave: " + evt.seconds());
+  }
+
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void undoMemoryChanged(UndoMemoryChangedEvent evt) {
+    undoMemory.setText(String.format("Undo: %d steps, %.1f MB in memory, %.1f MB on disk",
+      evt.entries(), evt.residentBytes() / 1048576.0, evt.spilledBytes() / 1048576.0));
   }
 }
\ No newline at end of file
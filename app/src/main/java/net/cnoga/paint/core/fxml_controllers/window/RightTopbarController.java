@@ -3,6 +3,7 @@ package net.cnoga.paint.core.fxml_controllers.window;
 
 import javafx.scene.control.MenuButton;
 import javafx.scene.control.ToggleButton;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.events.request.InitSubWindowServiceRequest;
@@ -10,6 +11,7 @@ import net.cnoga.paint.core.bus.events.request.OpenAboutRequest;
 import net.cnoga.paint.core.bus.events.request.OpenChangelogRequest;
 import net.cnoga.paint.core.bus.events.request.OpenGitHubRequest;
 import net.cnoga.paint.core.bus.events.request.OpenHelpRequest;
+import net.cnoga.paint.core.bus.events.request.OpenHistoryRequest;
 import net.cnoga.paint.core.bus.events.request.OpenSettingsRequest;
 import net.cnoga.paint.core.bus.events.request.OpenToolsRequest;
 
@@ -17,11 +19,12 @@ import net.cnoga.paint.core.bus.events.request.OpenToolsRequest;
 /**
  * Controller for the right-side top bar, managing button actions and subwindow requests.
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class RightTopbarController extends EventBusPublisher {
 
   public ToggleButton right_topbar_tools;
   public ToggleButton right_topbar_settings;
+  public ToggleButton right_topbar_history;
   public MenuButton right_topbar_help;
 
   /** Registers this controller to the global event bus. */
@@ -34,6 +37,11 @@ public class RightTopbarController extends EventBusPublisher {
     bus.post(new OpenToolsRequest());
   }
 
+  /** Opens the undo history subwindow. */
+  public void onOpenHistory() {
+    bus.post(new OpenHistoryRequest());
+  }
+
   /** Opens the settings subwindow. */
   public void onOpenSettings() {
     bus.post(new OpenSettingsRequest());
@@ -67,6 +75,7 @@ public class RightTopbarController extends EventBusPublisher {
    */
   public void initSubWindowService() {
     bus.post(
-      new InitSubWindowServiceRequest(right_topbar_tools, right_topbar_settings));
+      new InitSubWindowServiceRequest(right_topbar_tools, right_topbar_settings,
+        right_topbar_history));
   }
 }
@@ -13,6 +13,7 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
@@ -32,7 +33,7 @@ import net.cnoga.paint.core.util.ShapeType;
  * brush size, color picker, and shape-specific settings. Updates dynamically via the event bus.
  * </p>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class ToolInfoController extends EventBusPublisher {
 
   /** Color picker for tools supporting color changes. */
@@ -0,0 +1,69 @@
+package net.cnoga.paint.core.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a journal written by {@link JournalWriter}.
+ */
+public final class JournalReader {
+
+  /**
+   * Receives the records of a journal in order.
+   */
+  @FunctionalInterface
+  public interface Visitor {
+
+    /**
+     * Handles one record.
+     *
+     * @param tag         the record type
+     * @param deltaMicros microseconds since the previous record
+     * @param payload     buffer positioned at the payload; read exactly the tag's payload size
+     */
+    void visit(JournalTag tag, int deltaMicros, ByteBuffer payload);
+  }
+
+  private JournalReader() {
+  }
+
+  /**
+   * Reads a whole journal, passing each record to a visitor. A record cut short at the end of the
+   * file (e.g. after a crash) ends the journal.
+   *
+   * @param file    the journal file
+   * @param visitor receives each record
+   * @return the number of records read
+   * @throws IOException if the file cannot be read or is not a journal
+   */
+  public static int read(Path file, Visitor visitor) throws IOException {
+    ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+    if (data.remaining() < 6 || data.getInt() != JournalWriter.MAGIC) {
+      throw new IOException("Not a Pain(t) journal: " + file);
+    }
+    short version = data.getShort();
+    if (version != JournalWriter.VERSION) {
+      throw new IOException("Unsupported journal version " + version + ": " + file);
+    }
+
+    int records = 0;
+    while (data.remaining() >= 5) {
+      JournalTag tag = JournalTag.fromCode(data.get());
+      if (tag == null) {
+        throw new IOException("Corrupt journal record at offset " + (data.position() - 1));
+      }
+      int deltaMicros = data.getInt();
+      if (data.remaining() < tag.payloadSize) {
+        break;
+      }
+
+      int end = data.position() + tag.payloadSize;
+      visitor.visit(tag, deltaMicros, data);
+      data.position(end);
+      records++;
+    }
+    return records;
+  }
+}
@@ -0,0 +1,92 @@
+package net.cnoga.paint.core.journal;
+
+/**
+ * Record types of the binary journal, each with a stable on-disk code and a fixed payload size.
+ */
+public enum JournalTag {
+
+  /** Tool pressed: tool index (byte), x (float), y (float). */
+  MOUSE_PRESSED(0x01, 9),
+
+  /** Tool dragged: tool index (byte), x (float), y (float). */
+  MOUSE_DRAGGED(0x02, 9),
+
+  /** Tool released: tool index (byte), x (float), y (float). */
+  MOUSE_RELEASED(0x03, 9),
+
+  /** New workspace: width (int), height (int). */
+  NEW_WORKSPACE(0x10, 8),
+
+  /** Tool changed: tool index (byte). */
+  TOOL(0x11, 1),
+
+  /** Color changed: ARGB (int). */
+  COLOR(0x12, 4),
+
+  /** Width changed: width (int). */
+  WIDTH(0x13, 4),
+
+  /** Shape changed: shape type ordinal (byte), sides (int), right triangle (byte). */
+  SHAPE(0x14, 6),
+
+  /** Selection moved: dx (float), dy (float). */
+  MOVE_SELECTION(0x15, 8),
+
+  /** Selection rotated: degrees (int). */
+  ROTATE_SELECTION(0x16, 4),
+
+  /** Workspace transformed: degrees (int), mirror flags (byte, bit 0 = x, bit 1 = y). */
+  TRANSFORM_WORKSPACE(0x17, 5),
+
+  /** Selection pasted: x (float), y (float). */
+  PASTE_SELECTION(0x18, 8),
+
+  /** State snapshot requested outside tool input. */
+  SAVE_STATE(0x20, 0),
+
+  /** Undo requested. */
+  UNDO(0x21, 0),
+
+  /** Redo requested. */
+  REDO(0x22, 0),
+
+  /** Active workspace cleared. */
+  CLEAR_WORKSPACE(0x23, 0),
+
+  /** Selection committed. */
+  COMMIT_SELECTION(0x24, 0),
+
+  /** Selection copied. */
+  COPY_SELECTION(0x25, 0),
+
+  /** Undo history state picked: state id (int). */
+  GO_TO_UNDO_STATE(0x26, 4);
+
+  /** Lookup table from on-disk code to tag. */
+  private static final JournalTag[] BY_CODE = new JournalTag[256];
+
+  static {
+    for (JournalTag tag : values()) {
+      BY_CODE[tag.code] = tag;
+    }
+  }
+
+  /** On-disk code. */
+  final byte code;
+
+  /** Payload size in bytes. */
+  final int payloadSize;
+
+  JournalTag(int code, int payloadSize) {
+    this.code = (byte) code;
+    this.payloadSize = payloadSize;
+  }
+
+  /**
+   * @param code an on-disk code
+   * @return the matching tag, or {@code null} if the code is unknown
+   */
+  static JournalTag fromCode(byte code) {
+    return BY_CODE[code & 0xFF];
+  }
+}
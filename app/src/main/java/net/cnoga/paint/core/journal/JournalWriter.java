@@ -0,0 +1,208 @@
+package net.cnoga.paint.core.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Appends records to a journal file without doing I/O on the recording thread.
+ *
+ * <p>Records are encoded into a 64 KiB buffer; full buffers (or any buffer older than a second, so
+ * a crash loses little) are handed to a background thread that writes them out and returns them
+ * for reuse. Appending therefore never blocks and, in steady state, never allocates. The age is
+ * checked on each append; when recording goes idle, the background thread instead asks the
+ * recording thread, through the scheduler given at construction, to hand the buffer off.</p>
+ *
+ * <p>Records must be appended from a single thread, normally the JavaFX Application Thread.</p>
+ */
+public final class JournalWriter implements Closeable {
+
+  /** File magic, {@code "PJNL"}. */
+  static final int MAGIC = 0x504A4E4C;
+
+  /** Current format version. */
+  static final short VERSION = 1;
+
+  /** Size of each staging buffer. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Longest a record may sit in the staging buffer before being handed off. */
+  private static final long MAX_BUFFER_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /** Sentinel telling the writer thread to finish. */
+  private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+  /** Buffers waiting to be written, in order. */
+  private final BlockingQueue<ByteBuffer> pending = new LinkedBlockingQueue<>();
+
+  /** Written buffers available for reuse. */
+  private final BlockingQueue<ByteBuffer> spare = new ArrayBlockingQueue<>(4);
+
+  private final FileChannel channel;
+  private final Thread writerThread;
+
+  /** Runs a task on the recording thread, or {@code null} to hand off only on append. */
+  private final Consumer<Runnable> recorder;
+
+  /** Whether the staging buffer holds records not yet handed off. */
+  private volatile boolean buffered;
+
+  /** Whether an idle hand-off has been scheduled on the recording thread and not yet run. */
+  private volatile boolean handOffRequested;
+
+  /** Set once {@link #close()} has run, so a late idle hand-off does nothing. */
+  private boolean closed;
+
+  /** Buffer currently being filled. */
+  private ByteBuffer current = ByteBuffer.allocate(BUFFER_SIZE);
+
+  /** {@link System#nanoTime()} of the previous record. */
+  private long lastRecordNanos = System.nanoTime();
+
+  /** {@link System#nanoTime()} of the last hand-off. */
+  private long lastHandOffNanos = lastRecordNanos;
+
+  /** First write error, reported on {@link #close()}. */
+  private volatile IOException failure;
+
+  /**
+   * Creates (or truncates) a journal file and starts its writer thread. Buffers are handed off
+   * only on append and close, so the last records of an idle recording stay in memory.
+   *
+   * @param file the journal file
+   * @throws IOException if the file cannot be opened
+   */
+  public JournalWriter(Path file) throws IOException {
+    this(file, null);
+  }
+
+  /**
+   * Creates (or truncates) a journal file and starts its writer thread.
+   *
+   * @param file     the journal file
+   * @param recorder runs a task on the thread records are appended from, used to hand off a
+   *                 buffer that has aged while nothing was appended
+   * @throws IOException if the file cannot be opened
+   */
+  public JournalWriter(Path file, Consumer<Runnable> recorder) throws IOException {
+    this.recorder = recorder;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING);
+    current.putInt(MAGIC).putShort(VERSION);
+
+    writerThread = new Thread(this::writeLoop, "JournalWriter-Thread");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Starts a record and returns the buffer to write its payload into. The caller must put exactly
+   * {@code tag}'s payload size in bytes before appending the next record.
+   *
+   * @param tag the record type
+   * @return the staging buffer, positioned at the payload
+   */
+  public ByteBuffer append(JournalTag tag) {
+    long now = System.nanoTime();
+    if (current.remaining() < 5 + tag.payloadSize
+      || now - lastHandOffNanos > MAX_BUFFER_AGE_NANOS) {
+      handOff(now);
+    }
+
+    long deltaMicros = TimeUnit.NANOSECONDS.toMicros(now - lastRecordNanos);
+    lastRecordNanos = now;
+    if (!buffered) {
+      buffered = true;
+    }
+    return current.put(tag.code).putInt((int) Math.min(Integer.MAX_VALUE, deltaMicros));
+  }
+
+  /**
+   * Flushes all records and waits for the writer thread to finish.
+   *
+   * @throws IOException if any write failed
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    handOff(System.nanoTime());
+    pending.add(END);
+    try {
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Queues the staging buffer for writing and swaps in a spare one.
+   */
+  private void handOff(long now) {
+    lastHandOffNanos = now;
+    buffered = false;
+    if (current.position() == 0) {
+      return;
+    }
+    current.flip();
+    pending.add(current);
+    ByteBuffer next = spare.poll();
+    current = next != null ? next.clear() : ByteBuffer.allocate(BUFFER_SIZE);
+  }
+
+  /**
+   * Recording thread: hands off a buffer that aged while nothing was appended.
+   */
+  private void idleHandOff() {
+    handOffRequested = false;
+    long now = System.nanoTime();
+    if (!closed && now - lastHandOffNanos > MAX_BUFFER_AGE_NANOS) {
+      handOff(now);
+    }
+  }
+
+  /**
+   * Writer thread: drains queued buffers to the file until {@link #END}, asking for a hand-off
+   * whenever a second passes with records buffered and nothing queued.
+   */
+  private void writeLoop() {
+    try (channel) {
+      ByteBuffer buffer;
+      while ((buffer = pending.poll(MAX_BUFFER_AGE_NANOS, TimeUnit.NANOSECONDS)) != END) {
+        if (buffer == null) {
+          if (recorder != null && buffered && !handOffRequested) {
+            handOffRequested = true;
+            recorder.accept(this::idleHandOff);
+          }
+          continue;
+        }
+        if (failure == null) {
+          try {
+            while (buffer.hasRemaining()) {
+              channel.write(buffer);
+            }
+          } catch (IOException e) {
+            failure = e;
+          }
+        }
+        spare.offer(buffer);
+      }
+    } catch (IOException e) {
+      if (failure == null) {
+        failure = e;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,15 @@
+/**
+ * Binary journal of drawing sessions.
+ *
+ * <p>A journal is an append-only stream of compact records: tool input with its coordinates, and
+ * the user-driven bus events (color, width, tool and selection changes, undo/redo) around it.
+ * Replaying one against a fresh workspace reproduces the session deterministically, which makes it
+ * useful both as a performance workload and for reproducing crashes.</p>
+ *
+ * <h2>Format</h2>
+ * <p>A header of magic {@code "PJNL"} and a format version, followed by records of one tag byte,
+ * the microseconds elapsed since the previous record as an {@code int}, and a fixed-size payload
+ * determined by the tag (see {@link net.cnoga.paint.core.journal.JournalTag}). All values are
+ * big-endian.</p>
+ */
+package net.cnoga.paint.core.journal;
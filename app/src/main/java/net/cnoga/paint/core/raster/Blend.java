@@ -0,0 +1,40 @@
+package net.cnoga.paint.core.raster;
+
+/**
+ * Pixel compositing on non-premultiplied ARGB ints.
+ */
+final class Blend {
+
+  private Blend() {
+  }
+
+  /**
+   * Porter-Duff source-over.
+   *
+   * @param src the pixel drawn on top
+   * @param dst the pixel underneath
+   * @return the composited pixel
+   */
+  static int srcOver(int src, int dst) {
+    int sa = src >>> 24;
+    if (sa == 255) {
+      return src;
+    }
+    if (sa == 0) {
+      return dst;
+    }
+    int da = dst >>> 24;
+    if (da == 0) {
+      return src;
+    }
+
+    // Work in premultiplied 0..255*255 space, then divide back out.
+    int inv = 255 - sa;
+    int outA255 = sa * 255 + da * inv;
+    int r = (((src >> 16) & 0xFF) * sa * 255 + ((dst >> 16) & 0xFF) * da * inv) / outA255;
+    int g = (((src >> 8) & 0xFF) * sa * 255 + ((dst >> 8) & 0xFF) * da * inv) / outA255;
+    int b = ((src & 0xFF) * sa * 255 + (dst & 0xFF) * da * inv) / outA255;
+    int a = (outA255 + 127) / 255;
+    return (a << 24) | (r << 16) | (g << 8) | b;
+  }
+}
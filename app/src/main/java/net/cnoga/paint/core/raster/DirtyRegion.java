@@ -0,0 +1,122 @@
+package net.cnoga.paint.core.raster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulates changed areas as a short list of rectangles.
+ *
+ * <p>Overlapping or adjacent rectangles are merged as they are added. Once the list exceeds
+ * {@value #MAX_RECTS} entries, the pair whose union wastes the fewest pixels is merged, so the
+ * region stays cheap to store and iterate while remaining much tighter than one bounding box for
+ * scattered edits.</p>
+ */
+public final class DirtyRegion {
+
+  /** Upper bound on the number of rectangles kept. */
+  public static final int MAX_RECTS = 8;
+
+  private final List<PixelRect> rects = new ArrayList<>(MAX_RECTS + 1);
+
+  /**
+   * Adds an area. Empty rectangles are ignored.
+   *
+   * @param rect the changed area
+   */
+  public void add(PixelRect rect) {
+    if (rect.isEmpty()) {
+      return;
+    }
+
+    PixelRect merged = rect;
+    boolean absorbed;
+    do {
+      absorbed = false;
+      for (int i = 0; i < rects.size(); i++) {
+        PixelRect existing = rects.get(i);
+        if (existing.contains(merged)) {
+          return;
+        }
+        if (existing.touches(merged)) {
+          merged = existing.union(merged);
+          rects.remove(i);
+          absorbed = true;
+          break;
+        }
+      }
+    } while (absorbed);
+    rects.add(merged);
+
+    if (rects.size() > MAX_RECTS) {
+      mergeCheapestPair();
+    }
+  }
+
+  /**
+   * Adds every area of another region.
+   *
+   * @param other the region to absorb
+   */
+  public void addAll(DirtyRegion other) {
+    for (PixelRect rect : other.rects) {
+      add(rect);
+    }
+  }
+
+  /**
+   * @return whether no area has been added since the last {@link #clear()}
+   */
+  public boolean isEmpty() {
+    return rects.isEmpty();
+  }
+
+  /**
+   * @return a snapshot of the rectangles, pairwise non-touching
+   */
+  public List<PixelRect> getRects() {
+    return List.copyOf(rects);
+  }
+
+  /**
+   * @return the bounding box of the whole region, or {@code null} if it is empty
+   */
+  public PixelRect getBounds() {
+    PixelRect bounds = null;
+    for (PixelRect rect : rects) {
+      bounds = bounds == null ? rect : bounds.union(rect);
+    }
+    return bounds;
+  }
+
+  /**
+   * Forgets every area.
+   */
+  public void clear() {
+    rects.clear();
+  }
+
+  /**
+   * Merges the two rectangles whose union adds the fewest uncovered pixels.
+   */
+  private void mergeCheapestPair() {
+    int bestA = 0;
+    int bestB = 1;
+    long bestWaste = Long.MAX_VALUE;
+    for (int a = 0; a < rects.size(); a++) {
+      for (int b = a + 1; b < rects.size(); b++) {
+        PixelRect ra = rects.get(a);
+        PixelRect rb = rects.get(b);
+        long waste = ra.union(rb).area() - ra.area() - rb.area();
+        if (waste < bestWaste) {
+          bestWaste = waste;
+          bestA = a;
+          bestB = b;
+        }
+      }
+    }
+    PixelRect union = rects.get(bestA).union(rects.get(bestB));
+    rects.remove(bestB);
+    rects.remove(bestA);
+    add(union);
+  }
+}
@@ -0,0 +1,206 @@
+package net.cnoga.paint.core.raster;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Reusable scratch buffers for operations that need a full-size pixel array or image only for a
+ * moment, such as reading a canvas back or shuffling pixels around.
+ *
+ * <p>Buffers are kept in size buckets: {@code int[]} lengths are rounded up to a power of two and
+ * image sides to a multiple of {@link Raster#TILE_SIZE}, so a lease is usually bigger than asked
+ * for. Callers address leased buffers with their own width as the stride and never rely on the
+ * buffer's size or contents. Released buffers are kept only while the pool retains no more than
+ * its byte cap; beyond that they are left to the garbage collector.</p>
+ *
+ * <p>Releasing a buffer hands it to the next lease, so it must not be used afterwards; that
+ * includes images still queued in a {@code GraphicsContext}, which reads them at the next pulse.
+ * All methods are thread-safe.</p>
+ */
+public final class PixelBufferPool {
+
+  /** Bytes the {@linkplain #shared() shared pool} retains at most. */
+  public static final long DEFAULT_MAX_RETAINED_BYTES = 64L << 20;
+
+  /** Smallest {@code int[]} bucket, in pixels. */
+  private static final int MIN_INTS = 1 << 12;
+
+  private static final PixelBufferPool SHARED = new PixelBufferPool(DEFAULT_MAX_RETAINED_BYTES);
+
+  private final long maxRetainedBytes;
+
+  /** Released arrays by length. */
+  private final Map<Integer, Deque<int[]>> ints = new HashMap<>();
+
+  /** Released images by {@link #imageKey(int, int)}. */
+  private final Map<Long, Deque<WritableImage>> images = new HashMap<>();
+
+  /** Bytes held by released buffers. */
+  private long retainedBytes;
+
+  /**
+   * Creates an empty pool.
+   *
+   * @param maxRetainedBytes most bytes released buffers may take before further releases are
+   *                         dropped
+   */
+  public PixelBufferPool(long maxRetainedBytes) {
+    this.maxRetainedBytes = maxRetainedBytes;
+  }
+
+  /**
+   * @return the pool shared by the application
+   */
+  public static PixelBufferPool shared() {
+    return SHARED;
+  }
+
+  /**
+   * Leases an array of at least the given length. Its contents are unspecified.
+   *
+   * @param minLength pixels needed, not negative
+   * @return an array of at least {@code minLength} elements
+   */
+  public int[] leaseInts(int minLength) {
+    int length = bucketLength(minLength);
+    synchronized (this) {
+      Deque<int[]> bucket = ints.get(length);
+      if (bucket != null && !bucket.isEmpty()) {
+        int[] array = bucket.pop();
+        retainedBytes -= bytesOf(array);
+        return array;
+      }
+    }
+    return new int[length];
+  }
+
+  /**
+   * Returns a leased array to the pool. Arrays not leased from a pool are accepted as long as
+   * their length is a bucket size; others, and {@code null}, are ignored.
+   *
+   * @param array the array, which must not be used afterwards
+   */
+  public void release(int[] array) {
+    if (array == null || array.length != bucketLength(array.length)) {
+      return;
+    }
+    synchronized (this) {
+      Deque<int[]> bucket = ints.computeIfAbsent(array.length, l -> new ArrayDeque<>());
+      if (keep(bytesOf(array)) && !containsSame(bucket, array)) {
+        bucket.push(array);
+        retainedBytes += bytesOf(array);
+      }
+    }
+  }
+
+  /**
+   * Leases an image at least the given size. Its contents are unspecified.
+   *
+   * @param minWidth  width needed, positive
+   * @param minHeight height needed, positive
+   * @return an image at least {@code minWidth} by {@code minHeight} pixels
+   */
+  public WritableImage leaseImage(int minWidth, int minHeight) {
+    int w = bucketSide(minWidth);
+    int h = bucketSide(minHeight);
+    synchronized (this) {
+      Deque<WritableImage> bucket = images.get(imageKey(w, h));
+      if (bucket != null && !bucket.isEmpty()) {
+        WritableImage image = bucket.pop();
+        retainedBytes -= bytesOf(image);
+        return image;
+      }
+    }
+    return new WritableImage(w, h);
+  }
+
+  /**
+   * Returns a leased image to the pool. Images whose size is not a bucket size, and
+   * {@code null}, are ignored.
+   *
+   * @param image the image, which must not be used afterwards
+   */
+  public void release(WritableImage image) {
+    if (image == null) {
+      return;
+    }
+    int w = (int) image.getWidth();
+    int h = (int) image.getHeight();
+    if (w != bucketSide(w) || h != bucketSide(h)) {
+      return;
+    }
+    synchronized (this) {
+      Deque<WritableImage> bucket = images.computeIfAbsent(imageKey(w, h),
+        k -> new ArrayDeque<>());
+      if (keep(bytesOf(image)) && !containsSame(bucket, image)) {
+        bucket.push(image);
+        retainedBytes += bytesOf(image);
+      }
+    }
+  }
+
+  /**
+   * @return bytes currently held by released buffers
+   */
+  public synchronized long getRetainedBytes() {
+    return retainedBytes;
+  }
+
+  /**
+   * Drops every released buffer.
+   */
+  public synchronized void clear() {
+    ints.clear();
+    images.clear();
+    retainedBytes = 0;
+  }
+
+  /** Whether a buffer of the given size still fits under the cap. */
+  private boolean keep(long bytes) {
+    return retainedBytes + bytes <= maxRetainedBytes;
+  }
+
+  /** Identity check, so a buffer released twice is not handed out twice. */
+  private static boolean containsSame(Deque<?> bucket, Object buffer) {
+    for (Object kept : bucket) {
+      if (kept == buffer) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int bucketLength(int minLength) {
+    if (minLength < 0) {
+      throw new IllegalArgumentException("Negative length: " + minLength);
+    }
+    if (minLength <= MIN_INTS) {
+      return MIN_INTS;
+    }
+    int length = Integer.highestOneBit(minLength - 1) << 1;
+    // Past the largest power of two an int can hold, hand out the exact length.
+    return length > 0 ? length : minLength;
+  }
+
+  private static int bucketSide(int minSide) {
+    if (minSide <= 0) {
+      throw new IllegalArgumentException("Non-positive size: " + minSide);
+    }
+    return (minSide + Raster.TILE_SIZE - 1) & ~(Raster.TILE_SIZE - 1);
+  }
+
+  private static long imageKey(int w, int h) {
+    return ((long) w << 32) | h;
+  }
+
+  private static long bytesOf(int[] array) {
+    return (long) array.length * Integer.BYTES;
+  }
+
+  private static long bytesOf(WritableImage image) {
+    return (long) image.getWidth() * (long) image.getHeight() * Integer.BYTES;
+  }
+}
@@ -0,0 +1,106 @@
+package net.cnoga.paint.core.raster;
+
+/**
+ * An axis-aligned rectangle of whole pixels.
+ *
+ * @param x      left edge
+ * @param y      top edge
+ * @param width  width, never negative
+ * @param height height, never negative
+ */
+public record PixelRect(int x, int y, int width, int height) {
+
+  /**
+   * The rectangle covering every pixel touched by a shape with the given real-valued bounds,
+   * grown by {@code padding} on every side, e.g. half a stroke width.
+   *
+   * @param x0      one corner's x-coordinate
+   * @param y0      one corner's y-coordinate
+   * @param x1      the opposite corner's x-coordinate
+   * @param y1      the opposite corner's y-coordinate
+   * @param padding extra margin around the bounds
+   * @return the covering rectangle
+   */
+  public static PixelRect covering(double x0, double y0, double x1, double y1, double padding) {
+    int left = (int) Math.floor(Math.min(x0, x1) - padding);
+    int top = (int) Math.floor(Math.min(y0, y1) - padding);
+    int right = (int) Math.ceil(Math.max(x0, x1) + padding);
+    int bottom = (int) Math.ceil(Math.max(y0, y1) + padding);
+    return new PixelRect(left, top, right - left, bottom - top);
+  }
+
+  /**
+   * @return the exclusive right edge
+   */
+  public int maxX() {
+    return x + width;
+  }
+
+  /**
+   * @return the exclusive bottom edge
+   */
+  public int maxY() {
+    return y + height;
+  }
+
+  /**
+   * @return whether the rectangle covers no pixels
+   */
+  public boolean isEmpty() {
+    return width <= 0 || height <= 0;
+  }
+
+  /**
+   * @return the number of pixels covered
+   */
+  public long area() {
+    return isEmpty() ? 0 : (long) width * height;
+  }
+
+  /**
+   * @param other another rectangle
+   * @return the smallest rectangle containing both
+   */
+  public PixelRect union(PixelRect other) {
+    int left = Math.min(x, other.x);
+    int top = Math.min(y, other.y);
+    return new PixelRect(left, top, Math.max(maxX(), other.maxX()) - left,
+      Math.max(maxY(), other.maxY()) - top);
+  }
+
+  /**
+   * @param other another rectangle
+   * @return the overlap of both, possibly empty
+   */
+  public PixelRect intersect(PixelRect other) {
+    int left = Math.max(x, other.x);
+    int top = Math.max(y, other.y);
+    return new PixelRect(left, top, Math.max(0, Math.min(maxX(), other.maxX()) - left),
+      Math.max(0, Math.min(maxY(), other.maxY()) - top));
+  }
+
+  /**
+   * @param other another rectangle
+   * @return whether both overlap or share an edge, so their union wastes nothing
+   */
+  public boolean touches(PixelRect other) {
+    return x <= other.maxX() && other.x <= maxX() && y <= other.maxY() && other.y <= maxY();
+  }
+
+  /**
+   * @param other another rectangle
+   * @return whether every pixel of {@code other} lies in this rectangle
+   */
+  public boolean contains(PixelRect other) {
+    return other.x >= x && other.y >= y && other.maxX() <= maxX() && other.maxY() <= maxY();
+  }
+
+  /**
+   * @param width  the raster width
+   * @param height the raster height
+   * @return this rectangle clipped to a raster of the given size, possibly empty
+   */
+  public PixelRect clip(int width, int height) {
+    return intersect(new PixelRect(0, 0, width, height));
+  }
+}
@@ -0,0 +1,678 @@
+package net.cnoga.paint.core.raster;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The pixels of one layer, stored as a grid of fixed-size ARGB tiles.
+ *
+ * <p>Pixels are non-premultiplied {@code 0xAARRGGBB} ints, the same layout as
+ * {@code PixelFormat.getIntArgbInstance()}, so they can be handed to a {@code PixelWriter} without
+ * conversion. Every tile is {@value #TILE_SIZE} pixels square; tiles on the right and bottom edge
+ * are padded and the padding is never read.</p>
+ *
+ * <p>Each write marks the tiles it touched as dirty, so whoever mirrors the raster on screen only
+ * has to refresh those (see {@link RasterLayer}). Reads cost O(touched tiles) and never involve the
+ * GPU.</p>
+ *
+ * <p>A tile whose pixels are all the same is stored as that one value: a new raster allocates no
+ * pixels at all, and {@link #fill(int)}, {@link #clearRect(int, int, int, int)} and any
+ * {@link #fillRect(int, int, int, int, int)} that covers whole tiles just set them to a value. A
+ * uniform tile gets its pixel array on its first partial write.</p>
+ *
+ * <p>Tiles are copy-on-write: {@link #copy()} shares every tile array with the original, and
+ * whichever side writes to a shared tile first gets its own copy of just that tile. A copy kept as
+ * an undo state therefore only costs the tiles that were changed after it was taken, and
+ * {@link #copyFrom(Raster)} only touches the tiles that actually differ.</p>
+ *
+ * <p>While {@linkplain #startRecording() recording}, the first write to each tile keeps the tile's
+ * previous pixels, so undo history gets the pre-image of exactly the tiles an operation changed
+ * without copying anything up front.</p>
+ *
+ * <p>A raster is not thread-safe; like the canvases it backs, it belongs to the FX thread.</p>
+ */
+public final class Raster {
+
+  /** Edge length of a tile in pixels. */
+  public static final int TILE_SIZE = 256;
+
+  /** {@code log2(TILE_SIZE)}, for turning coordinates into tile indices. */
+  static final int TILE_SHIFT = 8;
+
+  /** Mask selecting a coordinate's offset within its tile. */
+  static final int TILE_MASK = TILE_SIZE - 1;
+
+  /** Fully transparent black, the initial value of every pixel. */
+  public static final int TRANSPARENT = 0;
+
+  /** The uniform tile every transparent tile shares. Uniform tiles are never written to. */
+  private static final int[] TRANSPARENT_TILE = {TRANSPARENT};
+
+  private final int width;
+  private final int height;
+  private final int tilesX;
+  private final int tilesY;
+
+  /**
+   * Tile pixel arrays in row-major tile order, each {@code TILE_SIZE * TILE_SIZE} long, or a
+   * single element for a {@linkplain #isUniform(int[]) uniform} tile.
+   */
+  private final int[][] tiles;
+
+  /** Tiles written since the last {@link #clearDirty()}. */
+  private final BitSet dirty;
+
+  /** Tiles whose array may also belong to another raster, and must be copied before a write. */
+  private final BitSet shared;
+
+  /** Whether the first write to each tile keeps its previous pixels. */
+  private boolean recording;
+
+  /** Pre-images of the tiles written while recording, by tile index; allocated on first write. */
+  private int[][] preImages;
+
+  /**
+   * Creates a fully transparent raster.
+   *
+   * @param width  width in pixels
+   * @param height height in pixels
+   * @throws IllegalArgumentException if either dimension is not positive
+   */
+  public Raster(int width, int height) {
+    this(width, height, true);
+  }
+
+  /**
+   * @param allocate whether to allocate the tiles; if not, the caller must adopt every one
+   */
+  private Raster(int width, int height, boolean allocate) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Raster size must be positive: " + width + "x" + height);
+    }
+    this.width = width;
+    this.height = height;
+    this.tilesX = (width + TILE_MASK) >> TILE_SHIFT;
+    this.tilesY = (height + TILE_MASK) >> TILE_SHIFT;
+    this.tiles = new int[tilesX * tilesY][];
+    if (allocate) {
+      Arrays.fill(tiles, TRANSPARENT_TILE);
+    }
+    this.dirty = new BitSet(tiles.length);
+    this.shared = new BitSet(tiles.length);
+  }
+
+  /**
+   * Creates a raster without allocating its tiles, for code that adopts every tile right away.
+   */
+  static Raster withoutTiles(int width, int height) {
+    return new Raster(width, height, false);
+  }
+
+  /**
+   * Creates a raster that shares every tile of another.
+   */
+  private Raster(Raster source) {
+    this.width = source.width;
+    this.height = source.height;
+    this.tilesX = source.tilesX;
+    this.tilesY = source.tilesY;
+    this.tiles = source.tiles.clone();
+    this.dirty = new BitSet(tiles.length);
+    this.shared = new BitSet(tiles.length);
+    this.shared.set(0, tiles.length);
+    source.shared.set(0, tiles.length);
+  }
+
+  /**
+   * @return width in pixels
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * @return height in pixels
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * @return number of tile columns
+   */
+  public int getTilesX() {
+    return tilesX;
+  }
+
+  /**
+   * @return number of tile rows
+   */
+  public int getTilesY() {
+    return tilesY;
+  }
+
+  /**
+   * Reads a single pixel.
+   *
+   * @param x the x-coordinate
+   * @param y the y-coordinate
+   * @return the pixel's ARGB value
+   * @throws IndexOutOfBoundsException if the point lies outside the raster
+   */
+  public int getArgb(int x, int y) {
+    checkPoint(x, y);
+    int[] tile = tiles[tileIndex(x >> TILE_SHIFT, y >> TILE_SHIFT)];
+    return isUniform(tile) ? tile[0] : tile[((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK)];
+  }
+
+  /**
+   * Writes a single pixel.
+   *
+   * @param x    the x-coordinate
+   * @param y    the y-coordinate
+   * @param argb the new ARGB value
+   * @throws IndexOutOfBoundsException if the point lies outside the raster
+   */
+  public void setArgb(int x, int y, int argb) {
+    checkPoint(x, y);
+    int index = tileIndex(x >> TILE_SHIFT, y >> TILE_SHIFT);
+    writableTile(index)[((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK)] = argb;
+    dirty.set(index);
+  }
+
+  /**
+   * Sets every pixel to one value.
+   *
+   * @param argb the ARGB value
+   */
+  public void fill(int argb) {
+    int[] uniform = uniformTile(argb);
+    for (int i = 0; i < tiles.length; i++) {
+      remember(i);
+      tiles[i] = uniform;
+    }
+    shared.clear();
+    dirty.set(0, tiles.length);
+  }
+
+  /**
+   * Sets every pixel of a rectangle to one value, replacing what was there. The rectangle is
+   * clipped to the raster; tiles it covers entirely become uniform.
+   *
+   * @param x    left edge
+   * @param y    top edge
+   * @param w    width
+   * @param h    height
+   * @param argb the ARGB value
+   */
+  public void fillRect(int x, int y, int w, int h, int argb) {
+    int x0 = Math.max(x, 0);
+    int y0 = Math.max(y, 0);
+    int x1 = Math.min(x + w, width);
+    int y1 = Math.min(y + h, height);
+    if (x0 >= x1 || y0 >= y1) {
+      return;
+    }
+
+    int[] uniform = null;
+    for (int ty = y0 >> TILE_SHIFT; ty <= (y1 - 1) >> TILE_SHIFT; ty++) {
+      int rowStart = Math.max(y0, ty << TILE_SHIFT);
+      int rowEnd = Math.min(y1, (ty + 1) << TILE_SHIFT);
+      boolean allRows = rowStart == ty << TILE_SHIFT
+        && rowEnd == Math.min(height, (ty + 1) << TILE_SHIFT);
+      for (int tx = x0 >> TILE_SHIFT; tx <= (x1 - 1) >> TILE_SHIFT; tx++) {
+        int colStart = Math.max(x0, tx << TILE_SHIFT) & TILE_MASK;
+        int colEnd = ((Math.min(x1, (tx + 1) << TILE_SHIFT) - 1) & TILE_MASK) + 1;
+        int index = tileIndex(tx, ty);
+        if (isUniform(tiles[index]) && tiles[index][0] == argb) {
+          continue;
+        }
+        boolean allColumns = colStart == 0
+          && colEnd == Math.min(TILE_SIZE, width - (tx << TILE_SHIFT));
+        if (allRows && allColumns) {
+          if (uniform == null) {
+            uniform = uniformTile(argb);
+          }
+          remember(index);
+          tiles[index] = uniform;
+          shared.clear(index);
+          dirty.set(index);
+          continue;
+        }
+        int[] tile = writableTile(index);
+        for (int row = rowStart; row < rowEnd; row++) {
+          int base = (row & TILE_MASK) << TILE_SHIFT;
+          Arrays.fill(tile, base + colStart, base + colEnd, argb);
+        }
+        dirty.set(index);
+      }
+    }
+  }
+
+  /**
+   * Makes a rectangle fully transparent. The rectangle is clipped to the raster.
+   *
+   * @param x left edge
+   * @param y top edge
+   * @param w width
+   * @param h height
+   */
+  public void clearRect(int x, int y, int w, int h) {
+    fillRect(x, y, w, h, TRANSPARENT);
+  }
+
+  /**
+   * Copies a rectangle of pixels out of the raster.
+   *
+   * @param x      left edge, the rectangle must lie inside the raster
+   * @param y      top edge
+   * @param w      width
+   * @param h      height
+   * @param dst    destination array
+   * @param offset index in {@code dst} of the rectangle's top-left pixel
+   * @param scan   distance in {@code dst} between rows
+   * @throws IndexOutOfBoundsException if the rectangle does not lie inside the raster
+   */
+  public void getPixels(int x, int y, int w, int h, int[] dst, int offset, int scan) {
+    checkRect(x, y, w, h);
+    copyRect(x, y, w, h, dst, offset, scan, false);
+  }
+
+  /**
+   * Replaces a rectangle of pixels.
+   *
+   * @param x      left edge, the rectangle must lie inside the raster
+   * @param y      top edge
+   * @param w      width
+   * @param h      height
+   * @param src    source array
+   * @param offset index in {@code src} of the rectangle's top-left pixel
+   * @param scan   distance in {@code src} between rows
+   * @throws IndexOutOfBoundsException if the rectangle does not lie inside the raster
+   */
+  public void setPixels(int x, int y, int w, int h, int[] src, int offset, int scan) {
+    checkRect(x, y, w, h);
+    copyRect(x, y, w, h, src, offset, scan, true);
+    markDirty(x, y, w, h);
+  }
+
+  /**
+   * Composites a rectangle of pixels over the raster (source-over), clipped to the raster.
+   *
+   * @param x      where the source's left edge lands, may be negative
+   * @param y      where the source's top edge lands, may be negative
+   * @param w      source width
+   * @param h      source height
+   * @param src    source array
+   * @param offset index in {@code src} of the source's top-left pixel
+   * @param scan   distance in {@code src} between rows
+   */
+  public void drawPixels(int x, int y, int w, int h, int[] src, int offset, int scan) {
+    int x0 = Math.max(x, 0);
+    int y0 = Math.max(y, 0);
+    int x1 = Math.min(x + w, width);
+    int y1 = Math.min(y + h, height);
+    if (x0 >= x1 || y0 >= y1) {
+      return;
+    }
+
+    for (int row = y0; row < y1; row++) {
+      int srcRow = offset + (row - y) * scan - x;
+      int ty = row >> TILE_SHIFT;
+      int base = (row & TILE_MASK) << TILE_SHIFT;
+      for (int col = x0; col < x1; col++) {
+        int argb = src[srcRow + col];
+        if (argb >>> 24 == 0) {
+          // Leaves the pixel as it is, so uniform tiles under clear areas stay uniform.
+          continue;
+        }
+        int[] tile = writableTile(tileIndex(col >> TILE_SHIFT, ty));
+        int i = base | (col & TILE_MASK);
+        tile[i] = Blend.srcOver(argb, tile[i]);
+      }
+    }
+    markDirty(x0, y0, x1 - x0, y1 - y0);
+  }
+
+  /**
+   * Copies pixels in or out of the tiles without touching the dirty set.
+   *
+   * @param write {@code true} to copy from {@code buf} into the raster
+   */
+  void copyRect(int x, int y, int w, int h, int[] buf, int offset, int scan, boolean write) {
+    for (int row = y; row < y + h; row++) {
+      int ty = row >> TILE_SHIFT;
+      int base = (row & TILE_MASK) << TILE_SHIFT;
+      int bufRow = offset + (row - y) * scan - x;
+      int col = x;
+      while (col < x + w) {
+        int tx = col >> TILE_SHIFT;
+        int run = Math.min(x + w, (tx + 1) << TILE_SHIFT) - col;
+        int index = tileIndex(tx, ty);
+        if (write) {
+          System.arraycopy(buf, bufRow + col, writableTile(index), base | (col & TILE_MASK), run);
+        } else if (isUniform(tiles[index])) {
+          Arrays.fill(buf, bufRow + col, bufRow + col + run, tiles[index][0]);
+        } else {
+          System.arraycopy(tiles[index], base | (col & TILE_MASK), buf, bufRow + col, run);
+        }
+        col += run;
+      }
+    }
+  }
+
+  /**
+   * Returns an independent copy of this raster. The copy starts with no dirty tiles.
+   * <p>
+   * No pixels are copied up front: both rasters share their tiles until one of them writes to a
+   * tile, so taking a copy costs O(tiles) references.
+   * </p>
+   *
+   * @return the copy
+   */
+  public Raster copy() {
+    return new Raster(this);
+  }
+
+  /**
+   * Overwrites this raster with another of the same size. Only tiles that are not already shared
+   * with {@code source} are replaced and marked dirty; the replaced tiles are shared, not copied.
+   *
+   * @param source the raster to copy from
+   * @return the number of tiles that were replaced
+   * @throws IllegalArgumentException if the sizes differ
+   */
+  public int copyFrom(Raster source) {
+    if (source.width != width || source.height != height) {
+      throw new IllegalArgumentException("Raster size mismatch");
+    }
+    int replaced = 0;
+    for (int i = 0; i < tiles.length; i++) {
+      if (tiles[i] != source.tiles[i]) {
+        remember(i);
+        tiles[i] = source.tiles[i];
+        shared.set(i);
+        source.shared.set(i);
+        dirty.set(i);
+        replaced++;
+      }
+    }
+    return replaced;
+  }
+
+  /**
+   * Counts the tiles whose pixels are not shared with another raster of the same size, i.e. the
+   * tiles written on either side since one was copied from the other.
+   *
+   * @param other the raster to compare with
+   * @return the number of differing tiles, or every tile if the sizes differ
+   */
+  public int countTilesDifferentFrom(Raster other) {
+    if (other.width != width || other.height != height) {
+      return tiles.length;
+    }
+    int count = 0;
+    for (int i = 0; i < tiles.length; i++) {
+      if (tiles[i] != other.tiles[i]) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Rotates by a multiple of 90 degrees clockwise and then mirrors, producing a new raster.
+   *
+   * @param degrees 0, 90, 180 or 270
+   * @param mirrorX whether to flip horizontally
+   * @param mirrorY whether to flip vertically
+   * @return the transformed raster, with every tile dirty
+   * @throws IllegalArgumentException for any other angle
+   */
+  public Raster transformed(int degrees, boolean mirrorX, boolean mirrorY) {
+    if (degrees != 0 && degrees != 90 && degrees != 180 && degrees != 270) {
+      throw new IllegalArgumentException("Unsupported rotation: " + degrees);
+    }
+    boolean swap = degrees == 90 || degrees == 270;
+    Raster out = swap ? new Raster(height, width) : new Raster(width, height);
+
+    PixelBufferPool pool = PixelBufferPool.shared();
+    int[] row = pool.leaseInts(width);
+    int[] target = pool.leaseInts(out.width * out.height);
+    for (int y = 0; y < height; y++) {
+      copyRect(0, y, width, 1, row, 0, width, false);
+      for (int x = 0; x < width; x++) {
+        int sx = mirrorX ? width - 1 - x : x;
+        int sy = mirrorY ? height - 1 - y : y;
+        int dx;
+        int dy;
+        switch (degrees) {
+          case 90 -> {
+            dx = height - 1 - sy;
+            dy = sx;
+          }
+          case 180 -> {
+            dx = width - 1 - sx;
+            dy = height - 1 - sy;
+          }
+          case 270 -> {
+            dx = sy;
+            dy = width - 1 - sx;
+          }
+          default -> {
+            dx = sx;
+            dy = sy;
+          }
+        }
+        target[dy * out.width + dx] = row[x];
+      }
+    }
+    out.setPixels(0, 0, out.width, out.height, target, 0, out.width);
+    pool.release(row);
+    pool.release(target);
+    return out;
+  }
+
+  /**
+   * @return whether any tile has been written since the last {@link #clearDirty()}
+   */
+  public boolean isDirty() {
+    return !dirty.isEmpty();
+  }
+
+  /**
+   * @return a copy of the set of dirty tile indices, in row-major tile order
+   */
+  public BitSet getDirtyTiles() {
+    return (BitSet) dirty.clone();
+  }
+
+  /**
+   * Forgets which tiles were written, e.g. after they have been shown.
+   */
+  public void clearDirty() {
+    dirty.clear();
+  }
+
+  /**
+   * Marks every tile overlapping a rectangle as dirty.
+   */
+  void markDirty(int x, int y, int w, int h) {
+    if (w <= 0 || h <= 0) {
+      return;
+    }
+    int tx0 = x >> TILE_SHIFT;
+    int tx1 = (x + w - 1) >> TILE_SHIFT;
+    for (int ty = y >> TILE_SHIFT; ty <= (y + h - 1) >> TILE_SHIFT; ty++) {
+      dirty.set(tileIndex(tx0, ty), tileIndex(tx1, ty) + 1);
+    }
+  }
+
+  /**
+   * @return the pixel array of a tile, for bulk reads within this package; it may be shared or
+   * {@linkplain #isUniform(int[]) uniform} and must not be written to
+   */
+  int[] tile(int index) {
+    return tiles[index];
+  }
+
+  /**
+   * Turns the tiles overlapping a rectangle whose pixels turn out to be all the same into uniform
+   * tiles, e.g. after they were read back from a canvas. The pixels do not change, so the tiles
+   * are not marked dirty.
+   */
+  void compact(int x, int y, int w, int h) {
+    if (w <= 0 || h <= 0) {
+      return;
+    }
+    for (int ty = y >> TILE_SHIFT; ty <= (y + h - 1) >> TILE_SHIFT; ty++) {
+      int rows = Math.min(TILE_SIZE, height - (ty << TILE_SHIFT));
+      for (int tx = x >> TILE_SHIFT; tx <= (x + w - 1) >> TILE_SHIFT; tx++) {
+        int index = tileIndex(tx, ty);
+        int[] tile = tiles[index];
+        if (!isUniform(tile)
+          && isSingleValue(tile, Math.min(TILE_SIZE, width - (tx << TILE_SHIFT)), rows)) {
+          remember(index);
+          tiles[index] = uniformTile(tile[0]);
+          shared.clear(index);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return whether a tile array is a uniform tile, holding only the value of all its pixels
+   */
+  static boolean isUniform(int[] tile) {
+    return tile.length == 1;
+  }
+
+  /**
+   * Hands out a tile's pixel array to be kept elsewhere, e.g. by a {@link TileDelta}. The raster
+   * copies the tile before its next write to it, so the returned array never changes.
+   */
+  int[] shareTile(int index) {
+    shared.set(index);
+    return tiles[index];
+  }
+
+  /**
+   * Replaces a tile's pixel array and marks the tile dirty.
+   *
+   * @param pixels    the new pixels, {@code TILE_SIZE * TILE_SIZE} long or a uniform tile
+   * @param isShared  whether the array may be referenced elsewhere and must be copied before a
+   *                  write
+   */
+  void adoptTile(int index, int[] pixels, boolean isShared) {
+    remember(index);
+    tiles[index] = pixels;
+    shared.set(index, isShared);
+    dirty.set(index);
+  }
+
+  /**
+   * @return number of tiles, {@code tilesX * tilesY}
+   */
+  int tileCount() {
+    return tiles.length;
+  }
+
+  /**
+   * Returns a tile's pixel array for writing, first giving this raster its own copy if the array
+   * is shared.
+   */
+  private int[] writableTile(int index) {
+    remember(index);
+    int[] tile = tiles[index];
+    if (isUniform(tile)) {
+      int[] expanded = new int[TILE_SIZE * TILE_SIZE];
+      if (tile[0] != TRANSPARENT) {
+        Arrays.fill(expanded, tile[0]);
+      }
+      tiles[index] = expanded;
+      shared.clear(index);
+      return expanded;
+    }
+    if (shared.get(index)) {
+      tile = tile.clone();
+      tiles[index] = tile;
+      shared.clear(index);
+    }
+    return tile;
+  }
+
+  /**
+   * Starts keeping the pre-image of every tile on its first write. Costs nothing until a tile is
+   * actually written.
+   */
+  void startRecording() {
+    recording = true;
+    preImages = null;
+  }
+
+  /**
+   * Stops recording.
+   *
+   * @return the pre-images by tile index, {@code null} for tiles that were not written; or
+   * {@code null} if nothing was written at all
+   */
+  int[][] stopRecording() {
+    int[][] recorded = preImages;
+    recording = false;
+    preImages = null;
+    return recorded;
+  }
+
+  /**
+   * Keeps a tile's current pixels as its pre-image if recording and this is its first write. The
+   * tile is flagged shared, so the write itself goes to a copy.
+   */
+  private void remember(int index) {
+    if (!recording) {
+      return;
+    }
+    if (preImages == null) {
+      preImages = new int[tiles.length][];
+    }
+    if (preImages[index] == null) {
+      preImages[index] = tiles[index];
+      shared.set(index);
+    }
+  }
+
+  private static int[] uniformTile(int argb) {
+    return argb == TRANSPARENT ? TRANSPARENT_TILE : new int[]{argb};
+  }
+
+  /** Whether the visible part of a full tile holds one value; the padding is ignored. */
+  private static boolean isSingleValue(int[] tile, int columns, int rows) {
+    int value = tile[0];
+    for (int row = 0; row < rows; row++) {
+      int base = row << TILE_SHIFT;
+      for (int i = base; i < base + columns; i++) {
+        if (tile[i] != value) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private int tileIndex(int tx, int ty) {
+    return ty * tilesX + tx;
+  }
+
+  private void checkPoint(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") outside "
+        + width + "x" + height);
+    }
+  }
+
+  private void checkRect(int x, int y, int w, int h) {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > width || y + h > height) {
+      throw new IndexOutOfBoundsException("[" + x + ", " + y + ", " + w + "x" + h + "] outside "
+        + width + "x" + height);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package net.cnoga.paint.core.raster;
+
+/**
+ * Brush operations that write straight into a {@link Raster}, for tools whose effect cannot be
+ * painted with a {@code GraphicsContext}, like erasing.
+ *
+ * <p>A pixel belongs to a shape when its center does. Shapes are rasterized one row at a time as
+ * a single span, so sweeping a brush along a segment costs one pass over the rows it covers, not
+ * one stamp per pixel of distance.</p>
+ */
+public final class RasterBrush {
+
+  /**
+   * The shape of a brush tip.
+   */
+  public enum Tip {
+    /** An axis-aligned square, {@code size} pixels on a side. */
+    SQUARE,
+    /** A circle {@code size} pixels across. */
+    ROUND
+  }
+
+  private RasterBrush() {
+  }
+
+  /**
+   * Makes transparent every pixel a brush tip covers while its center moves along a segment,
+   * including both ends.
+   *
+   * @param raster the raster to erase from
+   * @param tip    the shape of the tip
+   * @param size   the tip's width, positive
+   * @param x0     the segment's starting x-coordinate
+   * @param y0     the segment's starting y-coordinate
+   * @param x1     the segment's ending x-coordinate
+   * @param y1     the segment's ending y-coordinate
+   * @return the bounds of the rows and columns visited, clipped to the raster; empty if the
+   * swept area misses the raster
+   */
+  public static PixelRect clearSwept(Raster raster, Tip tip, double size,
+    double x0, double y0, double x1, double y1) {
+    double half = size / 2.0;
+    int rowStart = Math.max(0, (int) Math.ceil(Math.min(y0, y1) - half - 0.5));
+    int rowEnd = Math.min(raster.getHeight() - 1, (int) Math.floor(Math.max(y0, y1) + half - 0.5));
+
+    int minX = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    double[] span = new double[2];
+    for (int row = rowStart; row <= rowEnd; row++) {
+      double yc = row + 0.5;
+      boolean hit = tip == Tip.SQUARE
+        ? squareSpan(half, x0, y0, x1, y1, yc, span)
+        : roundSpan(half, x0, y0, x1, y1, yc, span);
+      if (!hit) {
+        continue;
+      }
+      int left = Math.max(0, (int) Math.ceil(span[0] - 0.5));
+      int right = Math.min(raster.getWidth() - 1, (int) Math.floor(span[1] - 0.5));
+      if (left > right) {
+        continue;
+      }
+      raster.fillRect(left, row, right - left + 1, 1, Raster.TRANSPARENT);
+      minX = Math.min(minX, left);
+      maxX = Math.max(maxX, right);
+      minY = Math.min(minY, row);
+      maxY = row;
+    }
+    return minX > maxX ? new PixelRect(0, 0, 0, 0)
+      : new PixelRect(minX, minY, maxX - minX + 1, maxY - minY + 1);
+  }
+
+  /**
+   * Lowers the alpha of the pixels under a round dab, most at its center and not at all at its
+   * rim. Color channels are kept, so the pixels fade out rather than darken.
+   *
+   * @param raster   the raster to fade
+   * @param cx       the dab's center x-coordinate
+   * @param cy       the dab's center y-coordinate
+   * @param radius   the dab's radius, positive
+   * @param strength the share of alpha removed at the center, between 0 and 1
+   * @return the bounds of the dab, clipped to the raster; empty if it misses the raster
+   */
+  public static PixelRect fadeDab(Raster raster, double cx, double cy, double radius,
+    double strength) {
+    PixelRect bounds = PixelRect.covering(cx, cy, cx, cy, radius)
+      .clip(raster.getWidth(), raster.getHeight());
+    if (bounds.isEmpty()) {
+      return bounds;
+    }
+
+    int w = bounds.width();
+    int h = bounds.height();
+    PixelBufferPool pool = PixelBufferPool.shared();
+    int[] pixels = pool.leaseInts(w * h);
+    raster.getPixels(bounds.x(), bounds.y(), w, h, pixels, 0, w);
+
+    double r2 = radius * radius;
+    boolean changed = false;
+    for (int row = 0; row < h; row++) {
+      double dy = bounds.y() + row + 0.5 - cy;
+      for (int col = 0; col < w; col++) {
+        int argb = pixels[row * w + col];
+        int alpha = argb >>> 24;
+        if (alpha == 0) {
+          continue;
+        }
+        double dx = bounds.x() + col + 0.5 - cx;
+        double d2 = (dx * dx + dy * dy) / r2;
+        if (d2 >= 1) {
+          continue;
+        }
+        double falloff = (1 - d2) * (1 - d2);
+        int faded = (int) Math.round(alpha * (1 - strength * falloff));
+        if (faded != alpha) {
+          pixels[row * w + col] = faded == 0 ? Raster.TRANSPARENT
+            : (faded << 24) | (argb & 0x00FFFFFF);
+          changed = true;
+        }
+      }
+    }
+    if (changed) {
+      raster.setPixels(bounds.x(), bounds.y(), w, h, pixels, 0, w);
+    }
+    pool.release(pixels);
+    return bounds;
+  }
+
+  /**
+   * Finds where the row through {@code yc} crosses the area a square sweeps along a segment.
+   *
+   * @param span receives the left and right edge
+   * @return whether the row crosses the area at all
+   */
+  private static boolean squareSpan(double half, double x0, double y0, double x1, double y1,
+    double yc, double[] span) {
+    double dy = y1 - y0;
+    double t0;
+    double t1;
+    if (dy == 0) {
+      if (Math.abs(yc - y0) > half) {
+        return false;
+      }
+      t0 = 0;
+      t1 = 1;
+    } else {
+      // The range of positions along the segment at which the square still reaches the row
+      double ta = (yc - half - y0) / dy;
+      double tb = (yc + half - y0) / dy;
+      t0 = Math.max(0, Math.min(ta, tb));
+      t1 = Math.min(1, Math.max(ta, tb));
+      if (t0 > t1) {
+        return false;
+      }
+    }
+    double xa = x0 + t0 * (x1 - x0);
+    double xb = x0 + t1 * (x1 - x0);
+    span[0] = Math.min(xa, xb) - half;
+    span[1] = Math.max(xa, xb) + half;
+    return true;
+  }
+
+  /**
+   * Finds where the row through {@code yc} crosses the capsule a circle sweeps along a segment:
+   * the union of the circles at both ends and the band between them. The capsule is convex, so
+   * the union of the parts' spans is a span too.
+   *
+   * @param span receives the left and right edge
+   * @return whether the row crosses the capsule at all
+   */
+  private static boolean roundSpan(double radius, double x0, double y0, double x1, double y1,
+    double yc, double[] span) {
+    span[0] = Double.POSITIVE_INFINITY;
+    span[1] = Double.NEGATIVE_INFINITY;
+    circleSpan(radius, x0, y0, yc, span);
+    circleSpan(radius, x1, y1, yc, span);
+
+    double length = Math.hypot(x1 - x0, y1 - y0);
+    if (length > 0) {
+      double nx = -(y1 - y0) / length * radius;
+      double ny = (x1 - x0) / length * radius;
+      edgeSpan(x0 + nx, y0 + ny, x1 + nx, y1 + ny, yc, span);
+      edgeSpan(x1 + nx, y1 + ny, x1 - nx, y1 - ny, yc, span);
+      edgeSpan(x1 - nx, y1 - ny, x0 - nx, y0 - ny, yc, span);
+      edgeSpan(x0 - nx, y0 - ny, x0 + nx, y0 + ny, yc, span);
+    }
+    return span[0] <= span[1];
+  }
+
+  private static void circleSpan(double radius, double cx, double cy, double yc, double[] span) {
+    double dy = yc - cy;
+    if (Math.abs(dy) > radius) {
+      return;
+    }
+    double w = Math.sqrt(radius * radius - dy * dy);
+    span[0] = Math.min(span[0], cx - w);
+    span[1] = Math.max(span[1], cx + w);
+  }
+
+  private static void edgeSpan(double xa, double ya, double xb, double yb, double yc,
+    double[] span) {
+    if (ya == yb || yc < Math.min(ya, yb) || yc > Math.max(ya, yb)) {
+      return;
+    }
+    double x = xa + (yc - ya) / (yb - ya) * (xb - xa);
+    span[0] = Math.min(span[0], x);
+    span[1] = Math.max(span[1], x);
+  }
+}
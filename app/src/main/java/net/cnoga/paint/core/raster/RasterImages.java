@@ -0,0 +1,160 @@
+package net.cnoga.paint.core.raster;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Conversions between {@link Raster}s, pixel arrays and JavaFX or AWT images.
+ *
+ * <p>None of these need the scene graph or a snapshot; they only copy pixel data.</p>
+ */
+public final class RasterImages {
+
+  private static final WritablePixelFormat<IntBuffer> ARGB = PixelFormat.getIntArgbInstance();
+
+  private RasterImages() {
+  }
+
+  /**
+   * Builds a raster holding an image's pixels.
+   *
+   * @param image a fully loaded image
+   * @return a new raster of the image's size
+   */
+  public static Raster fromImage(Image image) {
+    int w = (int) image.getWidth();
+    int h = (int) image.getHeight();
+    Raster raster = new Raster(w, h);
+
+    // One band of tile rows at a time keeps the transfer buffer small.
+    int[] band = new int[w * Raster.TILE_SIZE];
+    for (int y = 0; y < h; y += Raster.TILE_SIZE) {
+      int rows = Math.min(Raster.TILE_SIZE, h - y);
+      image.getPixelReader().getPixels(0, y, w, rows, ARGB, band, 0, w);
+      raster.setPixels(0, y, w, rows, band, 0, w);
+    }
+    raster.compact(0, 0, w, h);
+    return raster;
+  }
+
+  /**
+   * Copies a rectangle of a raster into a new image. Parts of the rectangle outside the raster
+   * come out transparent.
+   *
+   * @param raster the source
+   * @param x      left edge, may lie outside the raster
+   * @param y      top edge, may lie outside the raster
+   * @param w      width, positive
+   * @param h      height, positive
+   * @return the new image
+   */
+  public static WritableImage toImage(Raster raster, int x, int y, int w, int h) {
+    PixelBufferPool pool = PixelBufferPool.shared();
+    int[] pixels = readClipped(raster, x, y, w, h, pool.leaseInts(w * h));
+    WritableImage image = toImage(pixels, w, h);
+    pool.release(pixels);
+    return image;
+  }
+
+  /**
+   * Reads a rectangle of a raster into an array. Parts of the rectangle outside the raster come
+   * out transparent.
+   *
+   * @param raster the source
+   * @param x      left edge, may lie outside the raster
+   * @param y      top edge, may lie outside the raster
+   * @param w      width, positive
+   * @param h      height, positive
+   * @return the pixels, {@code w} per row
+   */
+  public static int[] readClipped(Raster raster, int x, int y, int w, int h) {
+    return readClipped(raster, x, y, w, h, new int[w * h]);
+  }
+
+  /**
+   * Reads a rectangle of a raster into the start of a given array, e.g. one leased from a
+   * {@link PixelBufferPool}. Parts of the rectangle outside the raster come out transparent.
+   *
+   * @param raster the source
+   * @param x      left edge, may lie outside the raster
+   * @param y      top edge, may lie outside the raster
+   * @param w      width, positive
+   * @param h      height, positive
+   * @param pixels receives the pixels, {@code w} per row; at least {@code w * h} long
+   * @return {@code pixels}
+   */
+  public static int[] readClipped(Raster raster, int x, int y, int w, int h, int[] pixels) {
+    int x0 = Math.max(x, 0);
+    int y0 = Math.max(y, 0);
+    int x1 = Math.min(x + w, raster.getWidth());
+    int y1 = Math.min(y + h, raster.getHeight());
+    if (x0 > x || y0 > y || x1 < x + w || y1 < y + h) {
+      Arrays.fill(pixels, 0, w * h, Raster.TRANSPARENT);
+    }
+    if (x0 < x1 && y0 < y1) {
+      raster.getPixels(x0, y0, x1 - x0, y1 - y0, pixels, (y0 - y) * w + (x0 - x), w);
+    }
+    return pixels;
+  }
+
+  /**
+   * Wraps ARGB pixels in a new image.
+   *
+   * @param pixels the pixels, {@code w} per row
+   * @param w      width
+   * @param h      height
+   * @return the new image
+   */
+  public static WritableImage toImage(int[] pixels, int w, int h) {
+    WritableImage image = new WritableImage(w, h);
+    image.getPixelWriter().setPixels(0, 0, w, h, ARGB, pixels, 0, w);
+    return image;
+  }
+
+  /**
+   * Reads all pixels of an image.
+   *
+   * @param image a fully loaded image
+   * @return the pixels, one row of the image's width after another
+   */
+  public static int[] pixelsOf(Image image) {
+    return pixelsOf(image, new int[(int) image.getWidth() * (int) image.getHeight()]);
+  }
+
+  /**
+   * Reads all pixels of an image into the start of a given array, e.g. one leased from a
+   * {@link PixelBufferPool}.
+   *
+   * @param image  a fully loaded image
+   * @param pixels receives the pixels, one row of the image's width after another; at least as
+   *               long as the image has pixels
+   * @return {@code pixels}
+   */
+  public static int[] pixelsOf(Image image, int[] pixels) {
+    int w = (int) image.getWidth();
+    int h = (int) image.getHeight();
+    image.getPixelReader().getPixels(0, 0, w, h, ARGB, pixels, 0, w);
+    return pixels;
+  }
+
+  /**
+   * Copies a whole raster into an AWT image, e.g. for encoding. Safe to hand to another thread.
+   *
+   * @param raster the source
+   * @return a new {@link BufferedImage#TYPE_INT_ARGB} image
+   */
+  public static BufferedImage toBufferedImage(Raster raster) {
+    int w = raster.getWidth();
+    int h = raster.getHeight();
+    BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+    int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    raster.getPixels(0, 0, w, h, data, 0, w);
+    return image;
+  }
+}
@@ -0,0 +1,297 @@
+package net.cnoga.paint.core.raster;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Pairs a layer's {@link Raster}, which owns its pixels, with the {@link Canvas} that displays
+ * them.
+ *
+ * <p>Code that edits pixels does so on the raster and then calls {@link #refresh()}, which copies
+ * only the dirty tiles to the canvas through its {@link PixelWriter}. Tools still paint with a
+ * {@code GraphicsContext}; after they do, {@link #canvasChanged(PixelRect)} records which area of
+ * the canvas is ahead of the raster, and the next {@link #getRaster()} reads just that area back
+ * before returning it. Either way the raster is the copy everybody reads from.</p>
+ *
+ * <p>Every change, from either side, is reported to the layer's {@link ChangeListener} as a short
+ * list of rectangles.</p>
+ *
+ * <p>Between {@link #beginRecording()} and {@link #endRecording()} the layer keeps the previous
+ * pixels of each tile the first time it is written, which is how undo history learns what an
+ * operation overwrote.</p>
+ *
+ * <p>Belongs to the FX thread.</p>
+ */
+public final class RasterLayer {
+
+  private static final WritablePixelFormat<IntBuffer> ARGB = PixelFormat.getIntArgbInstance();
+
+  /** The on-screen copy of the pixels. */
+  private final Canvas canvas;
+
+  /** The pixels. */
+  private Raster raster;
+
+  /** Areas painted on the canvas that the raster has not seen yet. */
+  private final DirtyRegion canvasAhead = new DirtyRegion();
+
+  /** Told about every change. */
+  private final ChangeListener listener;
+
+  /** Whether an operation is being recorded. */
+  private boolean recording;
+
+  /** The state to return to if the raster was replaced while recording, otherwise {@code null}. */
+  private TileDelta replacedWhileRecording;
+
+  /** Whether the raster itself was written to, not just the canvas, since recording began. */
+  private boolean editedDirectly;
+
+  /** Whether {@link #refresh()} is held back, so several edits reach the canvas at once. */
+  private boolean refreshDeferred;
+
+  /**
+   * Creates a transparent raster matching the canvas's size.
+   *
+   * @param canvas   the canvas that displays this layer
+   * @param listener told about every change to the layer
+   */
+  public RasterLayer(Canvas canvas, ChangeListener listener) {
+    this.canvas = canvas;
+    this.listener = listener;
+    this.raster = new Raster((int) canvas.getWidth(), (int) canvas.getHeight());
+    canvas.getProperties().put(RasterLayer.class, this);
+  }
+
+  /**
+   * Finds the layer a canvas displays, e.g. for a tool that is handed only the canvas's
+   * {@code GraphicsContext}.
+   *
+   * @param canvas the canvas
+   * @return the layer, or {@code null} if the canvas does not display one
+   */
+  public static RasterLayer of(Canvas canvas) {
+    return (RasterLayer) canvas.getProperties().get(RasterLayer.class);
+  }
+
+  /**
+   * @return the canvas that displays this layer
+   */
+  public Canvas getCanvas() {
+    return canvas;
+  }
+
+  /**
+   * Returns the layer's pixels, first reading back anything painted directly on the canvas.
+   * Callers that write to the raster must call {@link #refresh()} afterwards.
+   *
+   * @return the up-to-date raster
+   */
+  public Raster getRaster() {
+    if (!canvasAhead.isEmpty()) {
+      for (PixelRect area : canvasAhead.getRects()) {
+        capture(area.x(), area.y(), area.width(), area.height());
+      }
+      canvasAhead.clear();
+    }
+    return raster;
+  }
+
+  /**
+   * Records that an area of the canvas has been painted on directly, e.g. by a tool.
+   *
+   * @param area the painted area; parts outside the layer are ignored
+   */
+  public void canvasChanged(PixelRect area) {
+    PixelRect clipped = area.clip(raster.getWidth(), raster.getHeight());
+    if (!clipped.isEmpty()) {
+      canvasAhead.add(clipped);
+      listener.layerChanged(this, List.of(clipped));
+    }
+  }
+
+  /**
+   * Lets a tool write to the raster as part of a stroke, then shows the result. Unlike other
+   * writes to the raster, these come from the tool's input and are reproduced by replaying it,
+   * so they do not count as {@linkplain #wasEditedDirectly() direct edits}.
+   *
+   * @param painting writes to the up-to-date raster
+   */
+  public void paint(Consumer<Raster> painting) {
+    boolean edited = editedDirectly;
+    painting.accept(getRaster());
+    refresh();
+    editedDirectly = edited;
+  }
+
+  /**
+   * Replaces the layer's pixels wholesale, resizing the canvas if needed.
+   *
+   * @param replacement the new pixels
+   */
+  public void setRaster(Raster replacement) {
+    editedDirectly |= recording;
+    if (recording && replacedWhileRecording == null) {
+      // Only the raster as it was when recording began matters; later replacements are undone
+      // along with it.
+      replacedWhileRecording = TileDelta.recorded(raster, raster.stopRecording(), true);
+    }
+    this.raster = replacement;
+    this.canvasAhead.clear();
+    if (canvas.getWidth() != replacement.getWidth()
+      || canvas.getHeight() != replacement.getHeight()) {
+      canvas.setWidth(replacement.getWidth());
+      canvas.setHeight(replacement.getHeight());
+    }
+    replacement.markDirty(0, 0, replacement.getWidth(), replacement.getHeight());
+    refresh();
+  }
+
+  /**
+   * Starts recording an operation. Paint already on the canvas is read back first so it is not
+   * mistaken for part of the operation; nothing else is copied until a tile is first written.
+   */
+  public void beginRecording() {
+    if (recording) {
+      endRecording();
+    }
+    getRaster();
+    raster.startRecording();
+    recording = true;
+    replacedWhileRecording = null;
+    editedDirectly = false;
+  }
+
+  /**
+   * Stops recording, first reading back whatever was painted on the canvas since it began.
+   *
+   * @return the delta that restores the layer to its state when recording began, or {@code null}
+   * if the operation changed no pixels or nothing was being recorded
+   */
+  public TileDelta endRecording() {
+    if (!recording) {
+      return null;
+    }
+    getRaster();
+    recording = false;
+    TileDelta replaced = replacedWhileRecording;
+    replacedWhileRecording = null;
+    if (replaced != null) {
+      return replaced;
+    }
+    int[][] preImages = raster.stopRecording();
+    return preImages != null ? TileDelta.recorded(raster, preImages, false) : null;
+  }
+
+  /**
+   * Returns whether the last recorded operation wrote to the raster itself, e.g. a fill or a
+   * transform, rather than only painting on the canvas. Only canvas painting can be reproduced by
+   * replaying the tool that did it.
+   *
+   * @return {@code true} if the raster was written to or replaced while recording
+   */
+  public boolean wasEditedDirectly() {
+    return editedDirectly;
+  }
+
+  /**
+   * Holds back {@link #refresh()} while a series of edits is applied, so each tile is copied to
+   * the canvas once however often it changed. Ending the deferral refreshes.
+   *
+   * @param deferred {@code true} to hold refreshes back, {@code false} to copy what piled up
+   */
+  public void setRefreshDeferred(boolean deferred) {
+    refreshDeferred = deferred;
+    if (!deferred) {
+      refresh();
+    }
+  }
+
+  /**
+   * @return whether refreshes are being held back
+   */
+  public boolean isRefreshDeferred() {
+    return refreshDeferred;
+  }
+
+  /**
+   * Copies every dirty tile of the raster to the canvas, unless refreshes are
+   * {@linkplain #setRefreshDeferred(boolean) deferred}.
+   */
+  public void refresh() {
+    if (refreshDeferred || !raster.isDirty()) {
+      return;
+    }
+    editedDirectly |= recording;
+    PixelWriter writer = canvas.getGraphicsContext2D().getPixelWriter();
+    BitSet dirty = raster.getDirtyTiles();
+    DirtyRegion changed = new DirtyRegion();
+    int tilesX = raster.getTilesX();
+    // Uniform tiles are written from one row of their value, repeated with a stride of zero.
+    int[] uniformRow = null;
+    for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+      int x = (i % tilesX) << Raster.TILE_SHIFT;
+      int y = (i / tilesX) << Raster.TILE_SHIFT;
+      int w = Math.min(Raster.TILE_SIZE, raster.getWidth() - x);
+      int h = Math.min(Raster.TILE_SIZE, raster.getHeight() - y);
+      int[] tile = raster.tile(i);
+      if (Raster.isUniform(tile)) {
+        if (uniformRow == null) {
+          uniformRow = PixelBufferPool.shared().leaseInts(Raster.TILE_SIZE);
+        }
+        Arrays.fill(uniformRow, 0, w, tile[0]);
+        writer.setPixels(x, y, w, h, ARGB, uniformRow, 0, 0);
+      } else {
+        writer.setPixels(x, y, w, h, ARGB, tile, 0, Raster.TILE_SIZE);
+      }
+      changed.add(new PixelRect(x, y, w, h));
+    }
+    PixelBufferPool.shared().release(uniformRow);
+    raster.clearDirty();
+    listener.layerChanged(this, changed.getRects());
+  }
+
+  /**
+   * Reads a region of the canvas back into the raster, without marking it dirty.
+   */
+  private void capture(int x, int y, int w, int h) {
+    SnapshotParameters params = new SnapshotParameters();
+    params.setFill(Color.TRANSPARENT);
+    params.setViewport(new Rectangle2D(x, y, w, h));
+
+    PixelBufferPool pool = PixelBufferPool.shared();
+    WritableImage image = canvas.snapshot(params, pool.leaseImage(w, h));
+    int[] pixels = pool.leaseInts(w * h);
+    image.getPixelReader().getPixels(0, 0, w, h, ARGB, pixels, 0, w);
+    raster.copyRect(x, y, w, h, pixels, 0, w, true);
+    raster.compact(x, y, w, h);
+    pool.release(pixels);
+    pool.release(image);
+  }
+
+  /**
+   * Observes the areas of a layer that change.
+   */
+  @FunctionalInterface
+  public interface ChangeListener {
+
+    /**
+     * Called after part of a layer changed, on the FX thread.
+     *
+     * @param layer the layer
+     * @param areas the changed areas, clipped to the layer
+     */
+    void layerChanged(RasterLayer layer, List<PixelRect> areas);
+  }
+}
@@ -0,0 +1,382 @@
+package net.cnoga.paint.core.raster;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The tiles that set one state of a layer apart from another, as kept by undo history.
+ *
+ * <p>A delta holds only the tiles of the older state that the newer one changed, so its size
+ * follows the area that was painted, not the canvas. It comes either from the pre-images a layer
+ * kept while {@linkplain RasterLayer#beginRecording() recording}, or from comparing two rasters
+ * with {@link #between(Raster, Raster)}. {@link #applyTo(RasterLayer)} puts those tiles back and returns the delta that undoes
+ * the application, which is what a redo stack keeps.</p>
+ *
+ * <p>Tiles start out as the raster's own (shared, copy-on-write) pixel arrays. A delta that has
+ * not been needed for a while can be {@link #compress() compressed} with {@link Deflater} and then
+ * {@link #spill(TileSpillFile) spilled} to a scratch file; tiles are inflated again only when the
+ * delta is applied. Uniform tiles are a single value already and are kept as they are.</p>
+ *
+ * <p>Compressing and spilling may run on a background thread while the FX thread applies or
+ * releases the delta; the payload of each tile is swapped under the delta's lock.</p>
+ */
+public final class TileDelta {
+
+  /** Bytes taken by one uncompressed tile. */
+  public static final int RAW_TILE_BYTES = Raster.TILE_SIZE * Raster.TILE_SIZE * Integer.BYTES;
+
+  /** Size of the state this delta restores. */
+  private final int width;
+  private final int height;
+
+  /** Whether the delta holds every tile, e.g. because the layer was resized in between. */
+  private final boolean whole;
+
+  /** Indices of the tiles held, in row-major tile order. */
+  private final int[] indices;
+
+  /**
+   * Each tile's pixels: the {@code int[]} itself, a deflated {@code byte[]}, or the
+   * {@link TileSpillFile.Slot} it was evicted to.
+   */
+  private final Object[] payloads;
+
+  /** The file spilled tiles live in, once there are any. */
+  private TileSpillFile spillFile;
+
+  /** Set once the delta is dropped; compression and spilling stop touching it. */
+  private boolean released;
+
+  private TileDelta(int width, int height, boolean whole, int[] indices, Object[] payloads) {
+    this.width = width;
+    this.height = height;
+    this.whole = whole;
+    this.indices = indices;
+    this.payloads = payloads;
+  }
+
+  /**
+   * Captures the tiles of {@code state} that {@code current} does not share with it. The state
+   * is normally a {@link Raster#copy()} of {@code current} taken before an edit, so the result is
+   * exactly the tiles the edit touched. If the sizes differ, every tile is captured.
+   *
+   * @param state   the state to be able to return to
+   * @param current the state the layer is in now
+   * @return the delta that turns {@code current} back into {@code state}
+   */
+  public static TileDelta between(Raster state, Raster current) {
+    if (state.getWidth() != current.getWidth() || state.getHeight() != current.getHeight()) {
+      return whole(state);
+    }
+    int[] indices = new int[state.tileCount()];
+    int count = 0;
+    for (int i = 0; i < indices.length; i++) {
+      if (state.tile(i) != current.tile(i)) {
+        indices[count++] = i;
+      }
+    }
+    Object[] payloads = new Object[count];
+    for (int i = 0; i < count; i++) {
+      payloads[i] = state.shareTile(indices[i]);
+    }
+    return new TileDelta(state.getWidth(), state.getHeight(), false,
+      Arrays.copyOf(indices, count), payloads);
+  }
+
+  /**
+   * Captures every tile of a raster, so the delta restores that state whatever the layer holds
+   * by then. Tiles stay shared with the raster until they are compressed.
+   *
+   * @param state the state to keep
+   * @return a delta holding the whole state
+   */
+  public static TileDelta capture(Raster state) {
+    return whole(state);
+  }
+
+  /**
+   * Builds a delta from the pre-images a raster kept while recording.
+   *
+   * @param raster    the raster that recorded them
+   * @param preImages pre-images by tile index, as returned by {@link Raster#stopRecording()}
+   * @param whole     whether to capture every tile, using the raster's current pixels where no
+   *                  pre-image was kept, e.g. because the raster is being replaced
+   * @return the delta that returns the raster to its state when recording started
+   */
+  static TileDelta recorded(Raster raster, int[][] preImages, boolean whole) {
+    int tiles = raster.tileCount();
+    int[] indices = new int[tiles];
+    Object[] payloads = new Object[tiles];
+    int count = 0;
+    for (int i = 0; i < tiles; i++) {
+      int[] preImage = preImages != null ? preImages[i] : null;
+      if (preImage != null) {
+        indices[count] = i;
+        payloads[count++] = preImage;
+      } else if (whole) {
+        indices[count] = i;
+        payloads[count++] = raster.shareTile(i);
+      }
+    }
+    return new TileDelta(raster.getWidth(), raster.getHeight(), whole,
+      Arrays.copyOf(indices, count), Arrays.copyOf(payloads, count));
+  }
+
+  /**
+   * Captures every tile of a raster.
+   */
+  private static TileDelta whole(Raster state) {
+    int[] indices = new int[state.tileCount()];
+    Object[] payloads = new Object[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = i;
+      payloads[i] = state.shareTile(i);
+    }
+    return new TileDelta(state.getWidth(), state.getHeight(), true, indices, payloads);
+  }
+
+  /**
+   * Puts this delta's tiles into a layer and refreshes only those tiles on screen. A delta that
+   * holds every tile replaces the layer's raster, resizing the canvas if needed.
+   *
+   * @param layer the layer to restore
+   * @return the delta that reverses this application
+   * @throws IllegalStateException if the delta was released, or is partial and the layer has
+   *                               been resized since it was taken
+   */
+  public TileDelta applyTo(RasterLayer layer) {
+    Raster live = layer.getRaster();
+    if (whole) {
+      TileDelta inverse = whole(live);
+      Raster restored = Raster.withoutTiles(width, height);
+      for (int i = 0; i < indices.length; i++) {
+        restoreTile(restored, i);
+      }
+      layer.setRaster(restored);
+      return inverse;
+    }
+
+    if (live.getWidth() != width || live.getHeight() != height) {
+      throw new IllegalStateException("Layer was resized since the delta was taken");
+    }
+    Object[] replaced = new Object[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      replaced[i] = live.shareTile(indices[i]);
+      restoreTile(live, i);
+    }
+    layer.refresh();
+    return new TileDelta(width, height, false, indices.clone(), replaced);
+  }
+
+  /**
+   * Builds the state this delta restores as a raster of its own, leaving the layer alone. Tiles
+   * the delta does not hold are shared with {@code current}, so the result costs only references
+   * until either side is written to.
+   *
+   * @param current the raster the delta was taken from
+   * @return a raster holding the restored state
+   * @throws IllegalStateException if the delta was released, or is partial and {@code current}
+   *                               has a different size
+   */
+  public Raster stateBefore(Raster current) {
+    Raster state;
+    if (whole) {
+      state = Raster.withoutTiles(width, height);
+    } else if (current.getWidth() != width || current.getHeight() != height) {
+      throw new IllegalStateException("Layer was resized since the delta was taken");
+    } else {
+      state = current.copy();
+    }
+    for (int i = 0; i < indices.length; i++) {
+      restoreTile(state, i);
+    }
+    state.clearDirty();
+    return state;
+  }
+
+  /**
+   * @return the number of tiles held
+   */
+  public int getTileCount() {
+    return indices.length;
+  }
+
+  /**
+   * @return heap bytes taken by the held tiles, compressed or not
+   */
+  public synchronized long getResidentBytes() {
+    long bytes = 0;
+    for (Object payload : payloads) {
+      if (payload instanceof int[] pixels) {
+        bytes += (long) pixels.length * Integer.BYTES;
+      } else if (payload instanceof byte[] packed) {
+        bytes += packed.length;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * @return bytes of this delta held in a {@link TileSpillFile}
+   */
+  public synchronized long getSpilledBytes() {
+    long bytes = 0;
+    for (Object payload : payloads) {
+      if (payload instanceof TileSpillFile.Slot slot) {
+        bytes += slot.length();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * @return whether any tile that is not uniform is still held uncompressed
+   */
+  public synchronized boolean hasRawTiles() {
+    for (Object payload : payloads) {
+      if (payload instanceof int[] pixels && !Raster.isUniform(pixels)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Deflates every uncompressed tile. The expensive part runs outside the lock, so the delta can
+   * be applied meanwhile.
+   */
+  public void compress() {
+    Object[] snapshot;
+    synchronized (this) {
+      if (released) {
+        return;
+      }
+      snapshot = payloads.clone();
+    }
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      for (int i = 0; i < snapshot.length; i++) {
+        if (snapshot[i] instanceof int[] pixels && !Raster.isUniform(pixels)) {
+          byte[] packed = deflate(deflater, pixels);
+          synchronized (this) {
+            if (released) {
+              return;
+            }
+            if (payloads[i] == pixels) {
+              payloads[i] = packed;
+            }
+          }
+        }
+      }
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Compresses the delta and moves its tiles out of the heap into a scratch file.
+   *
+   * @param file the file to write to; a delta only ever spills to one file
+   * @throws IOException if the file cannot be written; tiles written so far stay spilled
+   */
+  public void spill(TileSpillFile file) throws IOException {
+    compress();
+    synchronized (this) {
+      if (released) {
+        return;
+      }
+      if (spillFile != null && spillFile != file) {
+        throw new IllegalArgumentException("Delta already spilled to another file");
+      }
+      spillFile = file;
+      for (int i = 0; i < payloads.length; i++) {
+        if (payloads[i] instanceof byte[] packed) {
+          payloads[i] = file.write(packed);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drops the held tiles and frees their space in the scratch file. The delta cannot be applied
+   * afterwards.
+   */
+  public synchronized void release() {
+    if (released) {
+      return;
+    }
+    released = true;
+    for (Object payload : payloads) {
+      if (payload instanceof TileSpillFile.Slot slot) {
+        spillFile.free(slot);
+      }
+    }
+    Arrays.fill(payloads, null);
+  }
+
+  /**
+   * Writes one held tile into a raster, inflating it if needed.
+   */
+  private void restoreTile(Raster target, int i) {
+    Object payload;
+    synchronized (this) {
+      if (released) {
+        throw new IllegalStateException("Delta was released");
+      }
+      payload = payloads[i];
+    }
+    if (payload instanceof int[] pixels) {
+      target.adoptTile(indices[i], pixels, true);
+    } else if (payload instanceof byte[] packed) {
+      target.adoptTile(indices[i], inflate(packed), false);
+    } else {
+      target.adoptTile(indices[i], inflate(spillFile.read((TileSpillFile.Slot) payload)), false);
+    }
+  }
+
+  private static byte[] deflate(Deflater deflater, int[] pixels) {
+    ByteBuffer raw = ByteBuffer.allocate(RAW_TILE_BYTES);
+    raw.asIntBuffer().put(pixels);
+    deflater.reset();
+    deflater.setInput(raw.array());
+    deflater.finish();
+
+    byte[] out = new byte[4096];
+    int length = 0;
+    while (!deflater.finished()) {
+      if (length == out.length) {
+        out = Arrays.copyOf(out, out.length * 2);
+      }
+      length += deflater.deflate(out, length, out.length - length);
+    }
+    return Arrays.copyOf(out, length);
+  }
+
+  private static int[] inflate(byte[] packed) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(packed);
+      byte[] raw = new byte[RAW_TILE_BYTES];
+      int length = 0;
+      while (length < raw.length && !inflater.finished()) {
+        int read = inflater.inflate(raw, length, raw.length - length);
+        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("Truncated undo tile");
+        }
+        length += read;
+      }
+      int[] pixels = new int[Raster.TILE_SIZE * Raster.TILE_SIZE];
+      ByteBuffer.wrap(raw).asIntBuffer().get(pixels);
+      return pixels;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt undo tile", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
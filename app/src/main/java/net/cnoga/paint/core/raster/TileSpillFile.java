@@ -0,0 +1,163 @@
+package net.cnoga.paint.core.raster;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A memory-mapped scratch file that holds compressed tiles evicted from memory.
+ *
+ * <p>The file is split into fixed-size segments, each mapped on its own. Blobs are appended to the
+ * current segment; a segment whose blobs have all been freed is unmapped and reused, so the file
+ * only grows while evicted data is actually alive. The operating system pages the mapped data in
+ * and out, which keeps it off the Java heap.</p>
+ *
+ * <p>The file is deleted when closed or when the JVM exits. All methods are thread-safe.</p>
+ */
+public final class TileSpillFile implements AutoCloseable {
+
+  /** Size of one mapped segment in bytes. */
+  private static final int SEGMENT_SIZE = 64 << 20;
+
+  private final FileChannel channel;
+
+  /** Mapped segments by index; {@code null} for segments not currently in use. */
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+  /** Bytes still referenced in each segment. */
+  private final List<Integer> live = new ArrayList<>();
+
+  /** Indices of segments that were emptied and can be mapped again. */
+  private final Deque<Integer> free = new ArrayDeque<>();
+
+  /** Segment new blobs are appended to, or {@code -1} before the first write. */
+  private int current = -1;
+
+  /** Total bytes referenced across all segments. */
+  private long used;
+
+  /**
+   * Creates the scratch file in the default temporary directory.
+   *
+   * @throws IOException if the file cannot be created
+   */
+  public TileSpillFile() throws IOException {
+    Path path = Files.createTempFile("paint-undo", ".tiles");
+    path.toFile().deleteOnExit();
+    this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+      StandardOpenOption.DELETE_ON_CLOSE);
+  }
+
+  /**
+   * Copies a blob into the file.
+   *
+   * @param data the bytes to store, at most one segment long
+   * @return where the blob was stored
+   * @throws IOException if the file cannot grow
+   */
+  synchronized Slot write(byte[] data) throws IOException {
+    if (data.length > SEGMENT_SIZE) {
+      throw new IllegalArgumentException("Blob larger than a segment: " + data.length);
+    }
+    if (current < 0 || segments.get(current).remaining() < data.length) {
+      current = mapSegment();
+    }
+    MappedByteBuffer segment = segments.get(current);
+    int offset = segment.position();
+    segment.put(data);
+    live.set(current, live.get(current) + data.length);
+    used += data.length;
+    return new Slot(current, offset, data.length);
+  }
+
+  /**
+   * Reads a blob back.
+   *
+   * @param slot where the blob was stored
+   * @return a copy of the blob's bytes
+   */
+  synchronized byte[] read(Slot slot) {
+    byte[] data = new byte[slot.length()];
+    segments.get(slot.segment()).get(slot.offset(), data);
+    return data;
+  }
+
+  /**
+   * Releases a blob's space. A segment is recycled once all of its blobs are released.
+   *
+   * @param slot where the blob was stored
+   */
+  synchronized void free(Slot slot) {
+    int index = slot.segment();
+    int remaining = live.get(index) - slot.length();
+    live.set(index, remaining);
+    used -= slot.length();
+    if (remaining == 0 && index != current) {
+      segments.set(index, null);
+      free.push(index);
+    }
+  }
+
+  /**
+   * @return bytes currently stored in the file
+   */
+  public synchronized long getUsedBytes() {
+    return used;
+  }
+
+  /**
+   * Unmaps and deletes the file. Slots handed out earlier become invalid.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    segments.clear();
+    channel.close();
+  }
+
+  /**
+   * Maps a fresh segment, reusing an emptied one if there is any.
+   *
+   * @return the segment's index
+   */
+  private int mapSegment() throws IOException {
+    if (current >= 0 && live.get(current) == 0) {
+      // Nothing in the full segment is alive anymore; start it over.
+      segments.get(current).clear();
+      return current;
+    }
+
+    // A segment left behind stays mapped until free() releases its last blob.
+    Integer reused = free.poll();
+    int index = reused != null ? reused : segments.size();
+    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE,
+      (long) index * SEGMENT_SIZE, SEGMENT_SIZE);
+    if (reused != null) {
+      segments.set(index, segment);
+      live.set(index, 0);
+    } else {
+      segments.add(segment);
+      live.add(0);
+    }
+    return index;
+  }
+
+  /**
+   * Location of a blob in the file.
+   *
+   * @param segment index of the segment holding it
+   * @param offset  byte offset within the segment
+   * @param length  length in bytes
+   */
+  record Slot(int segment, int offset, int length) {
+
+  }
+}
@@ -0,0 +1,27 @@
+/**
+ * Pixel storage for workspace layers.
+ *
+ * <ul>
+ *   <li>{@link net.cnoga.paint.core.raster.Raster} - a layer's pixels as a grid of ARGB tiles,
+ *   with dirty-tile tracking and copy-on-write sharing between copies.</li>
+ *   <li>{@link net.cnoga.paint.core.raster.RasterLayer} - keeps a raster and the canvas that
+ *   displays it in step.</li>
+ *   <li>{@link net.cnoga.paint.core.raster.RasterImages} - conversions to and from JavaFX and AWT
+ *   images.</li>
+ *   <li>{@link net.cnoga.paint.core.raster.PixelRect} and
+ *   {@link net.cnoga.paint.core.raster.DirtyRegion} - the areas a change touched, kept as a few
+ *   merged rectangles.</li>
+ *   <li>{@link net.cnoga.paint.core.raster.TileDelta} - the tiles two states of a layer differ in,
+ *   as kept by undo history, and {@link net.cnoga.paint.core.raster.TileSpillFile}, the scratch
+ *   file old deltas are evicted to.</li>
+ *   <li>{@link net.cnoga.paint.core.raster.RasterBrush} - erasing and fading written straight
+ *   into a raster, one span per row.</li>
+ *   <li>{@link net.cnoga.paint.core.raster.PixelBufferPool} - scratch arrays and images reused
+ *   by reads that only need them for a moment.</li>
+ * </ul>
+ *
+ * <p>The raster is the source of truth for a layer's pixels; canvases are a display cache. Reads
+ * (undo, save, the dropper, selections, the web snapshot, transforms) go to the raster and cost
+ * O(touched tiles) instead of a full-frame GPU readback.</p>
+ */
+package net.cnoga.paint.core.raster;
@@ -0,0 +1,117 @@
+package net.cnoga.paint.core.tool;
+
+import static net.cnoga.paint.core.util.LineUtil.drawCapsule;
+import static net.cnoga.paint.core.util.LineUtil.roundLineCap;
+
+import java.util.Objects;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.events.response.ColorChangedEvent;
+import net.cnoga.paint.core.bus.events.response.WidthChangedEvent;
+import net.cnoga.paint.core.raster.PixelBufferPool;
+import net.cnoga.paint.core.raster.PixelRect;
+
+/**
+ * A simple freehand paintbrush tool that draws continuous strokes following the mouse cursor, using
+ * the currently selected color and width.
+ *
+ * <p>Each segment of a stroke is rendered as one round-capped capsule, so strokes stay smooth
+ * and cost one draw call per mouse event.</p>
+ *
+ * <p>Listens to {@link ColorChangedEvent} and {@link WidthChangedEvent}
+ * events on the event bus to update its color and stroke width dynamically.</p>
+ */
+@EventBusSubscriber
+public class BrushTool extends Tool implements ColorCapability, WidthCapability {
+
+  private double lastX, lastY;
+
+  /**
+   * Bounds of the stroke centre line in progress. Padded by the brush radius, they are all that
+   * gets snapshotted, composited onto the main layer and cleared when the stroke ends.
+   */
+  private double minX, minY, maxX, maxY;
+
+  /**
+   * Pooled snapshot of the last finished stroke. The main canvas reads it when it next renders,
+   * so it goes back to the pool when the next stroke starts rather than right after drawing.
+   */
+  private WritableImage lastSnapshot;
+
+  public BrushTool() {
+    super.name = "Paintbrush";
+    super.helpInfo = "[Paintbrush] Left click to draw with the selected color.";
+    super.isReplayable = true;
+    super.isStroke = true;
+    super.iconPath = Objects.requireNonNull(getClass()
+        .getResource("/net/cnoga/paint/icons/tools/brush.png"))
+      .toExternalForm();
+  }
+
+  @Override
+  public void onMousePressed(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
+    lastX = x;
+    lastY = y;
+    minX = maxX = x;
+    minY = maxY = y;
+    PixelBufferPool.shared().release(lastSnapshot);
+    lastSnapshot = null;
+
+    effects_gc.setFill(Tool.getCurrentColor());
+    roundLineCap(effects_gc, Tool.getCurrentWidth(), x, y);
+  }
+
+  @Override
+  public void onMouseDragged(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
+    drawCapsule(effects_gc, Tool.getCurrentWidth(), lastX, lastY, x, y);
+    extendStroke(x, y);
+    lastX = x;
+    lastY = y;
+  }
+
+  @Override
+  public void onMouseReleased(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
+    // Finish the stroke on effects layer
+    drawCapsule(effects_gc, Tool.getCurrentWidth(), lastX, lastY, x, y);
+    extendStroke(x, y);
+
+    // Only the stroke's bounds, padded by the brush radius, hold anything to commit
+    PixelRect bounds = PixelRect.covering(minX, minY, maxX, maxY, Tool.getCurrentWidth() / 2.0 + 1)
+      .clip((int) effects_gc.getCanvas().getWidth(), (int) effects_gc.getCanvas().getHeight());
+    if (bounds.isEmpty()) {
+      return;
+    }
+    double bx = bounds.x();
+    double by = bounds.y();
+    double bw = bounds.width();
+    double bh = bounds.height();
+
+    // Prepare a transparent snapshot of just that region
+    SnapshotParameters params = new SnapshotParameters();
+    params.setFill(Color.TRANSPARENT);  // Preserve transparency
+    params.setViewport(new Rectangle2D(bx, by, bw, bh));
+    lastSnapshot = PixelBufferPool.shared().leaseImage(bounds.width(), bounds.height());
+
+    effects_gc.getCanvas().snapshot(params, lastSnapshot);
+
+    // Draw onto base without destroying underlying pixels; the leased image may be larger
+    gc.drawImage(lastSnapshot, 0, 0, bw, bh, bx, by, bw, bh);
+
+    // Clear effects for next stroke
+    effects_gc.clearRect(bx, by, bw, bh);
+
+    markPainted(bx, by, bx + bw, by + bh, 0);
+  }
+
+  /** Grows the stroke bounds to include a point. */
+  private void extendStroke(double x, double y) {
+    minX = Math.min(minX, x);
+    minY = Math.min(minY, y);
+    maxX = Math.max(maxX, x);
+    maxY = Math.max(maxY, y);
+  }
+}
@@ -2,16 +2,17 @@ package net.cnoga.paint.core.tool;
 
 import java.util.Objects;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.WritableImage;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.events.request.PickColorRequest;
 import net.cnoga.paint.core.bus.events.response.ColorChangedEvent;
 
 /**
  * A tool for selecting colors from the canvas.
  * <p>
  * The {@code DropperTool} allows the user to pick a color by clicking on any pixel of the canvas.
- * The selected color is broadcasted via a {@link ColorChangedEvent} on the event bus.
+ * The selected color is broadcasted via a {@link ColorChangedEvent} on the event bus. The pixel is
+ * looked up in the workspace's raster through a {@link PickColorRequest}, so picking never
+ * snapshots the canvas.
  */
 @EventBusSubscriber
 public class DropperTool extends Tool {
@@ -25,6 +26,7 @@ public class DropperTool extends Tool {
     super.iconPath = Objects.requireNonNull(getClass()
         .getResource("/net/cnoga/paint/icons/tools/dropper.png"))
       .toExternalForm();
+    super.isMutator = false;
   }
 
   /**
@@ -37,7 +39,7 @@ public class DropperTool extends Tool {
    */
   @Override
   public void onMousePressed(GraphicsContext gc, GraphicsContext effectsGc, double x, double y) {
-    pickColor(gc, x, y);
+    pickColor(x, y);
   }
 
   /**
@@ -50,24 +52,17 @@ public class DropperTool extends Tool {
    */
   @Override
   public void onMouseReleased(GraphicsContext gc, GraphicsContext effectsGc, double x, double y) {
-    pickColor(gc, x, y);
+    pickColor(x, y);
   }
 
   /**
-   * Captures the canvas at the given coordinates and posts a {@link ColorChangedEvent} with the
-   * detected color.
+   * Asks for the color at the given coordinates, which is answered with a
+   * {@link ColorChangedEvent}.
    *
-   * @param gc the graphics context whose canvas is sampled
-   * @param x  x-coordinate of the pixel
-   * @param y  y-coordinate of the pixel
+   * @param x x-coordinate of the pixel
+   * @param y y-coordinate of the pixel
    */
-  private void pickColor(GraphicsContext gc, double x, double y) {
-    WritableImage snapshot = gc.getCanvas().snapshot(null, null);
-    PixelReader reader = snapshot.getPixelReader();
-    if (reader != null &&
-      x >= 0 && x < snapshot.getWidth() &&
-      y >= 0 && y < snapshot.getHeight()) {
-      bus.post(new ColorChangedEvent(reader.getColor((int) x, (int) y)));
-    }
+  private void pickColor(double x, double y) {
+    bus.post(new PickColorRequest(x, y));
   }
 }
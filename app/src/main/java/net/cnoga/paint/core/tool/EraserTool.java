@@ -4,12 +4,16 @@ import java.util.Objects;
 import javafx.scene.canvas.GraphicsContext;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.events.response.WidthChangedEvent;
+import net.cnoga.paint.core.raster.RasterBrush;
+import net.cnoga.paint.core.raster.RasterBrush.Tip;
+import net.cnoga.paint.core.raster.RasterLayer;
 
 /**
  * A tool for erasing pixels from the canvas.
  * <p>
  * The {@code EraserTool} allows the user to erase by clicking or dragging across the canvas. The
- * eraser size responds to {@link WidthChangedEvent} updates.
+ * eraser size responds to {@link WidthChangedEvent} updates. Erasing writes straight to the
+ * layer's pixels, clearing the whole area the square sweeps between two mouse positions at once.
  */
 @EventBusSubscriber
 public class EraserTool extends Tool implements WidthCapability {
@@ -26,6 +30,8 @@ public class EraserTool extends Tool implements WidthCapability {
   public EraserTool() {
     super.name = "Eraser";
     super.helpInfo = "[Eraser] Left click to erase pixels.";
+    super.isReplayable = true;
+    super.isStroke = true;
     super.iconPath = Objects.requireNonNull(getClass()
         .getResource("/net/cnoga/paint/icons/tools/eraser.png"))
       .toExternalForm();
@@ -43,7 +49,7 @@ public class EraserTool extends Tool implements WidthCapability {
   public void onMousePressed(GraphicsContext gc, GraphicsContext effectsGc, double x, double y) {
     lastX = x;
     lastY = y;
-    eraseSquare(gc, Tool.getCurrentWidth(), x, y);
+    eraseLine(gc, Tool.getCurrentWidth(), x, y, x, y);
   }
 
   /**
@@ -75,22 +81,11 @@ public class EraserTool extends Tool implements WidthCapability {
   }
 
   /**
-   * Clears a square region centered at the given coordinates.
+   * Erases everything the square eraser passes over between two points, in one pass over the
+   * layer's pixels. The layer reports the changed tiles for redrawing, and undo history keeps
+   * their previous pixels.
    *
-   * @param gc      the graphics context
-   * @param size    the size of the eraser
-   * @param centerX the x-coordinate of the square's center
-   * @param centerY the y-coordinate of the square's center
-   */
-  private void eraseSquare(GraphicsContext gc, double size, double centerX, double centerY) {
-    double half = size / 2.0;
-    gc.clearRect(centerX - half, centerY - half, size, size);
-  }
-
-  /**
-   * Erases a line by repeatedly clearing small squares between two points.
-   *
-   * @param gc   the graphics context
+   * @param gc   the graphics context of the layer to erase from
    * @param size the size of the eraser
    * @param x0   starting x-coordinate
    * @param y0   starting y-coordinate
@@ -99,16 +94,9 @@ public class EraserTool extends Tool implements WidthCapability {
    */
   private void eraseLine(GraphicsContext gc, double size, double x0, double y0, double x1,
     double y1) {
-    double dx = x1 - x0;
-    double dy = y1 - y0;
-    double distance = Math.hypot(dx, dy);
-    int steps = (int) distance;
-
-    for (int i = 0; i <= steps; i++) {
-      double t = (steps == 0) ? 0.0 : (double) i / steps;
-      double x = x0 + t * dx;
-      double y = y0 + t * dy;
-      eraseSquare(gc, size, x, y);
+    RasterLayer layer = RasterLayer.of(gc.getCanvas());
+    if (layer != null) {
+      layer.paint(raster -> RasterBrush.clearSwept(raster, Tip.SQUARE, size, x0, y0, x1, y1));
     }
   }
-}
\ No newline at end of file
+}
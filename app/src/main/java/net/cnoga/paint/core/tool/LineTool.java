@@ -1,6 +1,6 @@
 package net.cnoga.paint.core.tool;
 
-import static net.cnoga.paint.core.util.LineUtil.drawLineWithCircles;
+import static net.cnoga.paint.core.util.LineUtil.drawCapsule;
 
 import java.util.Objects;
 import javafx.scene.canvas.GraphicsContext;
@@ -25,12 +25,16 @@ public class LineTool extends Tool implements ColorCapability, WidthCapability {
   /** Starting y-coordinate of the line while drawing. */
   private double startY;
 
+  /** Where the preview line was drawn last. */
+  private final PreviewArea preview = new PreviewArea();
+
   /**
    * Creates a new LineTool and initializes its name, help text, and icon.
    */
   public LineTool() {
     super.name = "Line";
     super.helpInfo = "[Line] Click and hold to draw a line.";
+    super.isReplayable = true;
     super.iconPath = Objects.requireNonNull(getClass()
         .getResource("/net/cnoga/paint/icons/tools/line.png"))
       .toExternalForm();
@@ -41,26 +45,26 @@ public class LineTool extends Tool implements ColorCapability, WidthCapability {
     gc.setFill(Tool.getCurrentColor());
     startX = x;
     startY = y;
+    preview.clearAll(effects_gc);
   }
 
   @Override
   public void onMouseDragged(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
     // Clear previous preview
-    effects_gc.clearRect(0, 0, effects_gc.getCanvas().getWidth(),
-      effects_gc.getCanvas().getHeight());
+    preview.clear(effects_gc);
 
-    // Setup preview style
-    effects_gc.setStroke(Tool.getCurrentColor());
-    effects_gc.setLineWidth(Tool.getCurrentWidth());
-    effects_gc.strokeLine(startX, startY, x, y);
+    // Preview the same round-capped capsule the release commits, which reaches width / 2
+    effects_gc.setFill(Tool.getCurrentColor());
+    drawCapsule(effects_gc, Tool.getCurrentWidth(), startX, startY, x, y);
+    preview.drawn(startX, startY, x, y, Tool.getCurrentWidth() / 2.0);
   }
 
   @Override
   public void onMouseReleased(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
     // Clear preview
-    effects_gc.clearRect(0, 0, effects_gc.getCanvas().getWidth(),
-      effects_gc.getCanvas().getHeight());
+    preview.clear(effects_gc);
 
-    drawLineWithCircles(gc, Tool.getCurrentWidth(), startX, startY, x, y);
+    drawCapsule(gc, Tool.getCurrentWidth(), startX, startY, x, y);
+    markPainted(startX, startY, x, y, Tool.getCurrentWidth() / 2.0 + 1);
   }
 }
@@ -17,6 +17,7 @@ public final class PaintTools {
   public static final Tool ERASER = new EraserTool();
   public static final Tool SHAPES = new ShapesTool();
   public static final Tool TEXT = new TextTool();
+  public static final Tool SOFT_ERASER = new SoftEraserTool();
   public static final Tool[] ALL_TOOLS = {
     SELECT,
     MOVE,
@@ -26,7 +27,8 @@ public final class PaintTools {
     DROPPER,
     ERASER,
     SHAPES,
-    TEXT
+    TEXT,
+    SOFT_ERASER // appended, since journals refer to tools by position
   };
 
   private PaintTools() {
@@ -0,0 +1,56 @@
+package net.cnoga.paint.core.tool;
+
+import javafx.scene.canvas.GraphicsContext;
+import net.cnoga.paint.core.raster.PixelRect;
+
+/**
+ * Remembers where a tool last drew its preview on the effects layer, so the next frame only has
+ * to clear that area instead of the whole canvas. Rubber-banding then costs in proportion to the
+ * size of the shape, not of the canvas.
+ */
+final class PreviewArea {
+
+  /** Extra pixels cleared around the preview, for antialiased edges. */
+  private static final double SLACK = 2;
+
+  /** Area covered by the preview on screen, or {@code null} if none is. */
+  private PixelRect drawn;
+
+  /**
+   * Clears the whole effects layer, e.g. when a gesture starts and something else may still be
+   * shown there.
+   *
+   * @param effectsGc the effects layer's context
+   */
+  void clearAll(GraphicsContext effectsGc) {
+    effectsGc.clearRect(0, 0, effectsGc.getCanvas().getWidth(),
+      effectsGc.getCanvas().getHeight());
+    drawn = null;
+  }
+
+  /**
+   * Clears the preview drawn last, if any.
+   *
+   * @param effectsGc the effects layer's context
+   */
+  void clear(GraphicsContext effectsGc) {
+    if (drawn != null) {
+      effectsGc.clearRect(drawn.x(), drawn.y(), drawn.width(), drawn.height());
+      drawn = null;
+    }
+  }
+
+  /**
+   * Records the area a new preview covers, so the next {@link #clear(GraphicsContext)} removes
+   * it.
+   *
+   * @param x0      one corner's x-coordinate
+   * @param y0      one corner's y-coordinate
+   * @param x1      the opposite corner's x-coordinate
+   * @param y1      the opposite corner's y-coordinate
+   * @param padding how far the preview reaches beyond the corners, e.g. half its line width
+   */
+  void drawn(double x0, double y0, double x1, double y1, double padding) {
+    drawn = PixelRect.covering(x0, y0, x1, y1, padding + SLACK);
+  }
+}
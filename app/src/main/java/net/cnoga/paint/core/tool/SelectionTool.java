@@ -15,6 +15,7 @@ import net.cnoga.paint.core.bus.events.request.SelectionRequest;
 public class SelectionTool extends Tool {
 
   private double startX, startY;
+  private final PreviewArea preview = new PreviewArea();
 
   public SelectionTool() {
     super.name = "Selection";
@@ -29,6 +30,7 @@ public class SelectionTool extends Tool {
   public void onMousePressed(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
     startX = x;
     startY = y;
+    preview.clearAll(effects_gc);
   }
 
   @Override
@@ -36,13 +38,13 @@ public class SelectionTool extends Tool {
     double oldWidth = effects_gc.getLineWidth();
     Color oldColor = (Color) effects_gc.getStroke();
 
-    effects_gc.clearRect(0, 0, effects_gc.getCanvas().getWidth(),
-      effects_gc.getCanvas().getHeight());
+    preview.clear(effects_gc);
     effects_gc.setLineDashes(5);
     effects_gc.setStroke(Color.BLACK);
     effects_gc.setLineWidth(1);
     effects_gc.strokeRect(Math.min(x, startX), Math.min(y, startY),
       Math.abs(x - startX), Math.abs(y - startY));
+    preview.drawn(startX, startY, x, y, 1);
 
     // Reset state
     effects_gc.setLineDashes(0);
@@ -52,8 +54,7 @@ public class SelectionTool extends Tool {
 
   @Override
   public void onMouseReleased(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
-    effects_gc.clearRect(0, 0, effects_gc.getCanvas().getWidth(),
-      effects_gc.getCanvas().getHeight());
+    preview.clear(effects_gc);
 
     Rectangle2D bounds = new Rectangle2D(
       Math.min(startX, x),
@@ -1,6 +1,7 @@
 package net.cnoga.paint.core.tool;
 
 import java.util.Objects;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.canvas.GraphicsContext;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
@@ -17,11 +18,13 @@ import net.cnoga.paint.core.util.ShapeUtil;
 public class ShapesTool extends Tool implements WidthCapability, ColorCapability {
 
   private double lastX, lastY;
+  private final PreviewArea preview = new PreviewArea();
   private ShapeConfig shapeConfig = new ShapeConfig(ShapeType.RECTANGLE, 8, false);
 
   public ShapesTool() {
     super.name = "Shape";
     super.helpInfo = "[Shape] Left click and drag to draw the selected shape.";
+    super.isReplayable = true;
     super.iconPath = Objects.requireNonNull(getClass()
         .getResource("/net/cnoga/paint/icons/tools/shapes.png"))
       .toExternalForm();
@@ -31,28 +34,34 @@ public class ShapesTool extends Tool implements WidthCapability, ColorCapability
   public void onMousePressed(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
     lastX = x;
     lastY = y;
+    preview.clearAll(effects_gc);
   }
 
   @Override
   public void onMouseDragged(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
     // clear previous preview
-    effects_gc.clearRect(0, 0, effects_gc.getCanvas().getWidth(),
-      effects_gc.getCanvas().getHeight());
+    preview.clear(effects_gc);
 
     // draw preview
     effects_gc.setStroke(Tool.getCurrentColor());
     effects_gc.setLineWidth(Tool.getCurrentWidth());
 
     ShapeUtil.drawShape(effects_gc, lastX, lastY, x, y, shapeConfig);
+    Rectangle2D bounds = ShapeUtil.getBounds(lastX, lastY, x, y, shapeConfig,
+      effects_gc.getLineWidth(), effects_gc.getMiterLimit());
+    preview.drawn(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), 0);
   }
 
   @Override
   public void onMouseReleased(GraphicsContext gc, GraphicsContext effects_gc, double x, double y) {
-    effects_gc.clearRect(0, 0, effects_gc.getCanvas().getWidth(),
-      effects_gc.getCanvas().getHeight());
+    preview.clear(effects_gc);
     gc.setStroke(Tool.getCurrentColor());
     gc.setLineWidth(Tool.getCurrentWidth());
     ShapeUtil.drawShape(gc, lastX, lastY, x, y, shapeConfig);
+
+    Rectangle2D bounds = ShapeUtil.getBounds(lastX, lastY, x, y, shapeConfig,
+      gc.getLineWidth(), gc.getMiterLimit());
+    markPainted(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), 1);
   }
 
   @SubscribeEvent
@@ -61,6 +70,16 @@ public class ShapesTool extends Tool implements WidthCapability, ColorCapability
     this.shapeConfig = evt.shapeConfig();
   }
 
+  @Override
+  protected Object captureSettings() {
+    return shapeConfig;
+  }
+
+  @Override
+  protected void restoreSettings(Object settings) {
+    this.shapeConfig = (ShapeConfig) settings;
+  }
+
   public ShapeConfig getShapeConfig() {
     return shapeConfig;
   }
@@ -0,0 +1,80 @@
+package net.cnoga.paint.core.tool;
+
+import static net.cnoga.paint.core.util.LineUtil.stampAlong;
+
+import java.util.Objects;
+import javafx.scene.canvas.GraphicsContext;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.events.response.WidthChangedEvent;
+import net.cnoga.paint.core.raster.RasterBrush;
+import net.cnoga.paint.core.raster.RasterLayer;
+
+/**
+ * An eraser with a soft round tip that fades pixels out instead of clearing them.
+ * <p>
+ * Round dabs are stamped at even spacing along the stroke; each one lowers alpha most at its
+ * center and not at all at its rim, so going over an area again keeps fading it. The tip size
+ * responds to {@link WidthChangedEvent} updates. Like the {@link EraserTool}, it writes straight
+ * to the layer's pixels.
+ */
+@EventBusSubscriber
+public class SoftEraserTool extends Tool implements WidthCapability {
+
+  /** Share of alpha one dab removes at its center. */
+  private static final double FLOW = 0.2;
+
+  /** Distance between dabs as a share of the tip size. */
+  private static final double SPACING = 0.15;
+
+  private double lastX, lastY;
+
+  /** Distance covered since the last dab, carried from one segment to the next. */
+  private double carry;
+
+  /**
+   * Constructs a new Soft Eraser tool with its icon and help text.
+   */
+  public SoftEraserTool() {
+    super.name = "Soft Eraser";
+    super.helpInfo = "[Soft Eraser] Left click to fade pixels out.";
+    super.isReplayable = true;
+    super.isStroke = true;
+    super.iconPath = Objects.requireNonNull(getClass()
+        .getResource("/net/cnoga/paint/icons/tools/soft_eraser.png"))
+      .toExternalForm();
+  }
+
+  @Override
+  public void onMousePressed(GraphicsContext gc, GraphicsContext effectsGc, double x, double y) {
+    lastX = x;
+    lastY = y;
+    carry = Double.POSITIVE_INFINITY;
+    fadeLine(gc, x, y, x, y);
+  }
+
+  @Override
+  public void onMouseDragged(GraphicsContext gc, GraphicsContext effectsGc, double x, double y) {
+    fadeLine(gc, lastX, lastY, x, y);
+    lastX = x;
+    lastY = y;
+  }
+
+  @Override
+  public void onMouseReleased(GraphicsContext gc, GraphicsContext effectsGc, double x, double y) {
+    fadeLine(gc, lastX, lastY, x, y);
+  }
+
+  /**
+   * Stamps the dabs that fall between two points, all in one write to the layer's pixels.
+   */
+  private void fadeLine(GraphicsContext gc, double x0, double y0, double x1, double y1) {
+    RasterLayer layer = RasterLayer.of(gc.getCanvas());
+    if (layer == null) {
+      return;
+    }
+    double radius = Tool.getCurrentWidth() / 2.0;
+    double spacing = Math.max(1, Tool.getCurrentWidth() * SPACING);
+    layer.paint(raster -> carry = stampAlong(spacing, carry, x0, y0, x1, y1,
+      (x, y) -> RasterBrush.fadeDab(raster, x, y, radius, FLOW)));
+  }
+}
@@ -2,9 +2,11 @@ package net.cnoga.paint.core.tool;
 
 import java.util.Objects;
 import java.util.Optional;
+import javafx.geometry.Bounds;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.text.Font;
+import javafx.scene.text.Text;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.events.response.ColorChangedEvent;
 import net.cnoga.paint.core.bus.events.response.WidthChangedEvent;
@@ -47,9 +49,18 @@ public class TextTool extends Tool implements WidthCapability, ColorCapability {
 
     Optional<String> result = dialog.showAndWait();
     result.ifPresent(text -> {
+      Font font = new Font(Tool.getCurrentWidth() <= 12 ? 12 : Tool.getCurrentWidth());
       gc.setFill(Tool.getCurrentColor());
-      gc.setFont(new Font(Tool.getCurrentWidth() <= 12 ? 12 : Tool.getCurrentWidth()));
+      gc.setFont(font);
       gc.fillText(text, x, y);
+
+      // fillText draws from the baseline; measure the laid-out text to know what it covered
+      Text measure = new Text(text);
+      measure.setFont(font);
+      measure.setTextOrigin(gc.getTextBaseline());
+      Bounds bounds = measure.getLayoutBounds();
+      markPainted(x + bounds.getMinX(), y + bounds.getMinY(), x + bounds.getMaxX(),
+        y + bounds.getMaxY(), 2);
     });
   }
 }
\ No newline at end of file
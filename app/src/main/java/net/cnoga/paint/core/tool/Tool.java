@@ -1,5 +1,7 @@
 package net.cnoga.paint.core.tool;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
@@ -9,6 +11,8 @@ import net.cnoga.paint.core.bus.SubscribeEvent;
 import net.cnoga.paint.core.bus.events.request.SaveStateRequest;
 import net.cnoga.paint.core.bus.events.response.ColorChangedEvent;
 import net.cnoga.paint.core.bus.events.response.WidthChangedEvent;
+import net.cnoga.paint.core.raster.DirtyRegion;
+import net.cnoga.paint.core.raster.PixelRect;
 
 /**
  * Abstract base class for all paint tools.
@@ -18,6 +22,12 @@ import net.cnoga.paint.core.bus.events.response.WidthChangedEvent;
  *
  * <p>Color and width are global across all tools. When changed, all
  * tools see the new values immediately.</p>
+ *
+ * <p>Tools that paint on the main layer report the area they touched with
+ * {@link #markPainted}, so the workspace only has to pick up that area.</p>
+ *
+ * <p>A {@linkplain #isReplayable() replayable} tool's output depends only on its input, so each
+ * use is also kept as a {@link ToolCommand} that undo history can replay.</p>
  */
 @EventBusSubscriber
 public class Tool extends EventBusPublisher {
@@ -38,10 +48,33 @@ public class Tool extends EventBusPublisher {
   /** If the tool actually makes changes. */
   protected Boolean isMutator = true;
 
+  /** If the tool paints the same pixels again when given the same input and settings. */
+  protected Boolean isReplayable = false;
+
+  /** If every drag position shapes the result, not only the latest one (e.g. a brush stroke). */
+  protected Boolean isStroke = false;
+
   /** Path to the tool’s icon resource. */
   protected String iconPath =
     Objects.requireNonNull(getClass().getResource("/net/cnoga/paint/icons/tools/tool.png")).toExternalForm();
 
+  /** Areas of the main layer painted since the last {@link #takePaintedAreas()}. */
+  private final DirtyRegion painted = new DirtyRegion();
+
+  /** Mouse positions of the use in progress as {@code x, y} pairs, or {@code null} if none is. */
+  private double[] points;
+
+  /** Number of coordinates used in {@link #points}. */
+  private int pointCount;
+
+  /** Color, width and settings at the press of the use in progress. */
+  private Color pressColor;
+  private int pressWidth;
+  private Object pressSettings;
+
+  /** The use finished last, until {@link #takeCommand()} picks it up. */
+  private ToolCommand finished;
+
   /** Constructs a new {@code Tool} and registers it on the global event bus. */
   public Tool() {
     bus.register(this);
@@ -97,6 +130,130 @@ public class Tool extends EventBusPublisher {
     return name;
   }
 
+  /**
+   * Returns whether the tool changes pixels, so an undo state is saved when it starts.
+   *
+   * @return {@code true} if the tool draws on the workspace
+   */
+  public boolean isMutator() {
+    return isMutator;
+  }
+
+  /**
+   * Returns whether each use of the tool is recorded as a {@link ToolCommand}.
+   *
+   * @return {@code true} if replaying the tool's input paints the same pixels
+   */
+  public boolean isReplayable() {
+    return isReplayable;
+  }
+
+  /**
+   * Returns whether the tool needs every drag position. Other tools, such as ones that only
+   * preview a shape, are given just the latest position when several arrive within a frame.
+   *
+   * @return {@code true} if the tool draws along the path the mouse takes
+   */
+  public boolean isStroke() {
+    return isStroke;
+  }
+
+  /**
+   * Returns the tool's own settings beyond color and width, for a {@link ToolCommand}. Tools with
+   * such settings override this and {@link #restoreSettings(Object)}.
+   *
+   * @return an immutable snapshot of the settings, or {@code null} if there are none
+   */
+  protected Object captureSettings() {
+    return null;
+  }
+
+  /**
+   * Puts back settings returned by {@link #captureSettings()}.
+   *
+   * @param settings the settings to use
+   */
+  protected void restoreSettings(Object settings) {
+    // no settings by default
+  }
+
+  /**
+   * Returns and forgets the use of the tool finished last, if it was recorded.
+   *
+   * @return the command, or {@code null} if the last release did not finish a replayable use
+   */
+  public ToolCommand takeCommand() {
+    ToolCommand command = finished;
+    finished = null;
+    return command;
+  }
+
+  /**
+   * Drives the tool's hooks with a recorded command's input and settings, then puts the current
+   * settings back.
+   */
+  void replay(ToolCommand command, GraphicsContext gc, GraphicsContext effectsGc) {
+    Color color = currentColor;
+    Integer width = currentWidth;
+    Object settings = captureSettings();
+    currentColor = command.color();
+    currentWidth = command.width();
+    restoreSettings(command.settings());
+    try {
+      double[] xy = command.points();
+      onMousePressed(gc, effectsGc, xy[0], xy[1]);
+      for (int i = 2; i < xy.length - 2; i += 2) {
+        onMouseDragged(gc, effectsGc, xy[i], xy[i + 1]);
+      }
+      onMouseReleased(gc, effectsGc, xy[xy.length - 2], xy[xy.length - 1]);
+    } finally {
+      currentColor = color;
+      currentWidth = width;
+      restoreSettings(settings);
+    }
+  }
+
+  /**
+   * Adds a mouse position to the use in progress, if it is being recorded.
+   */
+  private void recordPoint(double x, double y) {
+    if (points == null) {
+      return;
+    }
+    if (pointCount == points.length) {
+      points = Arrays.copyOf(points, points.length * 2);
+    }
+    points[pointCount++] = x;
+    points[pointCount++] = y;
+  }
+
+  /**
+   * Records that the tool painted on the main layer within the given bounds.
+   *
+   * @param x0      one corner's x-coordinate
+   * @param y0      one corner's y-coordinate
+   * @param x1      the opposite corner's x-coordinate
+   * @param y1      the opposite corner's y-coordinate
+   * @param padding how far paint may reach beyond the bounds, e.g. half the stroke width
+   */
+  protected void markPainted(double x0, double y0, double x1, double y1, double padding) {
+    painted.add(PixelRect.covering(x0, y0, x1, y1, padding));
+  }
+
+  /**
+   * Returns and forgets the areas of the main layer painted since the last call.
+   *
+   * @return the painted areas, possibly empty
+   */
+  public List<PixelRect> takePaintedAreas() {
+    if (painted.isEmpty()) {
+      return List.of();
+    }
+    List<PixelRect> areas = painted.getRects();
+    painted.clear();
+    return areas;
+  }
+
   /**
    * Returns the path to the tool’s icon resource.
    *
@@ -162,10 +319,19 @@ public class Tool extends EventBusPublisher {
    */
   public void handleMousePressed(GraphicsContext gc, GraphicsContext effectsGc, double x,
     double y) {
-    onMousePressed(gc, effectsGc, x, y);
     if (isMutator) {
+      // Cheap: undo only starts recording here; pixels are kept as the tool overwrites them.
       bus.post(new SaveStateRequest());
     }
+    if (isReplayable) {
+      points = new double[64];
+      pointCount = 0;
+      pressColor = currentColor;
+      pressWidth = currentWidth;
+      pressSettings = captureSettings();
+      recordPoint(x, y);
+    }
+    onMousePressed(gc, effectsGc, x, y);
   }
 
   /**
@@ -178,6 +344,7 @@ public class Tool extends EventBusPublisher {
    */
   public void handleMouseDragged(GraphicsContext gc, GraphicsContext effectsGc, double x,
     double y) {
+    recordPoint(x, y);
     onMouseDragged(gc, effectsGc, x, y);
   }
 
@@ -191,6 +358,13 @@ public class Tool extends EventBusPublisher {
    */
   public void handleMouseReleased(GraphicsContext gc, GraphicsContext effectsGc, double x,
     double y) {
+    recordPoint(x, y);
     onMouseReleased(gc, effectsGc, x, y);
+    if (points != null) {
+      finished = new ToolCommand(this, pressColor, pressWidth, pressSettings,
+        Arrays.copyOf(points, pointCount));
+      points = null;
+      pressSettings = null;
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package net.cnoga.paint.core.tool;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * One finished use of a {@link Tool}, kept as its input instead of its pixels.
+ *
+ * <p>Holds what the tool needs to paint the same thing again: the color, width and tool settings
+ * in effect, and the mouse positions from press to release. A stroke costs a few kilobytes this
+ * way, however much of the canvas it covers, which is what lets undo history keep commands
+ * between raster keyframes.</p>
+ *
+ * @param tool     the tool that was used
+ * @param color    the drawing color at the time
+ * @param width    the stroke width at the time
+ * @param settings the tool's own settings, see {@link Tool#captureSettings()}; may be {@code null}
+ * @param points   mouse positions as {@code x, y} pairs; the first is the press, the last the
+ *                 release, and those in between the drags
+ */
+public record ToolCommand(Tool tool, Color color, int width, Object settings, double[] points) {
+
+  /**
+   * Paints the command again. The tool's hooks are called directly, so no undo state is saved
+   * and nothing is recorded; the global color and width are restored afterwards.
+   *
+   * @param gc        the main {@link GraphicsContext} to paint on
+   * @param effectsGc the overlay {@link GraphicsContext} the tool may use while painting
+   */
+  public void replay(GraphicsContext gc, GraphicsContext effectsGc) {
+    tool.replay(this, gc, effectsGc);
+  }
+
+  /**
+   * @return heap bytes taken by the recorded points
+   */
+  public long getSizeBytes() {
+    return (long) points.length * Double.BYTES;
+  }
+}
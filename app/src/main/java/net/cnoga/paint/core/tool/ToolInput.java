@@ -0,0 +1,59 @@
+package net.cnoga.paint.core.tool;
+
+import javafx.scene.canvas.GraphicsContext;
+
+/**
+ * The three mouse phases a {@link Tool} reacts to.
+ *
+ * <p>Lets input be forwarded to a tool, recorded or replayed as data rather than through three
+ * separate calls.</p>
+ */
+public enum ToolInput {
+
+  /** {@link Tool#handleMousePressed}. */
+  PRESSED,
+
+  /** {@link Tool#handleMouseDragged}. */
+  DRAGGED,
+
+  /** {@link Tool#handleMouseReleased}. */
+  RELEASED;
+
+  /**
+   * Delivers this input to a tool.
+   *
+   * @param tool      the tool to drive
+   * @param gc        the main {@link GraphicsContext} for drawing
+   * @param effectsGc the overlay {@link GraphicsContext} for preview or effects
+   * @param x         the x-coordinate of the mouse
+   * @param y         the y-coordinate of the mouse
+   */
+  public void apply(Tool tool, GraphicsContext gc, GraphicsContext effectsGc, double x, double y) {
+    switch (this) {
+      case PRESSED -> tool.handleMousePressed(gc, effectsGc, x, y);
+      case DRAGGED -> tool.handleMouseDragged(gc, effectsGc, x, y);
+      case RELEASED -> tool.handleMouseReleased(gc, effectsGc, x, y);
+    }
+  }
+
+  /**
+   * Observes tool input as it is delivered, e.g. to record it.
+   */
+  public interface Listener {
+
+    /**
+     * Called just before a tool handles an input.
+     *
+     * @param input the mouse phase
+     * @param tool  the tool receiving it
+     * @param x     the x-coordinate of the mouse
+     * @param y     the y-coordinate of the mouse
+     */
+    void toolInputStarted(ToolInput input, Tool tool, double x, double y);
+
+    /**
+     * Called once the tool has handled the input, including any events it posted.
+     */
+    void toolInputFinished();
+  }
+}
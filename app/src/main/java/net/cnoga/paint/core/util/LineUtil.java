@@ -0,0 +1,189 @@
+package net.cnoga.paint.core.util;
+
+import java.util.Arrays;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.shape.StrokeLineCap;
+
+
+/**
+ * Provides low-level line and stroke rendering helpers.
+ *
+ * <p>Handles drawing between points, calculating stroke intersections,
+ * and general line geometry for canvas operations.</p>
+ */
+public final class LineUtil {
+
+  /**
+   * Utility class; not meant to be instantiated.
+   */
+  private LineUtil() {
+    // Prevent instantiation
+  }
+
+  /**
+   * Caps off lines with a circle.
+   *
+   * @param gc           the {@link GraphicsContext} to draw on
+   * @param currentWidth the diameter of the circle (usually stroke width)
+   * @param x            the x-coordinate of the circle’s center
+   * @param y            the y-coordinate of the circle’s center
+   */
+  public static void roundLineCap(GraphicsContext gc, double currentWidth, double x, double y) {
+    double r = currentWidth / 2;
+    gc.fillOval(x - r, y - r, currentWidth, currentWidth);
+  }
+
+  /**
+   * Draws a line between two points as one capsule: the area every circle of the given width
+   * centered on the segment covers, the same shape stamping circles along it gives. Filled with
+   * the context's current fill in a single stroke call, however long the segment is.
+   *
+   * @param gc           the {@link GraphicsContext} to draw on
+   * @param currentWidth the thickness of the line
+   * @param x0           the starting x-coordinate
+   * @param y0           the starting y-coordinate
+   * @param x1           the ending x-coordinate
+   * @param y1           the ending y-coordinate
+   */
+  public static void drawCapsule(GraphicsContext gc, double currentWidth,
+    double x0, double y0, double x1, double y1) {
+    if (x0 == x1 && y0 == y1) {
+      roundLineCap(gc, currentWidth, x0, y0);
+      return;
+    }
+    gc.save();
+    gc.setStroke(gc.getFill());
+    gc.setLineWidth(currentWidth);
+    gc.setLineCap(StrokeLineCap.ROUND);
+    gc.setLineDashes();
+    gc.strokeLine(x0, y0, x1, y1);
+    gc.restore();
+  }
+
+  /**
+   * Places dabs along a segment at a fixed spacing, carrying the leftover distance over to the
+   * next segment so dabs stay evenly spaced across a whole stroke however it is split up.
+   *
+   * @param spacing distance between dab centers, positive
+   * @param carry   distance already covered towards the next dab, as returned for the previous
+   *                segment; {@code spacing} to place a dab at the start
+   * @param x0      the starting x-coordinate
+   * @param y0      the starting y-coordinate
+   * @param x1      the ending x-coordinate
+   * @param y1      the ending y-coordinate
+   * @param dab     called with the center of each dab
+   * @return the distance covered towards the next dab, to pass as {@code carry} next time
+   */
+  public static double stampAlong(double spacing, double carry,
+    double x0, double y0, double x1, double y1, Dab dab) {
+    double dx = x1 - x0;
+    double dy = y1 - y0;
+    double distance = Math.hypot(dx, dy);
+    double next = spacing - Math.min(carry, spacing);
+    if (distance == 0) {
+      if (next == 0) {
+        dab.at(x0, y0);
+        return 0;
+      }
+      return carry;
+    }
+    for (double d = next; d <= distance; d += spacing) {
+      double t = d / distance;
+      dab.at(x0 + t * dx, y0 + t * dy);
+      next = d + spacing;
+    }
+    return spacing - (next - distance);
+  }
+
+  /**
+   * Simplifies a polyline with the Ramer-Douglas-Peucker algorithm: drops every point that lies
+   * within {@code tolerance} of the segment between the points kept around it. Distances are
+   * measured to the segment rather than the line through it, so a stroke that doubles back keeps
+   * its turning point. The first and last point are always kept.
+   *
+   * @param xy        points as {@code x, y} pairs
+   * @param count     number of coordinates of {@code xy} to use, twice the number of points
+   * @param tolerance largest distance a dropped point may have from the simplified line
+   * @return the kept points as {@code x, y} pairs, in their original order
+   */
+  public static double[] simplify(double[] xy, int count, double tolerance) {
+    int points = count / 2;
+    if (points <= 2) {
+      return Arrays.copyOf(xy, count);
+    }
+    boolean[] keep = new boolean[points];
+    keep[0] = true;
+    keep[points - 1] = true;
+
+    // Pending ranges as (first, last) point indices, so long strokes cannot overflow the stack
+    int[] ranges = new int[2 * points];
+    int top = 0;
+    ranges[top++] = 0;
+    ranges[top++] = points - 1;
+    int kept = 2;
+    while (top > 0) {
+      int last = ranges[--top];
+      int first = ranges[--top];
+      int farthest = -1;
+      double farthestDistance = tolerance;
+      for (int i = first + 1; i < last; i++) {
+        double d = distanceToSegment(xy, i, first, last);
+        if (d > farthestDistance) {
+          farthest = i;
+          farthestDistance = d;
+        }
+      }
+      if (farthest >= 0) {
+        keep[farthest] = true;
+        kept++;
+        ranges[top++] = first;
+        ranges[top++] = farthest;
+        ranges[top++] = farthest;
+        ranges[top++] = last;
+      }
+    }
+
+    double[] out = new double[2 * kept];
+    int n = 0;
+    for (int i = 0; i < points; i++) {
+      if (keep[i]) {
+        out[n++] = xy[2 * i];
+        out[n++] = xy[2 * i + 1];
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Distance of point {@code i} from the segment between points {@code a} and {@code b}: to the
+   * nearest endpoint if its projection falls outside the segment, or to {@code a} if they
+   * coincide.
+   */
+  private static double distanceToSegment(double[] xy, int i, int a, int b) {
+    double ax = xy[2 * a];
+    double ay = xy[2 * a + 1];
+    double dx = xy[2 * b] - ax;
+    double dy = xy[2 * b + 1] - ay;
+    double px = xy[2 * i] - ax;
+    double py = xy[2 * i + 1] - ay;
+    double lengthSquared = dx * dx + dy * dy;
+    if (lengthSquared == 0) {
+      return Math.hypot(px, py);
+    }
+    double t = Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+    return Math.hypot(px - t * dx, py - t * dy);
+  }
+
+  /**
+   * Draws one dab of a stamped stroke.
+   */
+  @FunctionalInterface
+  public interface Dab {
+
+    /**
+     * @param x the x-coordinate of the dab's center
+     * @param y the y-coordinate of the dab's center
+     */
+    void at(double x, double y);
+  }
+}
@@ -1,5 +1,6 @@
 package net.cnoga.paint.core.util;
 
+import javafx.geometry.Rectangle2D;
 import javafx.scene.canvas.GraphicsContext;
 
 /**
@@ -65,6 +66,48 @@ public final class ShapeUtil {
     }
   }
 
+  /**
+   * Computes the area {@link #drawShape} paints, including the stroke.
+   *
+   * @param x0         the first x-coordinate (corner of bounding box)
+   * @param y0         the first y-coordinate (corner of bounding box)
+   * @param x1         the second x-coordinate (opposite corner of bounding box)
+   * @param y1         the second y-coordinate (opposite corner of bounding box)
+   * @param config     the {@link ShapeConfig} describing type and properties
+   * @param lineWidth  the stroke width
+   * @param miterLimit the graphics context's miter limit, which bounds how far sharp corners reach
+   * @return the painted bounds
+   */
+  public static Rectangle2D getBounds(double x0, double y0, double x1, double y1,
+    ShapeConfig config, double lineWidth, double miterLimit) {
+    double left = Math.min(x0, x1);
+    double top = Math.min(y0, y1);
+    double width = Math.abs(x1 - x0);
+    double height = Math.abs(y1 - y0);
+    double side = Math.max(width, height);
+
+    double padding;
+    switch (config.type()) {
+      case SQUARE, CIRCLE -> {
+        width = side;
+        height = side;
+        padding = lineWidth * Math.sqrt(2) / 2;
+      }
+      case DONUT -> {
+        left += (width - side) / 2;
+        top += (height - side) / 2;
+        width = side;
+        height = side;
+        padding = lineWidth / 2;
+      }
+      case RECTANGLE -> padding = lineWidth * Math.sqrt(2) / 2;
+      case ELLIPSE -> padding = lineWidth / 2;
+      default -> padding = lineWidth * Math.max(miterLimit, 1) / 2; // sharp polygon corners
+    }
+    return new Rectangle2D(left - padding, top - padding, width + 2 * padding,
+      height + 2 * padding);
+  }
+
   public static void drawRegularPolygon(GraphicsContext gc,
     double x0, double y0, double x1, double y1,
     int sides) {
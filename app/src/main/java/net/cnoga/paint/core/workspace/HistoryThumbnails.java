@@ -0,0 +1,76 @@
+package net.cnoga.paint.core.workspace;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import net.cnoga.paint.core.raster.Raster;
+
+/**
+ * Renders the small pictures the history panel shows for each undo state.
+ *
+ * <p>The layers are handed over as copy-on-write {@link Raster#copy() copies}, which cost the FX
+ * thread only a few references; sampling and compositing them runs on a background thread, and
+ * the finished image is handed back on the FX thread.</p>
+ */
+final class HistoryThumbnails {
+
+  /** Longest side of a thumbnail in pixels. */
+  static final int SIZE = 64;
+
+  /** Renders thumbnails, one at a time. */
+  private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "HistoryThumbnails");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private HistoryThumbnails() {
+  }
+
+  /**
+   * Renders a thumbnail in the background.
+   *
+   * @param layers copies of the layers, bottom first; nothing else may write to them
+   * @param done   receives the thumbnail on the FX thread
+   */
+  static void render(List<Raster> layers, Consumer<Image> done) {
+    RENDERER.execute(() -> {
+      Image image = draw(layers);
+      Platform.runLater(() -> done.accept(image));
+    });
+  }
+
+  /**
+   * Samples every layer at thumbnail size and composites them bottom first.
+   */
+  private static Image draw(List<Raster> layers) {
+    Raster bottom = layers.get(0);
+    double scale = Math.min(1.0,
+      (double) SIZE / Math.max(bottom.getWidth(), bottom.getHeight()));
+    int w = Math.max(1, (int) Math.round(bottom.getWidth() * scale));
+    int h = Math.max(1, (int) Math.round(bottom.getHeight() * scale));
+
+    Raster thumbnail = new Raster(w, h);
+    int[] samples = new int[w * h];
+    for (Raster layer : layers) {
+      for (int y = 0; y < h; y++) {
+        int sy = Math.min(layer.getHeight() - 1, (int) ((y + 0.5) / scale));
+        for (int x = 0; x < w; x++) {
+          int sx = Math.min(layer.getWidth() - 1, (int) ((x + 0.5) / scale));
+          samples[y * w + x] = layer.getArgb(sx, sy);
+        }
+      }
+      thumbnail.drawPixels(0, 0, w, h, samples, 0, w);
+    }
+
+    thumbnail.getPixels(0, 0, w, h, samples, 0, w);
+    WritableImage image = new WritableImage(w, h);
+    image.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), samples, 0, w);
+    return image;
+  }
+}
@@ -9,6 +9,7 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.paint.Color;
+import net.cnoga.paint.core.bus.DeliveryMode;
 import net.cnoga.paint.core.bus.EventBusPublisher;
 import net.cnoga.paint.core.bus.EventBusSubscriber;
 import net.cnoga.paint.core.bus.SubscribeEvent;
@@ -19,16 +20,21 @@ import net.cnoga.paint.core.bus.events.request.RotateSelectionRequest;
 import net.cnoga.paint.core.bus.events.request.SelectionRequest;
 import net.cnoga.paint.core.bus.events.response.SelectionPastedEvent;
 import net.cnoga.paint.core.bus.events.response.ToolChangedEvent;
+import net.cnoga.paint.core.raster.PixelBufferPool;
+import net.cnoga.paint.core.raster.Raster;
+import net.cnoga.paint.core.raster.RasterImages;
+import net.cnoga.paint.core.raster.RasterLayer;
 import net.cnoga.paint.core.tool.MoveTool;
 
 /**
  * Handles selection, movement, rotation, copy/paste, and previewing of a rectangular
  * portion of a workspace canvas.
  *
- * <p>Listens to selection-related events and manages an in-memory buffer for manipulations
- * until the selection is committed.</p>
+ * <p>Listens to selection-related events posted to its workspace's scope and manages an in-memory
+ * buffer for manipulations until the selection is committed. Pixels are read from and written to
+ * the base layer's {@link Raster}; only the preview is drawn on a canvas.</p>
  */
-@EventBusSubscriber
+@EventBusSubscriber(delivery = DeliveryMode.FX)
 public class SelectionCapability extends EventBusPublisher {
 
   /** The workspace this capability belongs to. */
@@ -49,6 +55,9 @@ public class SelectionCapability extends EventBusPublisher {
   /** Current rotation angle of the selection in degrees. Takes increments of 90 degrees.*/
   private double rotationAngle;
 
+  /** Scratch canvas free rotations are drawn on, kept between rotations and resized to fit. */
+  private Canvas rotationCanvas;
+
   /**
    * Creates a selection manager for the given workspace.
    *
@@ -56,7 +65,7 @@ public class SelectionCapability extends EventBusPublisher {
    */
   public SelectionCapability(Workspace workspace) {
     this.workspace = workspace;
-    bus.register(this);
+    bus.register(this, workspace);
   }
 
 
@@ -69,12 +78,9 @@ public class SelectionCapability extends EventBusPublisher {
       return;
     }
 
-    SnapshotParameters params = new SnapshotParameters();
-    params.setViewport(selectionBounds);
-    params.setFill(Color.TRANSPARENT);
-
-    buffer = new WritableImage((int) selectionBounds.getWidth(), (int) selectionBounds.getHeight());
-    workspace.getBaseLayer().snapshot(params, buffer);
+    buffer = RasterImages.toImage(workspace.getBaseRasterLayer().getRaster(),
+      (int) selectionBounds.getMinX(), (int) selectionBounds.getMinY(),
+      (int) selectionBounds.getWidth(), (int) selectionBounds.getHeight());
 
     offsetX = offsetY = 0;
     copyMode = false; // selection means we are cutting by default
@@ -99,10 +105,10 @@ public class SelectionCapability extends EventBusPublisher {
 
     // Only clear the original area if this is NOT a copy
     if (!copyMode) {
-      workspace.getBaseLayer()
-        .getGraphicsContext2D()
-        .clearRect(selectionBounds.getMinX(), selectionBounds.getMinY(),
-          selectionBounds.getWidth(), selectionBounds.getHeight());
+      RasterLayer base = workspace.getBaseRasterLayer();
+      base.getRaster().clearRect((int) selectionBounds.getMinX(), (int) selectionBounds.getMinY(),
+        (int) selectionBounds.getWidth(), (int) selectionBounds.getHeight());
+      base.refresh();
     }
 
     offsetX += req.dx();
@@ -119,21 +125,34 @@ public class SelectionCapability extends EventBusPublisher {
   @SuppressWarnings("unused")
   private void onToolChanged(ToolChangedEvent evt) {
     if (!(evt.tool() instanceof MoveTool)) {
-      bus.post(new CommitSelectionRequest());
+      commitSelection();
     }
   }
 
-  /** Commits the current selection to the base layer. */
+  /** Commits the current selection on request. */
   @SubscribeEvent
   @SuppressWarnings("unused")
   private void onCommitSelection(CommitSelectionRequest req) {
+    commitSelection();
+  }
+
+  /** Commits the current selection to the base layer. */
+  private void commitSelection() {
     if (buffer == null || selectionBounds == null) {
       return;
     }
 
-    GraphicsContext base = workspace.getBaseLayer().getGraphicsContext2D();
-    base.drawImage(buffer, selectionBounds.getMinX() + offsetX,
-      selectionBounds.getMinY() + offsetY);
+    RasterLayer base = workspace.getBaseRasterLayer();
+    int width = (int) buffer.getWidth();
+    int height = (int) buffer.getHeight();
+    PixelBufferPool pool = PixelBufferPool.shared();
+    int[] pixels = RasterImages.pixelsOf(buffer, pool.leaseInts(width * height));
+    base.getRaster().drawPixels(
+      (int) Math.round(selectionBounds.getMinX() + offsetX),
+      (int) Math.round(selectionBounds.getMinY() + offsetY),
+      width, height, pixels, 0, width);
+    pool.release(pixels);
+    base.refresh();
 
     clearEffects();
     buffer = null;
@@ -157,6 +176,24 @@ public class SelectionCapability extends EventBusPublisher {
     double width = buffer.getWidth();
     double height = buffer.getHeight();
 
+    int quarterTurn = ((int) angleDegrees % 360 + 360) % 360;
+    if (angleDegrees == Math.rint(angleDegrees) && quarterTurn % 90 == 0) {
+      // Quarter turns are exact pixel shuffles; no need to render anything.
+      int w = (int) width;
+      int h = (int) height;
+      PixelBufferPool pool = PixelBufferPool.shared();
+      int[] leased = RasterImages.pixelsOf(buffer, pool.leaseInts(w * h));
+      Raster pixels = new Raster(w, h);
+      pixels.setPixels(0, 0, w, h, leased, 0, w);
+      pool.release(leased);
+      Raster turned = pixels.transformed(quarterTurn, false, false);
+      buffer = RasterImages.toImage(turned, 0, 0, turned.getWidth(), turned.getHeight());
+      selectionBounds = new Rectangle2D(selectionBounds.getMinX(), selectionBounds.getMinY(),
+        turned.getWidth(), turned.getHeight());
+      previewSelection(selectionBounds.getMinX() + offsetX, selectionBounds.getMinY() + offsetY);
+      return;
+    }
+
     // Compute rotated bounds to fit the rotated image
     double radians = Math.toRadians(angleDegrees);
     double cos = Math.abs(Math.cos(radians));
@@ -164,16 +201,21 @@ public class SelectionCapability extends EventBusPublisher {
     double newWidth = width * cos + height * sin;
     double newHeight = width * sin + height * cos;
 
-    WritableImage rotated = new WritableImage((int) Math.ceil(newWidth),
-      (int) Math.ceil(newHeight));
+    int w = (int) Math.ceil(newWidth);
+    int h = (int) Math.ceil(newHeight);
 
     SnapshotParameters params = new SnapshotParameters();
     params.setFill(Color.TRANSPARENT);
 
-    // Draw rotated image into new buffer
-    Canvas tempCanvas = new Canvas(newWidth, newHeight);
-    GraphicsContext tempGC = tempCanvas.getGraphicsContext2D();
+    // Draw the rotated image on the scratch canvas
+    if (rotationCanvas == null) {
+      rotationCanvas = new Canvas();
+    }
+    rotationCanvas.setWidth(newWidth);
+    rotationCanvas.setHeight(newHeight);
+    GraphicsContext tempGC = rotationCanvas.getGraphicsContext2D();
 
+    tempGC.clearRect(0, 0, newWidth, newHeight);
     tempGC.setImageSmoothing(false);
     tempGC.save();
     tempGC.translate(newWidth / 2, newHeight / 2);
@@ -181,9 +223,11 @@ public class SelectionCapability extends EventBusPublisher {
     tempGC.drawImage(buffer, -width / 2, -height / 2);
     tempGC.restore();
 
-    tempCanvas.snapshot(params, rotated);
-
-    buffer = rotated;
+    // Snapshot into a leased image, keeping only the rotated area as the new buffer
+    PixelBufferPool pool = PixelBufferPool.shared();
+    WritableImage snapshot = rotationCanvas.snapshot(params, pool.leaseImage(w, h));
+    buffer = new WritableImage(snapshot.getPixelReader(), w, h);
+    pool.release(snapshot);
 
     // Update selection bounds to new image size
     selectionBounds = new Rectangle2D(selectionBounds.getMinX(), selectionBounds.getMinY(),
@@ -218,6 +262,13 @@ public class SelectionCapability extends EventBusPublisher {
     effects.clearRect(0, 0, effects.getCanvas().getWidth(), effects.getCanvas().getHeight());
   }
 
+  /** Drops the selection buffer without committing it. Called when the workspace is closed. */
+  void dispose() {
+    buffer = null;
+    selectionBounds = null;
+    rotationCanvas = null;
+  }
+
   /** Copies the current selection to the system clipboard. */
   @SubscribeEvent
   @SuppressWarnings("unused")
@@ -0,0 +1,190 @@
+package net.cnoga.paint.core.workspace;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.cnoga.paint.core.bus.EventBusPublisher;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.SubscribeEvent;
+import net.cnoga.paint.core.bus.events.request.SetUndoBudgetRequest;
+import net.cnoga.paint.core.bus.events.response.UndoMemoryChangedEvent;
+import net.cnoga.paint.core.raster.TileDelta;
+import net.cnoga.paint.core.raster.TileSpillFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the undo history of every workspace within a memory budget.
+ *
+ * <p>Each workspace's history has a budget, and so do all of them together. Once history grows
+ * past half a budget, its oldest entries are compressed; past the whole budget, they are evicted
+ * to a memory-mapped {@link TileSpillFile} and read back only if the user undoes that far. The
+ * steps right before and after the current state are always left as they are, so a single undo
+ * or redo never waits for inflation.</p>
+ *
+ * <p>The work runs on a background thread after every change to a history and ends by posting an
+ * {@link UndoMemoryChangedEvent} with the current sizes. Listens to {@link SetUndoBudgetRequest}.
+ * </p>
+ */
+@EventBusSubscriber
+final class UndoBudget extends EventBusPublisher {
+
+  private static final Logger log = LogManager.getLogger(UndoBudget.class);
+
+  private static final long MEGABYTE = 1 << 20;
+
+  private static final UndoBudget INSTANCE = new UndoBudget();
+
+  /** The history of every open workspace. */
+  private final Set<UndoRedoCapability> histories = ConcurrentHashMap.newKeySet();
+
+  /** Runs compaction passes, one at a time. */
+  private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "UndoBudget-Compactor");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** Whether a compaction pass is queued and has not started yet. */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  private volatile long workspaceLimit = 256 * MEGABYTE;
+  private volatile long totalLimit = 1024 * MEGABYTE;
+
+  /** Created on the first eviction; only touched by the compactor thread. */
+  private TileSpillFile spillFile;
+
+  /** Set if the scratch file could not be used, after which history simply stays in memory. */
+  private boolean spillFailed;
+
+  private UndoBudget() {
+    bus.register(this);
+  }
+
+  /**
+   * @return the budget shared by all workspaces
+   */
+  static UndoBudget getInstance() {
+    return INSTANCE;
+  }
+
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  private void onSetBudget(SetUndoBudgetRequest req) {
+    workspaceLimit = req.workspaceMegabytes() * MEGABYTE;
+    totalLimit = req.totalMegabytes() * MEGABYTE;
+    changed();
+  }
+
+  /**
+   * Adds a workspace's history to the budget.
+   *
+   * @param history the history to track
+   */
+  void register(UndoRedoCapability history) {
+    histories.add(history);
+  }
+
+  /**
+   * Stops tracking a discarded history.
+   *
+   * @param history the history to drop
+   */
+  void unregister(UndoRedoCapability history) {
+    histories.remove(history);
+    changed();
+  }
+
+  /**
+   * Queues a compaction pass, unless one is already waiting to run.
+   */
+  void changed() {
+    if (scheduled.compareAndSet(false, true)) {
+      compactor.execute(this::compact);
+    }
+  }
+
+  /**
+   * Shrinks every history that is over its own budget, then all of them until they fit the total
+   * budget, and publishes the resulting sizes.
+   */
+  private void compact() {
+    scheduled.set(false);
+
+    long total = 0;
+    for (UndoRedoCapability history : histories) {
+      long limit = workspaceLimit;
+      total += shrink(history.agedEntries(), history.getResidentBytes(), limit / 2, limit);
+    }
+
+    long limit = totalLimit;
+    for (UndoRedoCapability history : histories) {
+      if (total <= limit / 2) {
+        break;
+      }
+      total = shrink(history.agedEntries(), total, limit / 2, limit);
+    }
+
+    long resident = 0;
+    long spilled = 0;
+    int entries = 0;
+    for (UndoRedoCapability history : histories) {
+      resident += history.getResidentBytes();
+      spilled += history.getSpilledBytes();
+      entries += history.getEntryCount();
+    }
+    bus.post(new UndoMemoryChangedEvent(resident, spilled, entries));
+  }
+
+  /**
+   * Compresses, then evicts, entries oldest first until the resident size is back under the
+   * thresholds.
+   *
+   * @param entries       candidates, oldest first
+   * @param resident      the resident size being tracked
+   * @param compressAbove size past which entries are compressed
+   * @param spillAbove    size past which entries are evicted
+   * @return the resident size left
+   */
+  private long shrink(List<TileDelta> entries, long resident, long compressAbove,
+    long spillAbove) {
+    for (TileDelta delta : entries) {
+      if (resident <= compressAbove) {
+        break;
+      }
+      if (delta.hasRawTiles()) {
+        long before = delta.getResidentBytes();
+        delta.compress();
+        resident -= before - delta.getResidentBytes();
+      }
+    }
+
+    for (TileDelta delta : entries) {
+      if (resident <= spillAbove || spillFailed) {
+        break;
+      }
+      long before = delta.getResidentBytes();
+      if (before > 0) {
+        spill(delta);
+        resident -= before - delta.getResidentBytes();
+      }
+    }
+    return resident;
+  }
+
+  private void spill(TileDelta delta) {
+    try {
+      if (spillFile == null) {
+        spillFile = new TileSpillFile();
+      }
+      delta.spill(spillFile);
+    } catch (IOException e) {
+      log.error("Could not evict undo history to disk", e);
+      spillFailed = true;
+    }
+  }
+}
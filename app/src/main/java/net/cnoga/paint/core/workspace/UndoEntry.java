@@ -0,0 +1,171 @@
+package net.cnoga.paint.core.workspace;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.scene.canvas.Canvas;
+import net.cnoga.paint.core.raster.RasterLayer;
+import net.cnoga.paint.core.raster.TileDelta;
+import net.cnoga.paint.core.tool.ToolCommand;
+
+/**
+ * One step of a workspace's undo history.
+ *
+ * <p>Holds a {@link TileDelta} for each layer the step changed, and nothing for the others, plus
+ * the drawing layers it added or removed, in order. Resizes and transforms need no special case:
+ * a layer whose raster was replaced simply has a whole-layer delta.</p>
+ *
+ * <p>A step that was nothing but one replayable tool use on the base layer holds the
+ * {@link ToolCommand} instead of pixels. Every so often such a step also keeps a keyframe, the
+ * base layer as it was before the step, which the command steps above it are replayed from. The
+ * keyframe is a whole-layer {@link TileDelta}, so the undo budget compresses and evicts it like
+ * any other.</p>
+ */
+final class UndoEntry {
+
+  /** Pixel changes by layer; only layers that were written to have an entry. */
+  private final Map<RasterLayer, TileDelta> deltas;
+
+  /** Layer additions and removals, in the order they happened. */
+  private final List<LayerChange> changes;
+
+  /** The tool use this step consists of, or {@code null} if it is kept as pixels. */
+  private final ToolCommand command;
+
+  /** The base layer before this command step, or {@code null} if it is replayed from below. */
+  private final TileDelta keyframe;
+
+  UndoEntry(Map<RasterLayer, TileDelta> deltas, List<LayerChange> changes) {
+    this.deltas = deltas;
+    this.changes = changes;
+    this.command = null;
+    this.keyframe = null;
+  }
+
+  /**
+   * Creates a step kept as a tool command.
+   *
+   * @param command  the tool use
+   * @param keyframe every tile of the base layer before the step, or {@code null} to rely on the
+   *                 nearest keyframe below
+   */
+  UndoEntry(ToolCommand command, TileDelta keyframe) {
+    this.deltas = Map.of();
+    this.changes = List.of();
+    this.command = command;
+    this.keyframe = keyframe;
+  }
+
+  /**
+   * @return whether the step changed nothing at all
+   */
+  boolean isEmpty() {
+    return command == null && deltas.isEmpty() && changes.isEmpty();
+  }
+
+  /**
+   * @return the tool use this step consists of, or {@code null} if the step is kept as pixels
+   */
+  ToolCommand getCommand() {
+    return command;
+  }
+
+  /**
+   * @return every tile of the base layer before this command step, or {@code null} if there is
+   * no keyframe here
+   */
+  TileDelta getKeyframe() {
+    return keyframe;
+  }
+
+  /**
+   * Describes the step as it was recorded, before it was ever applied, for the history panel.
+   *
+   * @return a short label
+   */
+  String describe() {
+    if (command != null) {
+      return command.tool().getName();
+    }
+    if (!changes.isEmpty()) {
+      return changes.get(0).added() ? "New Layer" : "Delete Layer";
+    }
+    return "Edit";
+  }
+
+  /**
+   * @return the pixel deltas of this step, including its keyframe, for the undo budget
+   */
+  List<TileDelta> getDeltas() {
+    if (keyframe != null) {
+      return List.of(keyframe);
+    }
+    return List.copyOf(deltas.values());
+  }
+
+  /**
+   * Reverts this pixel step on a workspace: layer additions and removals are undone newest
+   * first, then each changed layer gets its pixels back.
+   *
+   * @param workspace the workspace the step was recorded on
+   * @return the entry that reverts this reversal, which the history keeps in its place
+   */
+  UndoEntry applyTo(Workspace workspace) {
+    List<LayerChange> applied = new ArrayList<>(changes.size());
+    for (int i = changes.size() - 1; i >= 0; i--) {
+      LayerChange inverse = changes.get(i).inverse();
+      inverse.applyTo(workspace);
+      applied.add(inverse);
+    }
+
+    Map<RasterLayer, TileDelta> inverses = new IdentityHashMap<>();
+    for (Map.Entry<RasterLayer, TileDelta> entry : deltas.entrySet()) {
+      inverses.put(entry.getKey(), entry.getValue().applyTo(entry.getKey()));
+    }
+    workspace.fitDisplayLayers();
+    return new UndoEntry(inverses, applied);
+  }
+
+  /**
+   * Drops the held pixels; see {@link TileDelta#release()}.
+   */
+  void release() {
+    for (TileDelta delta : deltas.values()) {
+      delta.release();
+    }
+    if (keyframe != null) {
+      keyframe.release();
+    }
+  }
+
+  /**
+   * A drawing layer that was added to or removed from the workspace. The layer's canvas and
+   * pixels are kept, so putting it back restores it as it was.
+   *
+   * @param canvas the layer's canvas
+   * @param raster the layer's pixels
+   * @param index  the layer's position among all layers, bottom first
+   * @param added  {@code true} if the layer was added, {@code false} if removed
+   */
+  record LayerChange(Canvas canvas, RasterLayer raster, int index, boolean added) {
+
+    /**
+     * @return the change that undoes this one
+     */
+    LayerChange inverse() {
+      return new LayerChange(canvas, raster, index, !added);
+    }
+
+    /**
+     * Performs this change on a workspace without recording it.
+     */
+    void applyTo(Workspace workspace) {
+      if (added) {
+        workspace.insertLayer(index, canvas, raster);
+      } else {
+        workspace.detachLayer(canvas);
+      }
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package net.cnoga.paint.core.workspace;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javafx.scene.image.Image;
+
+/**
+ * One state in a workspace's undo history tree.
+ *
+ * <p>Every node but the root is reached from its parent by one {@link UndoEntry}. Which way the
+ * entry points depends on where the workspace is: for the current node and its ancestors it
+ * leads back to the parent, as an undo stack would hold it; for every other node it leads from
+ * the parent to the node, as a redo stack would. Moving between nodes flips the entries it
+ * crosses, so alternative branches stay reachable after a new step is taken from an older
+ * state.</p>
+ *
+ * <p>The tree is shaped on the FX thread; the undo budget's thread walks it to compress entries,
+ * hence the concurrent collections and volatile fields.</p>
+ */
+final class UndoNode {
+
+  /** Identifies the node in published snapshots; unique within one history. */
+  private final int id;
+
+  /** The state this one was reached from, or {@code null} for the root. */
+  private final UndoNode parent;
+
+  /** What the step to this state did, for the history panel. */
+  private final String label;
+
+  /** States reached from this one, oldest first. */
+  private final List<UndoNode> children = new CopyOnWriteArrayList<>();
+
+  /** The step between the parent and this node, pointing as described above. */
+  private volatile UndoEntry entry;
+
+  /** The child redo moves to: the one created or visited last. */
+  private UndoNode redoChild;
+
+  /** Small picture of the workspace in this state, once rendered. */
+  private volatile Image thumbnail;
+
+  /** Whether a thumbnail has been asked for. */
+  private boolean thumbnailRequested;
+
+  /**
+   * Creates the root of a history.
+   *
+   * @param id    the node's id
+   * @param label describes the state the history starts from
+   */
+  UndoNode(int id, String label) {
+    this(id, null, null, label);
+  }
+
+  private UndoNode(int id, UndoNode parent, UndoEntry entry, String label) {
+    this.id = id;
+    this.parent = parent;
+    this.entry = entry;
+    this.label = label;
+  }
+
+  /**
+   * Adds a state reached from this one and makes it the redo target.
+   *
+   * @param id    the new node's id
+   * @param entry the step that leads back from the new node to this one
+   * @param label what the step did
+   * @return the new node
+   */
+  UndoNode addChild(int id, UndoEntry entry, String label) {
+    UndoNode child = new UndoNode(id, this, entry, label);
+    children.add(child);
+    redoChild = child;
+    return child;
+  }
+
+  /**
+   * @return the node's id
+   */
+  int getId() {
+    return id;
+  }
+
+  /**
+   * @return the state this one was reached from, or {@code null} for the root
+   */
+  UndoNode getParent() {
+    return parent;
+  }
+
+  /**
+   * @return what the step to this state did
+   */
+  String getLabel() {
+    return label;
+  }
+
+  /**
+   * @return the states reached from this one, oldest first
+   */
+  List<UndoNode> getChildren() {
+    return children;
+  }
+
+  /**
+   * @return the step between the parent and this node, or {@code null} for the root
+   */
+  UndoEntry getEntry() {
+    return entry;
+  }
+
+  /**
+   * Replaces the step with its inverse after it was applied.
+   *
+   * @param entry the step, now pointing the other way
+   */
+  void setEntry(UndoEntry entry) {
+    this.entry = entry;
+  }
+
+  /**
+   * @return the child redo moves to, or {@code null} if there is none
+   */
+  UndoNode getRedoChild() {
+    return redoChild;
+  }
+
+  /**
+   * @param child the child redo should move to
+   */
+  void setRedoChild(UndoNode child) {
+    this.redoChild = child;
+  }
+
+  /**
+   * @return the thumbnail, or {@code null} if it has not been rendered
+   */
+  Image getThumbnail() {
+    return thumbnail;
+  }
+
+  /**
+   * @param thumbnail the rendered thumbnail
+   */
+  void setThumbnail(Image thumbnail) {
+    this.thumbnail = thumbnail;
+  }
+
+  /**
+   * Marks the thumbnail as asked for.
+   *
+   * @return {@code true} the first time, {@code false} if it was asked for already
+   */
+  boolean requestThumbnail() {
+    if (thumbnailRequested) {
+      return false;
+    }
+    thumbnailRequested = true;
+    return true;
+  }
+
+  /**
+   * @return the number of steps from the root
+   */
+  int depth() {
+    int depth = 0;
+    for (UndoNode node = parent; node != null; node = node.parent) {
+      depth++;
+    }
+    return depth;
+  }
+}
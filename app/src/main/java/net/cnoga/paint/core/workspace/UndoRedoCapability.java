@@ -0,0 +1,549 @@
+package net.cnoga.paint.core.workspace;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import net.cnoga.paint.core.bus.DeliveryMode;
+import net.cnoga.paint.core.bus.EventBusPublisher;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.SubscribeEvent;
+import net.cnoga.paint.core.bus.events.request.GetUndoHistoryRequest;
+import net.cnoga.paint.core.bus.events.request.GoToUndoStateRequest;
+import net.cnoga.paint.core.bus.events.request.RedoRequest;
+import net.cnoga.paint.core.bus.events.request.SaveStateRequest;
+import net.cnoga.paint.core.bus.events.request.UndoRequest;
+import net.cnoga.paint.core.bus.events.response.ToolCommandRecordedEvent;
+import net.cnoga.paint.core.bus.events.response.UndoHistoryChangedEvent;
+import net.cnoga.paint.core.raster.PixelRect;
+import net.cnoga.paint.core.raster.Raster;
+import net.cnoga.paint.core.raster.RasterLayer;
+import net.cnoga.paint.core.raster.TileDelta;
+import net.cnoga.paint.core.tool.ToolCommand;
+
+/**
+ * Manages undo/redo functionality for a workspace.
+ *
+ * <p>Saving a state only starts {@linkplain RasterLayer#beginRecording() recording} the base layer
+ * and every drawing layer; no pixels are copied when a stroke starts. The first write to each tile
+ * keeps that tile's old pixels, and when the next state is saved (or the user undoes) the layers
+ * that were written to contribute a {@link TileDelta} each to an {@link UndoEntry}, together with
+ * any drawing layers added or removed in between. Layers that were not touched cost nothing, and
+ * an operation that changed nothing leaves no entry.</p>
+ *
+ * <p>A brush stroke, line, shape or eraser pass that only painted the base layer is kept as its
+ * {@link ToolCommand} instead: the tool, color, width, settings and points, a few kilobytes however
+ * large the stroke. Every {@value #KEYFRAME_INTERVAL} commands, and whenever a step before it was
+ * kept as pixels, the step also keeps a keyframe: every tile of the base layer as it was before the
+ * step, shared with the layer until either side changes it. Keyframes are {@link TileDelta}s, so
+ * the budget compresses and evicts them like pixel steps. Undoing a command restores the nearest
+ * keyframe below it and replays the commands in between; redoing one replays it.</p>
+ *
+ * <p>History is a tree of {@link UndoNode}s rather than a pair of stacks: a new step taken after
+ * undoing starts a branch, and the steps that were undone stay reachable. Undo moves to the parent
+ * state and redo to the child visited last; {@link GoToUndoStateRequest} moves to any state by
+ * undoing up to the closest common ancestor and redoing down from it. Steps only hold the tiles
+ * they changed, shared with the layers until either side is written, so a branch costs no more
+ * than its own steps. Every change is published as an {@link UndoHistoryChangedEvent}, with a
+ * thumbnail of each state rendered in the background.</p>
+ *
+ * <p>The tree is kept within the {@link UndoBudget}, which compresses and evicts older entries
+ * in the background.
+ * Listens to {@link SaveStateRequest}, {@link UndoRequest}, {@link RedoRequest},
+ * {@link GoToUndoStateRequest}, {@link GetUndoHistoryRequest}, and
+ * {@link ToolCommandRecordedEvent} events posted to its workspace's scope.</p>
+ */
+@EventBusSubscriber(delivery = DeliveryMode.FX)
+public class UndoRedoCapability extends EventBusPublisher {
+
+  /** Most command steps replayed to undo one; a keyframe is kept at least this often. */
+  private static final int KEYFRAME_INTERVAL = 16;
+
+  /** Every state of the history, indexed by id, which is creation order. Read by the budget. */
+  private final List<UndoNode> nodes = new CopyOnWriteArrayList<>();
+
+  /** The state the workspace is in. Read by the budget's background thread. */
+  private volatile UndoNode current;
+
+  /** Layers being recorded since the last saved state, or {@code null} if none is. */
+  private List<RasterLayer> recording;
+
+  /** Drawing layers added or removed since the last saved state. */
+  private final List<UndoEntry.LayerChange> layerChanges = new ArrayList<>();
+
+  /** The workspace this capability belongs to. */
+  private final Workspace workspace;
+
+  /** Keeps the history's memory in check. */
+  private final UndoBudget budget = UndoBudget.getInstance();
+
+  /**
+   * Heap bytes held by the points of command steps, added as each step is made rather than
+   * re-measured, so sealing a step does not cost more as history grows. Keyframes are counted
+   * with the other deltas. Read by the budget.
+   */
+  private volatile long commandBytes;
+
+  /**
+   * Constructs undo/redo capability for the given workspace.
+   *
+   * @param workspace workspace to manage undo/redo for
+   */
+  public UndoRedoCapability(Workspace workspace) {
+    this.workspace = workspace;
+    this.current = new UndoNode(0, "Original");
+    nodes.add(current);
+    bus.register(this, workspace);
+    budget.register(this);
+  }
+
+  /** Saves the current workspace state to the undo history. */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  public void saveState(SaveStateRequest req) {
+    seal();
+    begin();
+  }
+
+  /** Moves back to the state the current one was reached from. */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  public void undo(UndoRequest req) {
+    seal();
+    goTo(current.getParent());
+    begin();
+  }
+
+  /** Moves forward to the state reached last from the current one. */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  public void redo(RedoRequest req) {
+    seal();
+    goTo(current.getRedoChild());
+    begin();
+  }
+
+  /** Moves to any state in the history, e.g. one picked in the history panel. */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  public void goToState(GoToUndoStateRequest req) {
+    if (req.stateId() < 0 || req.stateId() >= nodes.size()) {
+      return;
+    }
+    seal();
+    goTo(nodes.get(req.stateId()));
+    begin();
+  }
+
+  /** Publishes the history as it is now. */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  public void onGetUndoHistory(GetUndoHistoryRequest req) {
+    publish();
+  }
+
+  /** Ends the current step with the tool use that made it, then starts the next one. */
+  @SubscribeEvent
+  @SuppressWarnings("unused")
+  public void onToolCommandRecorded(ToolCommandRecordedEvent evt) {
+    if (recording == null) {
+      return;
+    }
+    seal(evt.command());
+    begin();
+  }
+
+  /**
+   * Records a drawing layer being added or removed as part of the current step, starting a step
+   * if none is being recorded.
+   *
+   * @param change the layer change
+   */
+  void layerChanged(UndoEntry.LayerChange change) {
+    if (recording == null) {
+      begin();
+    }
+    layerChanges.add(change);
+  }
+
+  /**
+   * Moves the workspace to another state: up to the closest state both share, then down to the
+   * target. The canvases are refreshed once at the end, so only tiles that differ between the two
+   * states are redrawn, however many steps lie between them. Callers start recording again
+   * afterwards, so edits made from the restored state become a step of their own.
+   *
+   * @param target the state to move to, or {@code null} to stay
+   */
+  private void goTo(UndoNode target) {
+    if (target == null || target == current) {
+      return;
+    }
+    List<RasterLayer> layers = workspace.getRasterLayers();
+    for (RasterLayer layer : layers) {
+      layer.setRefreshDeferred(true);
+    }
+    try {
+      UndoNode ancestor = commonAncestor(current, target);
+      while (current != ancestor) {
+        undoToward(ancestor);
+      }
+      List<UndoNode> path = new ArrayList<>();
+      for (UndoNode node = target; node != ancestor; node = node.getParent()) {
+        path.add(0, node);
+      }
+      redoAlong(path);
+    } finally {
+      // Layers detached on the way are refreshed too; they may be put back later.
+      for (RasterLayer layer : layers) {
+        layer.setRefreshDeferred(false);
+      }
+    }
+    budget.changed();
+    publish();
+  }
+
+  /**
+   * Undoes the current step, or the whole run of command steps down to {@code stop}, at once.
+   */
+  private void undoToward(UndoNode stop) {
+    UndoNode node = current;
+    UndoEntry entry = node.getEntry();
+    if (entry.getCommand() == null) {
+      node.setEntry(entry.applyTo(workspace));
+      entry.release();
+      current = node.getParent();
+      return;
+    }
+
+    // Rewinding replays from a keyframe, so a run of commands costs one rewind, not one each.
+    UndoNode top = node;
+    while (top.getParent() != stop && top.getParent().getEntry().getCommand() != null) {
+      top = top.getParent();
+    }
+    rewind(top);
+    current = top.getParent();
+  }
+
+  /**
+   * Redoes the steps from the current state down to a descendant.
+   *
+   * @param path the states on the way, each right after its parent; the last is the target
+   */
+  private void redoAlong(List<UndoNode> path) {
+    int i = 0;
+    while (i < path.size()) {
+      UndoEntry entry = path.get(i).getEntry();
+      if (entry.getCommand() == null) {
+        path.get(i).setEntry(entry.applyTo(workspace));
+        entry.release();
+        i++;
+        continue;
+      }
+
+      // Within a run of commands, start from its last keyframe instead of replaying them all.
+      int end = i;
+      while (end + 1 < path.size() && path.get(end + 1).getEntry().getCommand() != null) {
+        end++;
+      }
+      int from = i;
+      for (int k = end; k > i; k--) {
+        if (path.get(k).getEntry().getKeyframe() != null) {
+          restore(path.get(k).getEntry().getKeyframe());
+          from = k;
+          break;
+        }
+      }
+      for (int k = from; k <= end; k++) {
+        replay(path.get(k).getEntry().getCommand());
+      }
+      i = end + 1;
+    }
+
+    for (UndoNode node : path) {
+      node.getParent().setRedoChild(node);
+      current = node;
+    }
+  }
+
+  /**
+   * Returns the base layer to the state a command step was taken from: the nearest keyframe at
+   * or above the step is restored, and the commands from there to the step's parent are replayed,
+   * oldest first.
+   */
+  private void rewind(UndoNode node) {
+    List<ToolCommand> newestFirst = new ArrayList<>();
+    UndoNode keyframed = node;
+    while (keyframed.getEntry().getKeyframe() == null) {
+      keyframed = keyframed.getParent();
+      newestFirst.add(keyframed.getEntry().getCommand());
+    }
+
+    restore(keyframed.getEntry().getKeyframe());
+    for (int i = newestFirst.size() - 1; i >= 0; i--) {
+      replay(newestFirst.get(i));
+    }
+  }
+
+  /**
+   * Puts a keyframe's pixels back into the base layer; only tiles it does not share are replaced.
+   */
+  private void restore(TileDelta keyframe) {
+    RasterLayer base = workspace.getBaseRasterLayer();
+    Raster live = base.getRaster();
+    live.copyFrom(keyframe.stateBefore(live));
+    base.refresh();
+  }
+
+  /**
+   * Paints a command on the base layer again and reads the result back into its raster.
+   */
+  private void replay(ToolCommand command) {
+    RasterLayer base = workspace.getBaseRasterLayer();
+    // The tool paints over what is on the canvas, so the canvas has to be current first
+    boolean deferred = base.isRefreshDeferred();
+    base.setRefreshDeferred(false);
+
+    command.replay(workspace.getBaseLayer().getGraphicsContext2D(),
+      workspace.getEffectsLayer().getGraphicsContext2D());
+    for (PixelRect area : command.tool().takePaintedAreas()) {
+      base.canvasChanged(area);
+    }
+    base.getRaster();
+    base.setRefreshDeferred(deferred);
+  }
+
+  /**
+   * Starts recording a step on every layer the workspace has now.
+   */
+  private void begin() {
+    recording = workspace.getRasterLayers();
+    for (RasterLayer layer : recording) {
+      layer.beginRecording();
+    }
+    requestThumbnail(current);
+  }
+
+  /**
+   * Ends the step being recorded, if any, and adds it to the history.
+   */
+  private void seal() {
+    seal(null);
+  }
+
+  /**
+   * Ends the step being recorded, if any, and adds it to the history as a child of the current
+   * state: as a command if it was nothing but that tool use painting the base layer, otherwise as
+   * what it changed. Other children of the current state stay where they are.
+   *
+   * @param command the tool use that made the step, or {@code null} if unknown
+   */
+  private void seal(ToolCommand command) {
+    if (recording == null) {
+      return;
+    }
+    RasterLayer base = workspace.getBaseRasterLayer();
+    Map<RasterLayer, TileDelta> deltas = new IdentityHashMap<>();
+    boolean editedDirectly = false;
+    for (RasterLayer layer : recording) {
+      TileDelta delta = layer.endRecording();
+      if (delta != null) {
+        deltas.put(layer, delta);
+      }
+      editedDirectly |= layer.wasEditedDirectly();
+    }
+
+    UndoEntry entry;
+    if (command != null && !editedDirectly && layerChanges.isEmpty() && deltas.size() == 1
+      && deltas.containsKey(base)) {
+      entry = commandEntry(command, deltas.get(base), base);
+    } else {
+      entry = new UndoEntry(deltas, List.copyOf(layerChanges));
+    }
+    recording = null;
+    layerChanges.clear();
+
+    if (!entry.isEmpty()) {
+      current = current.addChild(nodes.size(), entry, entry.describe());
+      nodes.add(current);
+      budget.changed();
+      publish();
+    }
+  }
+
+  /**
+   * Turns a tool use into a command step, keeping a keyframe if replaying from the last one would
+   * take too long or there is none to replay from.
+   *
+   * @param command the tool use
+   * @param delta   what it changed on the base layer; released here
+   * @param base    the base layer
+   * @return the step
+   */
+  private UndoEntry commandEntry(ToolCommand command, TileDelta delta, RasterLayer base) {
+    TileDelta keyframe = null;
+    int chain = commandsSinceKeyframe();
+    if (chain < 0 || chain >= KEYFRAME_INTERVAL) {
+      // Counted at full size although most tiles are shared at first, so the budget can always
+      // evict keyframes once history outgrows it
+      keyframe = TileDelta.capture(delta.stateBefore(base.getRaster()));
+    }
+    delta.release();
+    commandBytes += command.getSizeBytes();
+    return new UndoEntry(command, keyframe);
+  }
+
+  /**
+   * @return how many command steps an undo replays from the current state up to the nearest
+   * keyframe, or {@code -1} if the current state was not reached by a command step that has one
+   */
+  private int commandsSinceKeyframe() {
+    int count = 0;
+    for (UndoNode node = current; node.getEntry() != null; node = node.getParent()) {
+      UndoEntry entry = node.getEntry();
+      if (entry.getCommand() == null) {
+        return -1;
+      }
+      count++;
+      if (entry.getKeyframe() != null) {
+        return count;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the deepest state that both given states are, or descend from
+   */
+  private static UndoNode commonAncestor(UndoNode a, UndoNode b) {
+    int depthA = a.depth();
+    int depthB = b.depth();
+    for (; depthA > depthB; depthA--) {
+      a = a.getParent();
+    }
+    for (; depthB > depthA; depthB--) {
+      b = b.getParent();
+    }
+    while (a != b) {
+      a = a.getParent();
+      b = b.getParent();
+    }
+    return a;
+  }
+
+  /**
+   * Starts rendering a state's thumbnail from the layers as they are now, unless that was done
+   * already. Must only be called while the workspace is in that state.
+   */
+  private void requestThumbnail(UndoNode node) {
+    if (!node.requestThumbnail()) {
+      return;
+    }
+    List<Raster> layers = new ArrayList<>();
+    for (RasterLayer layer : workspace.getRasterLayers()) {
+      layers.add(layer.getRaster().copy());
+    }
+    HistoryThumbnails.render(layers, image -> {
+      node.setThumbnail(image);
+      if (nodes.contains(node)) {
+        publish();
+      }
+    });
+  }
+
+  /**
+   * Posts a snapshot of the history.
+   */
+  private void publish() {
+    requestThumbnail(current);
+    List<UndoHistoryChangedEvent.State> states = new ArrayList<>(nodes.size());
+    for (UndoNode node : nodes) {
+      UndoNode parent = node.getParent();
+      states.add(new UndoHistoryChangedEvent.State(node.getId(),
+        parent != null ? parent.getId() : -1, node.getLabel(), node.getThumbnail()));
+    }
+    bus.post(new UndoHistoryChangedEvent(workspace, states, current.getId()));
+  }
+
+  /**
+   * Returns the entries the budget may compress or evict: everything but the steps right next to
+   * the current state, oldest first. Safe to call from any thread.
+   *
+   * @return the candidates, oldest first
+   */
+  List<TileDelta> agedEntries() {
+    UndoNode here = current;
+    UndoNode next = here.getRedoChild();
+    List<TileDelta> aged = new ArrayList<>();
+    for (UndoNode node : nodes) {
+      UndoEntry entry = node.getEntry();
+      if (entry != null && node != here && node != next) {
+        aged.addAll(entry.getDeltas());
+      }
+    }
+    return aged;
+  }
+
+  /**
+   * @return heap bytes held by the history
+   */
+  long getResidentBytes() {
+    long bytes = commandBytes;
+    for (TileDelta delta : allDeltas()) {
+      bytes += delta.getResidentBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * @return bytes of the history evicted to disk
+   */
+  long getSpilledBytes() {
+    long bytes = 0;
+    for (TileDelta delta : allDeltas()) {
+      bytes += delta.getSpilledBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * @return the pixel deltas of every step in the history
+   */
+  private List<TileDelta> allDeltas() {
+    List<TileDelta> deltas = new ArrayList<>();
+    for (UndoNode node : nodes) {
+      UndoEntry entry = node.getEntry();
+      if (entry != null) {
+        deltas.addAll(entry.getDeltas());
+      }
+    }
+    return deltas;
+  }
+
+  /**
+   * @return number of steps in the history, on every branch
+   */
+  int getEntryCount() {
+    return nodes.size() - 1;
+  }
+
+  /** Discards all undo/redo history. Called when the workspace is closed. */
+  void dispose() {
+    if (recording != null) {
+      for (RasterLayer layer : recording) {
+        layer.endRecording();
+      }
+      recording = null;
+    }
+    layerChanges.clear();
+    for (UndoNode node : nodes) {
+      UndoEntry entry = node.getEntry();
+      if (entry != null) {
+        entry.release();
+      }
+    }
+    nodes.clear();
+    commandBytes = 0;
+    budget.unregister(this);
+  }
+}
@@ -3,17 +3,31 @@ package net.cnoga.paint.core.workspace;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import javafx.scene.Group;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.StackPane;
+import net.cnoga.paint.core.bus.EventBus;
+import net.cnoga.paint.core.bus.events.response.CanvasChangedEvent;
+import net.cnoga.paint.core.raster.PixelRect;
+import net.cnoga.paint.core.raster.RasterLayer;
 
 /**
  * Represents a single paint workspace.
  * <p>
  * A {@code Workspace} manages a scrollable view of layered canvases, including base, transparency,
  * effects, and user-added drawing layers. It also tracks file state and zoom controls.
+ * <p>
+ * The pixels of the base and drawing layers are owned by a {@link RasterLayer} each; their
+ * canvases only display them. The transparency and effects layers are display-only. Every change
+ * to a raster layer is published as a {@link CanvasChangedEvent} listing the changed areas.
+ * Adding and removing drawing layers is recorded in undo history like any pixel change.
+ * <p>
+ * The workspace doubles as the event bus scope of its capabilities, so workspace-level requests
+ * only reach the capabilities of the workspace they are posted to.
  */
 public class Workspace {
 
@@ -23,9 +37,17 @@ public class Workspace {
 
   // Content
   private final List<Canvas> layers = new ArrayList<>();
+  private final Map<Canvas, RasterLayer> rasters = new IdentityHashMap<>();
   private final String displayName;
   private File currentFile;
   private boolean dirty;
+  /** Times the workspace was marked dirty, so a save can tell whether it is still current. */
+  private long editCount;
+
+  // Capabilities. The bus only holds scoped subscribers weakly, so the workspace owns them.
+  private final ZoomCapability zoomCapability;
+  private final UndoRedoCapability undoRedoCapability;
+  private final SelectionCapability selectionCapability;
 
   /**
    * Creates a new workspace with a given name and initial canvas size.
@@ -50,9 +72,26 @@ public class Workspace {
     setupDefaultLayers(width, height);
 
     // Capabilities
-    ZoomCapability zoomCapability = new ZoomCapability(scrollPane, canvasGroup);
-    UndoRedoCapability undoRedoCapability = new UndoRedoCapability(this);
-    SelectionCapability selectionCapability = new SelectionCapability(this);
+    this.zoomCapability = new ZoomCapability(scrollPane, canvasGroup);
+    this.undoRedoCapability = new UndoRedoCapability(this);
+    this.selectionCapability = new SelectionCapability(this);
+  }
+
+  /**
+   * Releases this workspace once it has been closed.
+   * <p>
+   * Drops the workspace's event bus scope, discards undo history and any pending selection, and
+   * detaches its layers so the canvases can be reclaimed even if a stray reference to the
+   * workspace survives.
+   */
+  public void dispose() {
+    EventBus.getInstance().unregisterScope(this);
+    undoRedoCapability.dispose();
+    selectionCapability.dispose();
+
+    layers.clear();
+    rasters.clear();
+    canvasGroup.getChildren().clear();
   }
 
   /**
@@ -68,12 +107,14 @@ public class Workspace {
    */
   private void setupDefaultLayers(double width, double height) {
     layers.clear();
+    rasters.clear();
     canvasGroup.getChildren().clear();
 
     Canvas transparency = createLayer("Transparency Layer", width, height);
     transparency.setMouseTransparent(true);
 
     Canvas base = createLayer("Base Layer", width, height);
+    rasters.put(base, new RasterLayer(base, this::publishChange));
 
     Canvas effects = createLayer("Effects Layer", width, height);
     effects.setMouseTransparent(true);
@@ -110,9 +151,10 @@ public class Workspace {
     int insertIndex = layers.size() - 1; // before effects
     Canvas base = getBaseLayer();
     Canvas layer = createLayer("Drawing Layer", base.getWidth(), base.getHeight());
+    RasterLayer pixels = new RasterLayer(layer, this::publishChange);
 
-    layers.add(insertIndex, layer);
-    canvasGroup.getChildren().add(insertIndex, layer);
+    insertLayer(insertIndex, layer, pixels);
+    undoRedoCapability.layerChanged(new UndoEntry.LayerChange(layer, pixels, insertIndex, true));
     return layer;
   }
 
@@ -130,10 +172,64 @@ public class Workspace {
       throw new IllegalArgumentException("Cannot remove transparency, base, or effects layers.");
     }
 
+    int index = layers.indexOf(layer);
+    RasterLayer pixels = rasters.get(layer);
+    detachLayer(layer);
+    undoRedoCapability.layerChanged(new UndoEntry.LayerChange(layer, pixels, index, false));
+  }
+
+  /**
+   * Puts a drawing layer at a position in the stack, without recording it in undo history.
+   *
+   * @param index  the position among all layers, bottom first
+   * @param layer  the layer's canvas
+   * @param pixels the layer's pixels
+   */
+  void insertLayer(int index, Canvas layer, RasterLayer pixels) {
+    rasters.put(layer, pixels);
+    layers.add(index, layer);
+    canvasGroup.getChildren().add(index, layer);
+  }
+
+  /**
+   * Takes a drawing layer out of the stack, without recording it in undo history.
+   *
+   * @param layer the layer's canvas
+   */
+  void detachLayer(Canvas layer) {
     layers.remove(layer);
+    rasters.remove(layer);
     canvasGroup.getChildren().remove(layer);
   }
 
+  /**
+   * Resizes the display-only transparency and effects layers to match the base layer, e.g. after
+   * a transform. Their transient contents are discarded.
+   */
+  public void fitDisplayLayers() {
+    Canvas base = getBaseLayer();
+    for (Canvas layer : layers) {
+      if (!rasters.containsKey(layer)
+        && (layer.getWidth() != base.getWidth() || layer.getHeight() != base.getHeight())) {
+        layer.setWidth(base.getWidth());
+        layer.setHeight(base.getHeight());
+        layer.getGraphicsContext2D().clearRect(0, 0, base.getWidth(), base.getHeight());
+      }
+    }
+  }
+
+  /**
+   * Announces changed areas of a layer. The bus merges all changes to a layer within one frame.
+   *
+   * @param layer the changed layer
+   * @param areas the changed areas
+   */
+  private void publishChange(RasterLayer layer, List<PixelRect> areas) {
+    if (!areas.isEmpty()) {
+      EventBus.getInstance().post(new CanvasChangedEvent(this, layer.getCanvas(), areas));
+    }
+  }
+
   /**
    * Determines if a given layer is one of the reserved layers.
    *
@@ -158,6 +254,16 @@ public class Workspace {
    */
   public void setDirty(boolean state) {
     this.dirty = state;
+    if (state) {
+      editCount++;
+    }
+  }
+
+  /**
+   * @return how many times this workspace has been marked dirty; unchanged means no edit since
+   */
+  public long getEditCount() {
+    return editCount;
   }
 
   /**
@@ -202,6 +308,36 @@ public class Workspace {
     return layers.get(1);
   }
 
+  /**
+   * @param layer one of this workspace's layers
+   * @return the pixels behind the layer, or {@code null} for the display-only transparency and
+   * effects layers
+   */
+  public RasterLayer getRasterLayer(Canvas layer) {
+    return rasters.get(layer);
+  }
+
+  /**
+   * @return the pixels of the base layer and every drawing layer, bottom first
+   */
+  public List<RasterLayer> getRasterLayers() {
+    List<RasterLayer> pixels = new ArrayList<>(rasters.size());
+    for (Canvas layer : layers) {
+      RasterLayer raster = rasters.get(layer);
+      if (raster != null) {
+        pixels.add(raster);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * @return the pixels behind the base layer
+   */
+  public RasterLayer getBaseRasterLayer() {
+    return rasters.get(getBaseLayer());
+  }
+
   /**
    * @return the effects layer
    */
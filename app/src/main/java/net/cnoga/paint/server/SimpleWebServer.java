@@ -4,22 +4,19 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
-import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
-import javafx.scene.SnapshotParameters;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.image.WritableImage;
-import javafx.scene.paint.Color;
 import javax.imageio.ImageIO;
 import net.cnoga.paint.core.brews.WorkspaceBrew;
+import net.cnoga.paint.core.raster.RasterImages;
 import net.cnoga.paint.core.workspace.Workspace;
 
 /**
@@ -30,6 +27,12 @@ public class SimpleWebServer {
   private static WorkspaceBrew workspaceBrew;
   private HttpServer server;
 
+  /**
+   * Last PNG served per workspace, dropped whenever the workspace changes. While a snapshot is
+   * being encoded the entry holds an empty marker array, so a change during encoding is noticed.
+   */
+  private final Map<Workspace, byte[]> encoded = new WeakHashMap<>();
+
   /**
    * Constructs the server and starts it.
    *
@@ -45,12 +48,24 @@ public class SimpleWebServer {
   public void start() throws IOException {
     server = HttpServer.create(new InetSocketAddress(25565), 0);
     server.createContext("/", new IndexHandler());
-    server.createContext("/workspace", new WorkspaceHandler(workspaceBrew.getWorkspaces()));
+    server.createContext("/workspace", new WorkspaceHandler(workspaceBrew.getWorkspaces(),
+      encoded));
     server.setExecutor(null);
     server.start();
     System.out.println("[SimpleWebServer] running on: " + server.getAddress());
   }
 
+  /**
+   * Forgets the cached snapshot of a workspace after its pixels changed.
+   *
+   * @param workspace the changed workspace
+   */
+  public void invalidate(Workspace workspace) {
+    synchronized (encoded) {
+      encoded.remove(workspace);
+    }
+  }
+
   /**
    * Stops the HTTP server gracefully.
    *
@@ -94,10 +109,12 @@ public class SimpleWebServer {
   }
 
   /**
-   * Handler that returns a PNG snapshot of a workspace.
+   * Handler that returns a PNG snapshot of a workspace, re-encoding it only after it changed.
    * @param workspaces all workspaces in the program.
+   * @param cache      encoded snapshots of unchanged workspaces
    */
-  private record WorkspaceHandler(List<Workspace> workspaces) implements HttpHandler {
+  private record WorkspaceHandler(List<Workspace> workspaces, Map<Workspace, byte[]> cache)
+    implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
@@ -120,32 +137,40 @@ public class SimpleWebServer {
         return;
       }
 
-      File snapshot = snapshotWorkspace(workspaces.get(id).getBaseLayer());
-      exchange.getResponseHeaders().set("Content-Type", Files.probeContentType(snapshot.toPath()));
-      exchange.sendResponseHeaders(200, snapshot.length());
+      Workspace workspace = workspaces.get(id);
+      byte[] png;
+      synchronized (cache) {
+        png = cache.get(workspace);
+      }
+      if (png == null || png.length == 0) {
+        png = encodeWorkspace(workspace);
+      }
+      exchange.getResponseHeaders().set("Content-Type", "image/png");
+      exchange.sendResponseHeaders(200, png.length);
 
-      try (FileInputStream fis = new FileInputStream(snapshot);
-        OutputStream os = exchange.getResponseBody()) {
-        byte[] buffer = new byte[1024];
-        int read;
-        while ((read = fis.read(buffer)) != -1) {
-          os.write(buffer, 0, read);
-        }
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(png);
       }
     }
 
     /**
-     * Captures a snapshot of a Canvas safely on the JavaFX Application Thread.
+     * Copies a workspace's base layer pixels on the JavaFX Application Thread, which owns them,
+     * and encodes them as PNG.
      */
-    private File snapshotWorkspace(Canvas canvas) throws IOException {
-      WritableImage fxImage = new WritableImage((int) canvas.getWidth(), (int) canvas.getHeight());
+    private byte[] encodeWorkspace(Workspace workspace) throws IOException {
+      AtomicReference<BufferedImage> copy = new AtomicReference<>();
       CountDownLatch latch = new CountDownLatch(1);
 
+      byte[] marker = new byte[0];
       Platform.runLater(() -> {
-        SnapshotParameters params = new SnapshotParameters();
-        params.setFill(Color.TRANSPARENT);
-        canvas.snapshot(params, fxImage);
-        latch.countDown();
+        try {
+          copy.set(RasterImages.toBufferedImage(workspace.getBaseRasterLayer().getRaster()));
+          synchronized (cache) {
+            cache.put(workspace, marker);
+          }
+        } finally {
+          latch.countDown();
+        }
       });
 
       try {
@@ -155,11 +180,21 @@ public class SimpleWebServer {
         throw new IOException("Snapshot interrupted", e);
       }
 
-      BufferedImage img = SwingFXUtils.fromFXImage(fxImage, null);
-      File file = new File("workspace_snapshots", "workspace.png");
-      file.getParentFile().mkdirs();
-      ImageIO.write(img, "png", file);
-      return file;
+      BufferedImage img = copy.get();
+      if (img == null) {
+        throw new IOException("Workspace could not be read");
+      }
+      ByteArrayOutputStream png = new ByteArrayOutputStream();
+      ImageIO.write(img, "png", png);
+      byte[] bytes = png.toByteArray();
+
+      synchronized (cache) {
+        // Only keep it if the workspace has not changed since it was copied
+        if (cache.get(workspace) == marker) {
+          cache.put(workspace, bytes);
+        }
+      }
+      return bytes;
     }
   }
 }
@@ -1,5 +1,6 @@
 open module net.cnoga.paint.test {
   requires net.cnoga.paint;
+  requires javafx.graphics;
 
   requires org.junit.jupiter.api;
 }
\ No newline at end of file
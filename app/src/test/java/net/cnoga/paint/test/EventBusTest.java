@@ -0,0 +1,411 @@
+package net.cnoga.paint.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import net.cnoga.paint.core.bus.BusMetrics;
+import net.cnoga.paint.core.bus.Coalesce;
+import net.cnoga.paint.core.bus.DeliveryMode;
+import net.cnoga.paint.core.bus.EventBus;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.InvocationStats;
+import net.cnoga.paint.core.bus.MergeableEvent;
+import net.cnoga.paint.core.bus.SubscribeEvent;
+import org.junit.jupiter.api.Test;
+
+public class EventBusTest {
+
+  @Test
+  void testSingleSubscriberReceivesEvent() {
+    TestSubscriber subscriber = new TestSubscriber();
+    EventBus bus = EventBus.getInstance();
+    bus.register(subscriber);
+
+    bus.post(new TestEvent("Hello"));
+
+    assertEquals("Hello", subscriber.lastMessage);
+  }
+
+  @Test
+  void testMultipleSubscribersReceiveEvent() {
+    TestMultiSubscriber multiSubscriber = new TestMultiSubscriber();
+    EventBus bus = EventBus.getInstance();
+
+    bus.register(multiSubscriber);
+
+    bus.post(new TestEvent("ooh ooh ooh"));
+
+    assertEquals(1, multiSubscriber.count);
+    assertEquals(2, multiSubscriber.count2);
+  }
+
+  @Test
+  void testInvalidSubscriberThrowsException() {
+    InvalidSubscriber invalidSubscriber = new InvalidSubscriber();
+    EventBus bus = EventBus.getInstance();
+
+    assertThrows(IllegalArgumentException.class, () -> bus.register(invalidSubscriber));
+  }
+
+  @Test
+  void testSubscriberWithWrongParameterCountThrowsException() {
+    EventBus bus = EventBus.getInstance();
+    InvalidMultiSubscriber bad = new InvalidMultiSubscriber();
+
+    assertThrows(IllegalArgumentException.class, () -> bus.register(bad));
+  }
+
+  @Test
+  void testScopedPostOnlyReachesItsScope() {
+    EventBus bus = EventBus.getInstance();
+    Object scopeA = new Object();
+    Object scopeB = new Object();
+    TestSubscriber a = new TestSubscriber();
+    TestSubscriber b = new TestSubscriber();
+    bus.register(a, scopeA);
+    bus.register(b, scopeB);
+
+    bus.post(scopeA, new TestEvent("only a"));
+    bus.post(new TestEvent("global"));
+
+    assertEquals("only a", a.lastMessage);
+    assertNull(b.lastMessage);
+  }
+
+  @Test
+  void testUnregisteredSubscriberNoLongerReceivesEvents() {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    TestSubscriber global = new TestSubscriber();
+    TestSubscriber scoped = new TestSubscriber();
+    bus.register(global);
+    bus.register(scoped, scope);
+
+    bus.unregister(global);
+    bus.unregisterScope(scope);
+    bus.post(new TestEvent("gone"));
+    bus.post(scope, new TestEvent("gone"));
+
+    assertNull(global.lastMessage);
+    assertNull(scoped.lastMessage);
+  }
+
+  @Test
+  void testCollectedScopedSubscriberNoLongerReceivesEvents() throws InterruptedException {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    AtomicInteger received = new AtomicInteger();
+    CountingSubscriber subscriber = new CountingSubscriber(received);
+    bus.register(subscriber, scope);
+    bus.post(scope, new TestEvent("alive"));
+    assertEquals(1, received.get());
+
+    WeakReference<Object> ref = new WeakReference<>(subscriber);
+    subscriber = null;
+    assertTrue(collectUntil(() -> ref.get() == null), "scoped subscriber was kept alive");
+
+    bus.post(scope, new TestEvent("collected"));
+    assertEquals(1, received.get());
+  }
+
+  @Test
+  void testCollectedScopeIsPurged() throws InterruptedException {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    TestSubscriber subscriber = new TestSubscriber();
+    bus.register(subscriber, scope);
+    int registered = bus.scopeCount();
+
+    WeakReference<Object> ref = new WeakReference<>(scope);
+    scope = null;
+    assertTrue(collectUntil(() -> ref.get() == null && bus.scopeCount() < registered),
+      "collected scope still has a table");
+  }
+
+  @Test
+  void testBackgroundSubscriberRunsOffPostingThread() throws Exception {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    BackgroundSubscriber subscriber = new BackgroundSubscriber();
+    bus.register(subscriber, scope);
+
+    bus.post(scope, new TestEvent("async"));
+
+    assertNotSame(Thread.currentThread(), subscriber.thread.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testMetricsCountCallsAndFlagSlowSubscribers() {
+    EventBus bus = EventBus.getInstance();
+    BusMetrics metrics = bus.metrics();
+    metrics.setSlowBudget(Duration.ofMillis(1));
+    Object scope = new Object();
+    bus.register(new SlowSubscriber(), scope);
+
+    bus.post(scope, new SlowEvent());
+    bus.post(scope, new SlowEvent());
+
+    InvocationStats event = metrics.events().stream()
+      .filter(s -> s.name().equals(SlowEvent.class.getName()))
+      .findFirst().orElseThrow();
+    InvocationStats handler = metrics.handlers().stream()
+      .filter(s -> s.name().contains("SlowSubscriber.onSlowEvent"))
+      .findFirst().orElseThrow();
+    assertEquals(2, event.count());
+    assertEquals(2, handler.count());
+    assertEquals(2, handler.slowCount());
+    metrics.setSlowBudget(Duration.ofMillis(4));
+  }
+
+  @Test
+  void testSupertypeSubscriberReceivesSubtypeEvents() {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    MarkerSubscriber marker = new MarkerSubscriber();
+    bus.register(marker, scope);
+
+    bus.post(scope, new MarkedEvent());
+    bus.post(scope, new MarkedEvent());
+    bus.post(scope, new TestEvent("unmarked"));
+
+    assertEquals(2, marker.count);
+    assertEquals(2, marker.exactCount);
+  }
+
+  @Test
+  void testLatestCoalescingDeliversOnlyTheLastEvent() {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    CoalescedSubscriber subscriber = new CoalescedSubscriber();
+    bus.register(subscriber, scope);
+    bus.setFlushScheduler(flush -> {
+    });
+    try {
+      bus.post(scope, new LatestEvent(1));
+      bus.post(scope, new LatestEvent(2));
+      bus.post(scope, new LatestEvent(3));
+      assertEquals(List.of(), subscriber.received);
+
+      bus.flushCoalesced();
+    } finally {
+      bus.setFlushScheduler(null);
+    }
+
+    assertEquals(List.of("latest 3"), subscriber.received);
+  }
+
+  @Test
+  void testMergeCoalescingCombinesEvents() {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    CoalescedSubscriber subscriber = new CoalescedSubscriber();
+    bus.register(subscriber, scope);
+    bus.setFlushScheduler(flush -> {
+    });
+    try {
+      bus.post(scope, new MergedEvent(1));
+      bus.post(scope, new MergedEvent(2));
+      bus.post(scope, new MergedEvent(3));
+      bus.flushCoalesced();
+    } finally {
+      bus.setFlushScheduler(null);
+    }
+
+    assertEquals(List.of("merged 6"), subscriber.received);
+  }
+
+  @Test
+  void testOrdinaryPostFlushesHeldEventsFirst() {
+    EventBus bus = EventBus.getInstance();
+    Object scope = new Object();
+    CoalescedSubscriber subscriber = new CoalescedSubscriber();
+    bus.register(subscriber, scope);
+    bus.setFlushScheduler(flush -> {
+    });
+    try {
+      bus.post(scope, new LatestEvent(1));
+      bus.post(scope, new MergedEvent(2));
+      bus.post(scope, new TestEvent("after"));
+    } finally {
+      bus.setFlushScheduler(null);
+    }
+
+    assertEquals(List.of("latest 1", "merged 2", "test after"), subscriber.received);
+  }
+
+  /**
+   * Runs the garbage collector until a condition holds, giving up after about five seconds.
+   */
+  private static boolean collectUntil(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      System.gc();
+      Thread.sleep(50);
+    }
+    return condition.getAsBoolean();
+  }
+
+  interface Marker {
+
+  }
+
+  record MarkedEvent() implements Marker {
+
+  }
+
+  record TestEvent(String message) {
+
+  }
+
+  @EventBusSubscriber
+  static class TestSubscriber {
+
+    String lastMessage;
+
+    @SubscribeEvent
+    public void onTestEvent(TestEvent evt) {
+      lastMessage = evt.message;
+    }
+  }
+
+  @EventBusSubscriber
+  static class CountingSubscriber {
+
+    final AtomicInteger received;
+
+    CountingSubscriber(AtomicInteger received) {
+      this.received = received;
+    }
+
+    @SubscribeEvent
+    public void onTestEvent(TestEvent evt) {
+      received.incrementAndGet();
+    }
+  }
+
+  @EventBusSubscriber
+  static class TestMultiSubscriber {
+
+    int count = 0;
+    int count2 = 0;
+
+    @SubscribeEvent
+    private void handle(TestEvent evt) {
+      count++;
+    }
+
+    @SubscribeEvent
+    private void handle2(TestEvent evt) {
+      count2 += 2;
+    }
+  }
+
+  @EventBusSubscriber
+  static class BackgroundSubscriber {
+
+    final CompletableFuture<Thread> thread = new CompletableFuture<>();
+
+    @SubscribeEvent(delivery = DeliveryMode.BACKGROUND)
+    public void onTestEvent(TestEvent evt) {
+      thread.complete(Thread.currentThread());
+    }
+  }
+
+  record SlowEvent() {
+
+  }
+
+  @EventBusSubscriber
+  static class SlowSubscriber {
+
+    @SubscribeEvent
+    public void onSlowEvent(SlowEvent evt) {
+      try {
+        Thread.sleep(2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Coalesce(Coalesce.Policy.LATEST)
+  record LatestEvent(int value) {
+
+  }
+
+  @Coalesce(Coalesce.Policy.MERGE)
+  record MergedEvent(int delta) implements MergeableEvent<MergedEvent> {
+
+    @Override
+    public MergedEvent merge(MergedEvent next) {
+      return new MergedEvent(delta + next.delta);
+    }
+  }
+
+  @EventBusSubscriber
+  static class CoalescedSubscriber {
+
+    final List<String> received = new ArrayList<>();
+
+    @SubscribeEvent
+    public void onLatest(LatestEvent evt) {
+      received.add("latest " + evt.value());
+    }
+
+    @SubscribeEvent
+    public void onMerged(MergedEvent evt) {
+      received.add("merged " + evt.delta());
+    }
+
+    @SubscribeEvent
+    public void onTest(TestEvent evt) {
+      received.add("test " + evt.message());
+    }
+  }
+
+  @EventBusSubscriber
+  static class MarkerSubscriber {
+
+    int count;
+    int exactCount;
+
+    @SubscribeEvent
+    public void onMarker(Marker evt) {
+      count++;
+    }
+
+    @SubscribeEvent
+    public void onMarkedEvent(MarkedEvent evt) {
+      exactCount++;
+    }
+  }
+
+  @EventBusSubscriber
+  static class InvalidSubscriber {
+
+    @SubscribeEvent
+    public void shouldFail() {
+    }
+  }
+
+  @EventBusSubscriber
+  class InvalidMultiSubscriber {
+
+    @SubscribeEvent
+    public void badHandler(TestEvent e, String extra) {
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package net.cnoga.paint.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.cnoga.paint.core.journal.JournalReader;
+import net.cnoga.paint.core.journal.JournalTag;
+import net.cnoga.paint.core.journal.JournalWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void testRecordsRoundTrip() throws IOException {
+    Path file = writeSample();
+
+    List<String> records = new ArrayList<>();
+    int count = JournalReader.read(file, (tag, deltaMicros, payload) -> records.add(
+      describe(tag, payload)));
+
+    assertEquals(4, count);
+    assertEquals(List.of("COLOR ff00ff00", "UNDO", "MOUSE_PRESSED 2 1.5,-3.0",
+      "MOUSE_DRAGGED 2 4.25,8.0"), records);
+  }
+
+  @Test
+  void testRecordCutShortEndsTheJournal() throws IOException {
+    byte[] whole = Files.readAllBytes(writeSample());
+
+    // Every cut into the last record, from inside its payload back to its first header byte
+    for (int cut = 1; cut < 5 + 9; cut++) {
+      Path file = dir.resolve("cut" + cut + ".pjnl");
+      Files.write(file, Arrays.copyOf(whole, whole.length - cut));
+
+      List<String> records = new ArrayList<>();
+      int count = JournalReader.read(file, (tag, deltaMicros, payload) -> records.add(
+        describe(tag, payload)));
+
+      assertEquals(3, count, "cut " + cut);
+      assertEquals(List.of("COLOR ff00ff00", "UNDO", "MOUSE_PRESSED 2 1.5,-3.0"), records);
+    }
+  }
+
+  @Test
+  void testIdleBufferIsHandedOffWithoutAnotherAppend() throws Exception {
+    Path file = dir.resolve("idle.pjnl");
+    BlockingQueue<Runnable> recorderTasks = new LinkedBlockingQueue<>();
+    try (JournalWriter writer = new JournalWriter(file, recorderTasks::add)) {
+      writer.append(JournalTag.UNDO);
+
+      // This thread is the recording thread, so it runs the hand-off the writer thread asks for
+      Runnable handOff = recorderTasks.poll(10, TimeUnit.SECONDS);
+      assertNotNull(handOff, "no hand-off requested while idle");
+      handOff.run();
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (Files.size(file) < 6 + 5 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(6 + 5, Files.size(file));
+    }
+  }
+
+  /**
+   * Writes a color change, an undo and a press and drag of tool 2, the last record being the
+   * drag.
+   */
+  private Path writeSample() throws IOException {
+    Path file = dir.resolve("sample.pjnl");
+    try (JournalWriter writer = new JournalWriter(file)) {
+      writer.append(JournalTag.COLOR).putInt(0xFF00FF00);
+      writer.append(JournalTag.UNDO);
+      writer.append(JournalTag.MOUSE_PRESSED).put((byte) 2).putFloat(1.5f).putFloat(-3f);
+      writer.append(JournalTag.MOUSE_DRAGGED).put((byte) 2).putFloat(4.25f).putFloat(8f);
+    }
+    return file;
+  }
+
+  private static String describe(JournalTag tag, ByteBuffer payload) {
+    return switch (tag) {
+      case COLOR -> "COLOR " + Integer.toHexString(payload.getInt());
+      case MOUSE_PRESSED, MOUSE_DRAGGED -> tag + " " + payload.get() + " "
+        + payload.getFloat() + "," + payload.getFloat();
+      default -> tag.toString();
+    };
+  }
+}
@@ -0,0 +1,25 @@
+package net.cnoga.paint.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import net.cnoga.paint.core.util.LineUtil;
+import org.junit.jupiter.api.Test;
+
+public class LineUtilTest {
+
+  @Test
+  void testSimplifyDropsPointsOnTheSegment() {
+    double[] xy = {0, 0, 1, 0.1, 2, 0, 3, 5, 4, 0, 5, 0};
+
+    assertArrayEquals(new double[]{0, 0, 2, 0, 3, 5, 4, 0, 5, 0},
+      LineUtil.simplify(xy, xy.length, 0.5));
+  }
+
+  @Test
+  void testSimplifyKeepsTheTurnOfAReversingStroke() {
+    double[] xy = {0, 0, 50, 0, 100, 0, 10, 0};
+
+    assertArrayEquals(new double[]{0, 0, 100, 0, 10, 0},
+      LineUtil.simplify(xy, xy.length, 0.5));
+  }
+}
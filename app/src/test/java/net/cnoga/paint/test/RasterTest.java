@@ -0,0 +1,410 @@
+package net.cnoga.paint.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import javafx.scene.canvas.Canvas;
+import net.cnoga.paint.core.raster.DirtyRegion;
+import net.cnoga.paint.core.raster.PixelBufferPool;
+import net.cnoga.paint.core.raster.PixelRect;
+import net.cnoga.paint.core.raster.Raster;
+import net.cnoga.paint.core.raster.RasterBrush;
+import net.cnoga.paint.core.raster.RasterBrush.Tip;
+import net.cnoga.paint.core.raster.RasterImages;
+import net.cnoga.paint.core.raster.RasterLayer;
+import net.cnoga.paint.core.raster.TileDelta;
+import net.cnoga.paint.core.raster.TileSpillFile;
+import org.junit.jupiter.api.Test;
+
+public class RasterTest {
+
+  private static final int RED = 0xFFFF0000;
+  private static final int BLUE = 0xFF0000FF;
+
+  @Test
+  void testNewRasterIsTransparentAndClean() {
+    Raster raster = new Raster(300, 200);
+
+    assertEquals(2, raster.getTilesX());
+    assertEquals(1, raster.getTilesY());
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(299, 199));
+    assertFalse(raster.isDirty());
+  }
+
+  @Test
+  void testFillRectSpansTilesAndMarksOnlyThem() {
+    Raster raster = new Raster(600, 600);
+    raster.fillRect(250, 10, 10, 10, RED);
+
+    assertEquals(RED, raster.getArgb(250, 10));
+    assertEquals(RED, raster.getArgb(259, 19));
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(260, 10));
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(249, 19));
+
+    BitSet dirty = raster.getDirtyTiles();
+    assertEquals(2, dirty.cardinality());
+    assertTrue(dirty.get(0));
+    assertTrue(dirty.get(1));
+
+    raster.clearDirty();
+    assertFalse(raster.isDirty());
+  }
+
+  @Test
+  void testFillRectIsClipped() {
+    Raster raster = new Raster(10, 10);
+    raster.fillRect(-5, -5, 8, 100, BLUE);
+
+    assertEquals(BLUE, raster.getArgb(0, 9));
+    assertEquals(BLUE, raster.getArgb(2, 0));
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(3, 0));
+  }
+
+  @Test
+  void testPixelsRoundTripAcrossTileEdges() {
+    Raster raster = new Raster(520, 300);
+    int w = 40;
+    int h = 30;
+    int[] src = new int[w * h];
+    for (int i = 0; i < src.length; i++) {
+      src[i] = 0xFF000000 | i;
+    }
+    raster.setPixels(240, 240, w, h, src, 0, w);
+
+    int[] back = new int[w * h];
+    raster.getPixels(240, 240, w, h, back, 0, w);
+    assertArrayEquals(src, back);
+    assertEquals(src[(256 - 240) * w + (256 - 240)], raster.getArgb(256, 256));
+    assertEquals(4, raster.getDirtyTiles().cardinality());
+
+    assertThrows(IndexOutOfBoundsException.class,
+      () -> raster.getPixels(500, 0, 40, 1, back, 0, w));
+  }
+
+  @Test
+  void testReadClippedPadsWithTransparency() {
+    Raster raster = new Raster(4, 4);
+    raster.fill(RED);
+
+    int[] pixels = RasterImages.readClipped(raster, -1, 3, 2, 2);
+    assertArrayEquals(new int[]{Raster.TRANSPARENT, RED, Raster.TRANSPARENT, Raster.TRANSPARENT},
+      pixels);
+  }
+
+  @Test
+  void testDrawPixelsCompositesSourceOver() {
+    Raster raster = new Raster(2, 1);
+    raster.fill(BLUE);
+    raster.drawPixels(0, 0, 2, 1, new int[]{RED, 0x00FF0000}, 0, 2);
+
+    assertEquals(RED, raster.getArgb(0, 0));
+    assertEquals(BLUE, raster.getArgb(1, 0));
+
+    raster.drawPixels(1, 0, 1, 1, new int[]{0x80FF0000}, 0, 1);
+    int blended = raster.getArgb(1, 0);
+    assertEquals(0xFF, blended >>> 24);
+    assertEquals(0x80, (blended >> 16) & 0xFF);
+    assertEquals(0x7F, blended & 0xFF);
+  }
+
+  @Test
+  void testQuarterTurnAndMirror() {
+    Raster raster = new Raster(3, 2);
+    raster.setArgb(0, 0, RED);
+
+    Raster turned = raster.transformed(90, false, false);
+    assertEquals(2, turned.getWidth());
+    assertEquals(3, turned.getHeight());
+    assertEquals(RED, turned.getArgb(1, 0));
+
+    Raster mirrored = raster.transformed(0, true, false);
+    assertEquals(RED, mirrored.getArgb(2, 0));
+
+    assertThrows(IllegalArgumentException.class, () -> raster.transformed(45, false, false));
+  }
+
+  @Test
+  void testCopyIsIndependent() {
+    Raster raster = new Raster(300, 300);
+    raster.fill(RED);
+    Raster copy = raster.copy();
+    raster.setArgb(299, 299, BLUE);
+
+    assertEquals(RED, copy.getArgb(299, 299));
+    assertFalse(copy.isDirty());
+
+    raster.copyFrom(copy);
+    assertEquals(RED, raster.getArgb(299, 299));
+  }
+
+  @Test
+  void testCopiesShareUntouchedTiles() {
+    Raster raster = new Raster(600, 600);
+    raster.fill(RED);
+    Raster before = raster.copy();
+    raster.fillRect(300, 300, 10, 10, BLUE);
+
+    assertEquals(1, raster.countTilesDifferentFrom(before));
+    assertEquals(RED, before.getArgb(300, 300));
+
+    raster.clearDirty();
+    assertEquals(1, raster.copyFrom(before));
+    assertEquals(RED, raster.getArgb(300, 300));
+    assertEquals(1, raster.getDirtyTiles().cardinality());
+    assertTrue(raster.getDirtyTiles().get(4));
+
+    raster.setArgb(0, 0, BLUE);
+    assertEquals(RED, before.getArgb(0, 0));
+  }
+
+  @Test
+  void testTileDeltaSurvivesCompressionAndSpill() throws Exception {
+    RasterLayer layer = new RasterLayer(new Canvas(600, 600), (l, areas) -> { });
+    Raster raster = layer.getRaster();
+    raster.fill(RED);
+    raster.setArgb(599, 599, BLUE);
+    Raster before = raster.copy();
+    raster.fillRect(520, 520, 10, 10, BLUE);
+
+    TileDelta delta = TileDelta.between(before, raster);
+    assertEquals(1, delta.getTileCount());
+    assertEquals(TileDelta.RAW_TILE_BYTES, delta.getResidentBytes());
+
+    try (TileSpillFile file = new TileSpillFile()) {
+      delta.spill(file);
+      assertEquals(0, delta.getResidentBytes());
+      assertTrue(file.getUsedBytes() > 0);
+
+      TileDelta redo = delta.applyTo(layer);
+      delta.release();
+      assertEquals(0, file.getUsedBytes());
+      assertEquals(RED, raster.getArgb(525, 525));
+
+      redo.applyTo(layer);
+      assertEquals(BLUE, raster.getArgb(525, 525));
+      assertEquals(RED, before.getArgb(525, 525));
+    }
+  }
+
+  @Test
+  void testCapturedStateRestoresAfterLaterEditsAndSpill() throws Exception {
+    Raster raster = new Raster(600, 600);
+    raster.fill(RED);
+    raster.setArgb(599, 599, BLUE);
+    TileDelta keyframe = TileDelta.capture(raster);
+    assertEquals(9, keyframe.getTileCount());
+
+    raster.fillRect(10, 10, 5, 5, BLUE);
+    assertEquals(1, keyframe.stateBefore(raster).countTilesDifferentFrom(raster));
+
+    try (TileSpillFile file = new TileSpillFile()) {
+      keyframe.spill(file);
+      // Only the uniform tiles, a single value each, stay in memory
+      assertEquals(8L * Integer.BYTES, keyframe.getResidentBytes());
+
+      raster.copyFrom(keyframe.stateBefore(raster));
+      assertEquals(RED, raster.getArgb(10, 10));
+      assertEquals(BLUE, raster.getArgb(599, 599));
+      keyframe.release();
+      assertEquals(0, file.getUsedBytes());
+    }
+  }
+
+  @Test
+  void testUniformTilesCostOneValueUntilPartlyWritten() {
+    RasterLayer layer = new RasterLayer(new Canvas(600, 600), (l, areas) -> { });
+    Raster raster = layer.getRaster();
+    raster.fill(RED);
+
+    layer.beginRecording();
+    raster.fillRect(256, 0, 344, 256, BLUE);
+    raster.fillRect(0, 512, 600, 88, Raster.TRANSPARENT);
+    raster.setArgb(599, 300, BLUE);
+    TileDelta delta = layer.endRecording();
+    assertEquals(6, delta.getTileCount());
+    assertEquals(6L * Integer.BYTES, delta.getResidentBytes());
+    assertFalse(delta.hasRawTiles());
+
+    assertEquals(BLUE, raster.getArgb(599, 0));
+    assertEquals(RED, raster.getArgb(598, 300));
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(599, 599));
+    int[] row = new int[600];
+    raster.getPixels(0, 100, 600, 1, row, 0, 600);
+    assertEquals(RED, row[255]);
+    assertEquals(BLUE, row[256]);
+
+    delta.applyTo(layer);
+    assertEquals(RED, raster.getArgb(599, 599));
+    assertEquals(RED, raster.getArgb(599, 300));
+  }
+
+  @Test
+  void testRecordingKeepsPreImagesOfWrittenTilesOnly() {
+    RasterLayer layer = new RasterLayer(new Canvas(600, 600), (l, areas) -> { });
+    Raster raster = layer.getRaster();
+    raster.fill(RED);
+
+    layer.beginRecording();
+    assertNull(layer.endRecording());
+
+    layer.beginRecording();
+    raster.setArgb(10, 10, BLUE);
+    raster.setArgb(11, 10, BLUE);
+    TileDelta delta = layer.endRecording();
+    assertEquals(1, delta.getTileCount());
+
+    delta.applyTo(layer);
+    assertEquals(RED, raster.getArgb(10, 10));
+  }
+
+  @Test
+  void testStateBeforeSharesUntouchedTiles() {
+    RasterLayer layer = new RasterLayer(new Canvas(600, 600), (l, areas) -> { });
+    Raster raster = layer.getRaster();
+    raster.fill(RED);
+
+    layer.beginRecording();
+    raster.setArgb(10, 10, BLUE);
+    layer.refresh();
+    TileDelta delta = layer.endRecording();
+    assertTrue(layer.wasEditedDirectly());
+
+    Raster before = delta.stateBefore(raster);
+    assertEquals(RED, before.getArgb(10, 10));
+    assertEquals(BLUE, raster.getArgb(10, 10));
+    assertEquals(1, before.countTilesDifferentFrom(raster));
+    assertFalse(before.isDirty());
+
+    raster.copyFrom(before);
+    assertEquals(RED, raster.getArgb(10, 10));
+  }
+
+  @Test
+  void testDeferredRefreshReportsOnceAtTheEnd() {
+    List<List<PixelRect>> reports = new ArrayList<>();
+    RasterLayer layer = new RasterLayer(new Canvas(600, 600), (l, areas) -> reports.add(areas));
+    Raster raster = layer.getRaster();
+
+    layer.setRefreshDeferred(true);
+    raster.fillRect(0, 0, 10, 10, RED);
+    layer.refresh();
+    raster.fillRect(300, 0, 10, 10, BLUE);
+    layer.refresh();
+    assertTrue(reports.isEmpty());
+    assertTrue(raster.isDirty());
+
+    layer.setRefreshDeferred(false);
+    assertEquals(1, reports.size());
+    assertFalse(raster.isDirty());
+  }
+
+  @Test
+  void testPixelBufferPoolReusesWithinItsCap() {
+    PixelBufferPool pool = new PixelBufferPool(64 << 10);
+    int[] first = pool.leaseInts(5000);
+    assertEquals(8192, first.length);
+
+    pool.release(first);
+    pool.release(first);
+    assertEquals(8192L * Integer.BYTES, pool.getRetainedBytes());
+    assertTrue(first == pool.leaseInts(6000));
+    assertTrue(first != pool.leaseInts(6000));
+    assertEquals(0, pool.getRetainedBytes());
+
+    pool.release(new int[1 << 16]);
+    assertEquals(0, pool.getRetainedBytes());
+    pool.release(new int[100]);
+    assertEquals(0, pool.getRetainedBytes());
+
+    int[] pixels = pool.leaseInts(4);
+    Arrays.fill(pixels, BLUE);
+    Raster raster = new Raster(4, 4);
+    raster.fill(RED);
+    RasterImages.readClipped(raster, -1, 3, 2, 2, pixels);
+    assertArrayEquals(new int[]{Raster.TRANSPARENT, RED, Raster.TRANSPARENT, Raster.TRANSPARENT},
+      Arrays.copyOf(pixels, 4));
+  }
+
+  @Test
+  void testSweptEraseClearsTheWholePathInOnePass() {
+    Raster raster = new Raster(100, 100);
+    raster.fill(RED);
+
+    PixelRect square = RasterBrush.clearSwept(raster, Tip.SQUARE, 10, 20, 20, 60, 40);
+    assertEquals(new PixelRect(15, 15, 50, 30), square);
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(40, 30));
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(15, 15));
+    assertEquals(RED, raster.getArgb(64, 15));
+    assertEquals(RED, raster.getArgb(15, 44));
+
+    raster.fill(RED);
+    RasterBrush.clearSwept(raster, Tip.ROUND, 10, 20, 80, 80, 80);
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(50, 84));
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(15, 80));
+    assertEquals(RED, raster.getArgb(15, 76));
+    assertEquals(RED, raster.getArgb(50, 86));
+
+    assertTrue(RasterBrush.clearSwept(raster, Tip.ROUND, 10, -50, -50, -40, -40).isEmpty());
+  }
+
+  @Test
+  void testToolPaintingIsNotADirectEdit() {
+    Canvas canvas = new Canvas(300, 300);
+    List<List<PixelRect>> reports = new ArrayList<>();
+    RasterLayer layer = new RasterLayer(canvas, (l, areas) -> reports.add(areas));
+    assertTrue(RasterLayer.of(canvas) == layer);
+    layer.getRaster().fill(RED);
+    layer.refresh();
+    reports.clear();
+
+    layer.beginRecording();
+    layer.paint(raster -> RasterBrush.clearSwept(raster, Tip.ROUND, 8, 10, 10, 280, 10));
+    TileDelta delta = layer.endRecording();
+    assertFalse(layer.wasEditedDirectly());
+    assertEquals(2, delta.getTileCount());
+    assertEquals(1, reports.size());
+  }
+
+  @Test
+  void testFadeDabScalesAlphaOnly() {
+    Raster raster = new Raster(20, 20);
+    raster.fill(RED);
+
+    RasterBrush.fadeDab(raster, 10, 10, 5, 0.5);
+    int center = raster.getArgb(10, 10);
+    assertEquals(0x00FF0000, center & 0x00FFFFFF);
+    assertTrue((center >>> 24) < 0x90 && (center >>> 24) > 0x70);
+    assertTrue((raster.getArgb(13, 10) >>> 24) > center >>> 24);
+    assertEquals(RED, raster.getArgb(16, 10));
+
+    RasterBrush.fadeDab(raster, 10.5, 10.5, 5, 1);
+    assertEquals(Raster.TRANSPARENT, raster.getArgb(10, 10));
+    assertTrue((raster.getArgb(9, 10) >>> 24) < 0x10);
+  }
+
+  @Test
+  void testDirtyRegionMergesAndStaysBounded() {
+    DirtyRegion region = new DirtyRegion();
+    region.add(new PixelRect(0, 0, 10, 10));
+    region.add(new PixelRect(10, 0, 10, 10));
+    region.add(new PixelRect(2, 2, 3, 3));
+
+    assertEquals(1, region.getRects().size());
+    assertEquals(new PixelRect(0, 0, 20, 10), region.getBounds());
+
+    for (int i = 1; i <= 20; i++) {
+      region.add(new PixelRect(i * 100, i * 100, 5, 5));
+    }
+    assertTrue(region.getRects().size() <= DirtyRegion.MAX_RECTS);
+    assertEquals(new PixelRect(0, 0, 2005, 2005), region.getBounds());
+    assertEquals(new PixelRect(-2, 2, 5, 6), PixelRect.covering(-1.5, 3.2, 2.5, 6.8, 0.5));
+  }
+}
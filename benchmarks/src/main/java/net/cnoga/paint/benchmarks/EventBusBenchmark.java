@@ -0,0 +1,129 @@
+package net.cnoga.paint.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.cnoga.paint.core.bus.EventBus;
+import net.cnoga.paint.core.bus.EventBusSubscriber;
+import net.cnoga.paint.core.bus.SubscribeEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link EventBus#register} and {@link EventBus#post} with a varying number of
+ * subscribers listening for the posted event.
+ *
+ * <p>Global and scoped posts are measured separately, since they go through different tables. Run
+ * with {@code -prof gc} to see the allocation per post, which should be zero in steady state.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+
+  private final EventBus bus = EventBus.getInstance();
+
+  /** Number of subscribers registered for {@link BenchEvent}. */
+  @Param({"1", "10", "100"})
+  public int subscribers;
+
+  /** Scope the scoped subscribers live in. */
+  private final Object scope = new Object();
+
+  /** Event reused by every post, so only the bus itself allocates. */
+  private final BenchEvent event = new BenchEvent(42);
+
+  /** Subscribers registered globally and into {@link #scope}. */
+  private Counter[] registered;
+
+  /** Fresh subscribers for the registration benchmark. */
+  private Counter[] unregistered;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    registered = new Counter[subscribers];
+    unregistered = new Counter[subscribers];
+    for (int i = 0; i < subscribers; i++) {
+      registered[i] = new Counter();
+      unregistered[i] = new Counter();
+      bus.register(registered[i]);
+      bus.register(registered[i], scope);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (Counter counter : registered) {
+      bus.unregister(counter);
+    }
+    bus.unregisterScope(scope);
+  }
+
+  /**
+   * Registers every subscriber into a new scope, then drops the scope.
+   *
+   * @return the discarded scope, so the work is not optimized away
+   */
+  @Benchmark
+  public Object register() {
+    Object fresh = new Object();
+    for (Counter counter : unregistered) {
+      bus.register(counter, fresh);
+    }
+    bus.unregisterScope(fresh);
+    return fresh;
+  }
+
+  /**
+   * Posts one event to the global subscribers.
+   */
+  @Benchmark
+  public void postGlobal() {
+    bus.post(event);
+  }
+
+  /**
+   * Posts one event to the scoped subscribers.
+   */
+  @Benchmark
+  public void postScoped() {
+    bus.post(scope, event);
+  }
+
+  /**
+   * Event posted by the benchmarks.
+   *
+   * @param value an arbitrary payload
+   */
+  public record BenchEvent(int value) {
+
+  }
+
+  /**
+   * Subscriber that accumulates the payload of every event it receives.
+   */
+  @EventBusSubscriber
+  public static class Counter {
+
+    /** Running sum; read by nothing, but written so the handler is not empty. */
+    public long sum;
+
+    @SubscribeEvent
+    @SuppressWarnings("unused")
+    private void onBenchEvent(BenchEvent event) {
+      sum += event.value();
+    }
+  }
+}
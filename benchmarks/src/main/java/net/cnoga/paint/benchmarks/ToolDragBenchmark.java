@@ -0,0 +1,108 @@
+package net.cnoga.paint.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import net.cnoga.paint.core.raster.RasterLayer;
+import net.cnoga.paint.core.tool.PaintTools;
+import net.cnoga.paint.core.tool.Tool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one {@link Tool#handleMouseDragged} call for every tool in {@link PaintTools#ALL_TOOLS}.
+ *
+ * <p>Each invocation replays a stroke of {@value #STROKE_POINTS} drag events and then clears both
+ * canvases, which discards the canvas's recorded draw commands so memory stays bounded. The base
+ * canvas displays a {@link RasterLayer}, as a workspace's does, so erasers that write straight to
+ * its pixels have something to erase; it is refilled after each stroke, which is included in the
+ * time. No FX
+ * toolkit is started: the canvases only record commands and never render, so this measures the
+ * tool's own work plus command recording. Tools that need a running toolkit to start a stroke
+ * (e.g. the dropper's snapshot) are measured from wherever their press left them.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolDragBenchmark {
+
+  /** Drag events per stroke. */
+  private static final int STROKE_POINTS = 256;
+
+  /** Canvas edge length, comparable to a default workspace. */
+  private static final int SIZE = 1024;
+
+  /** Opaque gray the base layer is filled with before each stroke. */
+  private static final int BACKGROUND = 0xFF808080;
+
+  /** Name of the tool under test, see {@link Tool#getName()}; keep in step with the tool list. */
+  @Param({"Selection", "Move", "Paintbrush", "Line", "Pan", "Dropper", "Eraser", "Shape", "Text",
+    "Soft Eraser"})
+  public String toolName;
+
+  private Tool tool;
+  private RasterLayer layer;
+  private GraphicsContext gc;
+  private GraphicsContext effectsGc;
+
+  /** Stroke coordinates, interleaved {@code x, y}. */
+  private final double[] stroke = new double[STROKE_POINTS * 2];
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    for (Tool candidate : PaintTools.ALL_TOOLS) {
+      if (candidate.getName().equals(toolName)) {
+        tool = candidate;
+      }
+    }
+    if (tool == null) {
+      throw new IllegalArgumentException("No tool named " + toolName);
+    }
+
+    Canvas base = new Canvas(SIZE, SIZE);
+    layer = new RasterLayer(base, (l, areas) -> { });
+    layer.getRaster().fill(BACKGROUND);
+    gc = base.getGraphicsContext2D();
+    effectsGc = new Canvas(SIZE, SIZE).getGraphicsContext2D();
+
+    // A wobbly diagonal, so line and shape tools draw something of varying size.
+    for (int i = 0; i < STROKE_POINTS; i++) {
+      stroke[2 * i] = 16 + i * 3.5;
+      stroke[2 * i + 1] = 16 + i * 3 + (i % 8) * 2;
+    }
+
+    try {
+      tool.handleMousePressed(gc, effectsGc, stroke[0], stroke[1]);
+    } catch (RuntimeException e) {
+      System.err.println("# " + toolName + " press needs a running toolkit: " + e);
+    }
+  }
+
+  /**
+   * Drags the tool along the stroke.
+   */
+  @Benchmark
+  @OperationsPerInvocation(STROKE_POINTS)
+  public void drag() {
+    for (int i = 0; i < STROKE_POINTS; i++) {
+      tool.handleMouseDragged(gc, effectsGc, stroke[2 * i], stroke[2 * i + 1]);
+    }
+    gc.clearRect(0, 0, SIZE, SIZE);
+    effectsGc.clearRect(0, 0, SIZE, SIZE);
+    layer.getRaster().fill(BACKGROUND);
+  }
+}
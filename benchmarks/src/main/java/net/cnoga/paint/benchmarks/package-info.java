@@ -0,0 +1,16 @@
+/**
+ * JMH benchmarks for the paint program's hot paths.
+ *
+ * <ul>
+ *   <li>{@link net.cnoga.paint.benchmarks.EventBusBenchmark} - registration and posting
+ *   throughput with 1, 10 and 100 subscribers.</li>
+ *   <li>{@link net.cnoga.paint.benchmarks.ToolDragBenchmark} - mouse-drag dispatch for every
+ *   built-in tool.</li>
+ * </ul>
+ *
+ * <p>Build the main project with {@code mvn install -DskipTests}, then
+ * {@code mvn -f benchmarks/pom.xml package} and run
+ * {@code java -jar benchmarks/target/benchmarks.jar -prof gc} for allocation rates alongside the
+ * timings.</p>
+ */
+package net.cnoga.paint.benchmarks;
@@ -0,0 +1,206 @@
+package net.cnoga.paint.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the event bus's subscriber index at compile time.
+ * <p>
+ * For every class annotated with {@code @EventBusSubscriber}, the processor records each
+ * {@code @SubscribeEvent} method's name, event type and resolved delivery mode in a generated
+ * {@code net.cnoga.paint.core.bus.GeneratedSubscriberIndex}. Registering an indexed class is then a
+ * table lookup instead of a reflective scan.
+ * </p>
+ *
+ * <p>
+ * Misannotated handlers are reported as compile errors. Classes the generated code cannot name
+ * (non-public classes or event types) are left out and fall back to reflection at runtime.
+ * </p>
+ *
+ * <p>
+ * The index is written in the first round that brings sources, so it is compiled along with them.
+ * Subscribers another processor generates later are not indexed and fall back to reflection.
+ * </p>
+ */
+@SupportedAnnotationTypes({
+  SubscriberIndexProcessor.SUBSCRIBER,
+  SubscriberIndexProcessor.SUBSCRIBE_EVENT
+})
+public class SubscriberIndexProcessor extends AbstractProcessor {
+
+  static final String BUS_PACKAGE = "net.cnoga.paint.core.bus";
+  static final String SUBSCRIBER = BUS_PACKAGE + ".EventBusSubscriber";
+  static final String SUBSCRIBE_EVENT = BUS_PACKAGE + ".SubscribeEvent";
+  static final String INDEX_CLASS = "GeneratedSubscriberIndex";
+
+  /** Indexed handlers per subscriber class, sorted for a stable output. */
+  private final Map<String, List<String>> index = new TreeMap<>();
+
+  /** Whether the index has been written; a source file can only be created once. */
+  private boolean written;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+    TypeElement subscriber = processingEnv.getElementUtils().getTypeElement(SUBSCRIBER);
+    if (subscriber != null) {
+      // Subscribers without handlers (e.g. tools that only publish) are indexed as empty.
+      for (Element element : round.getElementsAnnotatedWith(subscriber)) {
+        if (element instanceof TypeElement type && isNameable(type)) {
+          index.computeIfAbsent(type.getQualifiedName().toString(), k -> new ArrayList<>());
+        }
+      }
+    }
+
+    TypeElement subscribeEvent = processingEnv.getElementUtils().getTypeElement(SUBSCRIBE_EVENT);
+    if (subscribeEvent != null) {
+      for (Element element : round.getElementsAnnotatedWith(subscribeEvent)) {
+        collect((ExecutableElement) element);
+      }
+    }
+
+    // Files created once processing is over are not compiled with the annotated sources.
+    if (!written && !round.getRootElements().isEmpty() && !index.isEmpty()) {
+      writeIndex();
+      written = true;
+    }
+    return false;
+  }
+
+  /**
+   * Validates one handler and adds it to the index if the generated code can reference it.
+   */
+  private void collect(ExecutableElement method) {
+    TypeElement owner = (TypeElement) method.getEnclosingElement();
+    AnnotationMirror subscriber = findAnnotation(owner, SUBSCRIBER);
+    if (subscriber == null) {
+      error(method, "@SubscribeEvent method in a class not annotated with @EventBusSubscriber");
+      return;
+    }
+    if (method.getParameters().size() != 1) {
+      error(method, "@SubscribeEvent method " + method.getSimpleName()
+        + " must have exactly ONE parameter (the event type).");
+      return;
+    }
+
+    TypeMirror eventType = processingEnv.getTypeUtils()
+      .erasure(method.getParameters().get(0).asType());
+    if (!isNameable(owner) || !isNameable(eventType)) {
+      return;
+    }
+
+    String mode = deliveryMode(findAnnotation(method, SUBSCRIBE_EVENT));
+    if (mode.equals("DEFAULT")) {
+      mode = deliveryMode(subscriber);
+    }
+    if (mode.equals("DEFAULT")) {
+      mode = "POSTING";
+    }
+
+    index.computeIfAbsent(owner.getQualifiedName().toString(), k -> new ArrayList<>())
+      .add("new IndexedHandler(\"" + method.getSimpleName() + "\", "
+        + eventType + ".class, DeliveryMode." + mode + ")");
+  }
+
+  /**
+   * Writes the generated index class into the bus package.
+   */
+  private void writeIndex() {
+    StringBuilder out = new StringBuilder()
+      .append("package ").append(BUS_PACKAGE).append(";\n\n")
+      .append("import java.util.Map;\n\n")
+      .append("/** Generated by ").append(getClass().getName())
+      .append(". Do not edit. */\n")
+      .append("final class ").append(INDEX_CLASS).append(" implements SubscriberIndex {\n\n")
+      .append("  @Override\n")
+      .append("  public void populate(Map<Class<?>, IndexedHandler[]> index) {\n");
+
+    for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+      out.append("    index.put(").append(entry.getKey()).append(".class, new IndexedHandler[] {\n");
+      for (String handler : entry.getValue()) {
+        out.append("      ").append(handler).append(",\n");
+      }
+      out.append("    });\n");
+    }
+    out.append("  }\n}\n");
+
+    try (Writer writer = processingEnv.getFiler()
+      .createSourceFile(BUS_PACKAGE + "." + INDEX_CLASS).openWriter()) {
+      writer.write(out.toString());
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+        "Failed to write subscriber index: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Reads the {@code delivery} element of a bus annotation, or {@code DEFAULT} if it is unset.
+   */
+  private String deliveryMode(AnnotationMirror annotation) {
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+      : annotation.getElementValues().entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals("delivery")) {
+        return ((Element) entry.getValue().getValue()).getSimpleName().toString();
+      }
+    }
+    return "DEFAULT";
+  }
+
+  private AnnotationMirror findAnnotation(Element element, String name) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+      if (type.getQualifiedName().contentEquals(name)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return whether generated code in the bus package can write a class literal for the type
+   */
+  private boolean isNameable(TypeMirror type) {
+    return type.getKind() == TypeKind.DECLARED
+      && isNameable((TypeElement) ((DeclaredType) type).asElement());
+  }
+
+  private boolean isNameable(TypeElement type) {
+    Element current = type;
+    while (current.getKind().isClass() || current.getKind().isInterface()
+      || current.getKind() == ElementKind.RECORD) {
+      if (!current.getModifiers().contains(Modifier.PUBLIC)) {
+        return false;
+      }
+      current = current.getEnclosingElement();
+    }
+    return true;
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
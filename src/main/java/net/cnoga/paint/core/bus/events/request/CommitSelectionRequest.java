@@ -1,6 +0,0 @@
-package net.cnoga.paint.core.bus.events.request;
-
-/** Requests to commit the current selection. */
-public record CommitSelectionRequest() {
-
-}
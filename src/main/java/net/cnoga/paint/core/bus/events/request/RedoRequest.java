@@ -1,6 +0,0 @@
-package net.cnoga.paint.core.bus.events.request;
-
-/** Requests to redo the last undone action. */
-public record RedoRequest() {
-
-}
@@ -1,6 +0,0 @@
-package net.cnoga.paint.core.bus.events.request;
-
-/** Requests to save the current workspace state. */
-public record SaveStateRequest() {
-
-}
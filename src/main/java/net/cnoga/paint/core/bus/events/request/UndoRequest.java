@@ -1,6 +0,0 @@
-package net.cnoga.paint.core.bus.events.request;
-
-/** Requests to undo the last action. */
-public record UndoRequest() {
-
-}